@@ -0,0 +1,459 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code Codec} for every class annotated with {@code io.dgraph.mapping.DgraphType}.
+ * The codec of {@code com.example.Outer.Person} is {@code com.example.Outer_Person_DgraphCodec},
+ * which reads and writes the fields directly, so neither decoding nor encoding uses reflection.
+ *
+ * <p>The annotations are matched by name, so the processor does not depend on dgraph4j itself.
+ */
+@SupportedAnnotationTypes(DgraphTypeProcessor.DGRAPH_TYPE)
+public final class DgraphTypeProcessor extends AbstractProcessor {
+  static final String DGRAPH_TYPE = "io.dgraph.mapping.DgraphType";
+  private static final String PREDICATE = "io.dgraph.mapping.Predicate";
+  private static final String UID = "io.dgraph.mapping.Uid";
+
+  /** A field of a mapped class and the code that reads and writes it. */
+  private static final class Field {
+    final String name;
+    final String predicate;
+    // the expression that reads the value from `reader`
+    final String read;
+    // the statement that writes `value.<name>` to `writer`
+    final String write;
+    final boolean nullable;
+
+    Field(String name, String predicate, String read, String write, boolean nullable) {
+      this.name = name;
+      this.predicate = predicate;
+      this.read = read;
+      this.write = write;
+      this.nullable = nullable;
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error(element, "@DgraphType must annotate a class");
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        // report every problem of the class before giving up on it
+        boolean valid = checkClass(type);
+        List<Field> fields = fields(type);
+        if (valid && fields != null) {
+          write(type, fields);
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean checkClass(TypeElement type) {
+    boolean valid = true;
+    Set<Modifier> modifiers = type.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.ABSTRACT)) {
+      error(type, "a @DgraphType class must not be private or abstract");
+      valid = false;
+    }
+    if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+      error(type, "a nested @DgraphType class must be static");
+      valid = false;
+    }
+    boolean hasConstructor = false;
+    for (ExecutableElement constructor :
+        ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()
+          && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        hasConstructor = true;
+      }
+    }
+    if (!hasConstructor) {
+      error(type, "a @DgraphType class needs a constructor without parameters that is not private");
+      valid = false;
+    }
+    return valid;
+  }
+
+  /**
+   * Returns the mapped fields of {@code type}, those of its superclasses first, or null if one of
+   * them cannot be mapped.
+   */
+  private List<Field> fields(TypeElement type) {
+    List<VariableElement> declared = new ArrayList<>();
+    for (TypeElement t = type; t != null; t = superclass(t)) {
+      declared.addAll(0, ElementFilter.fieldsIn(t.getEnclosedElements()));
+    }
+    String packageName = packageOf(type);
+    List<Field> fields = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    boolean valid = true;
+    boolean hasUid = false;
+    for (VariableElement field : declared) {
+      Set<Modifier> modifiers = field.getModifiers();
+      if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+        continue;
+      }
+      String name = field.getSimpleName().toString();
+      TypeElement owner = (TypeElement) field.getEnclosingElement();
+      // an inherited field is reported on the class, as its superclass may have no source
+      Element at = field;
+      String prefix = "";
+      if (owner != type) {
+        at = type;
+        prefix = "inherited field " + owner.getSimpleName() + "." + name + ": ";
+      }
+      if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+        error(at, prefix + "a field of a @DgraphType class must not be private or final");
+        valid = false;
+        continue;
+      }
+      if (!modifiers.contains(Modifier.PUBLIC) && !packageOf(owner).equals(packageName)) {
+        error(at, prefix + "a field inherited from another package must be public");
+        valid = false;
+        continue;
+      }
+      if (!names.add(name)) {
+        error(at, prefix + "a field of a @DgraphType class must not hide an inherited field");
+        valid = false;
+        continue;
+      }
+      String predicate = name;
+      AnnotationMirror predicateAnnotation = annotation(field, PREDICATE);
+      if (predicateAnnotation != null) {
+        predicate = value(predicateAnnotation);
+      }
+      if (annotation(field, UID) != null) {
+        if (hasUid || !isType(field.asType(), "java.lang.String")) {
+          error(at, prefix + "a @DgraphType class may have one @Uid field, which must be a String");
+          valid = false;
+          continue;
+        }
+        hasUid = true;
+        predicate = "uid";
+      }
+      Field mapped = field(name, predicate, field.asType());
+      if (mapped == null) {
+        error(
+            at,
+            prefix + "unsupported type " + field.asType() + " of a field of a @DgraphType class");
+        valid = false;
+        continue;
+      }
+      fields.add(mapped);
+    }
+    return valid ? fields : null;
+  }
+
+  private Field field(String name, String predicate, TypeMirror type) {
+    String access = "value." + name;
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return scalar(name, predicate, "Boolean", false);
+      case INT:
+        return scalar(name, predicate, "Int", false);
+      case LONG:
+        return scalar(name, predicate, "Long", false);
+      case FLOAT:
+        return scalar(name, predicate, "Float", false);
+      case DOUBLE:
+        return scalar(name, predicate, "Double", false);
+      case DECLARED:
+        break;
+      default:
+        return null;
+    }
+    String scalar = boxedScalar(type);
+    if (scalar != null) {
+      return scalar(name, predicate, scalar, true);
+    }
+    String codec = nodeCodec(type);
+    if (codec != null) {
+      return new Field(
+          name,
+          predicate,
+          "Codecs.readOne(reader, " + codec + ")",
+          codec + ".encode(" + access + ", writer);",
+          true);
+    }
+    List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+    if (!isType(type, "java.util.List") || arguments.size() != 1) {
+      return null;
+    }
+    TypeMirror element = arguments.get(0);
+    String elementScalar = boxedScalar(element);
+    if (elementScalar != null) {
+      String constant = elementScalar.equals("Int") ? "INTEGER" : elementScalar;
+      codec = "Codecs." + constant.toUpperCase(Locale.ROOT);
+    } else {
+      codec = nodeCodec(element);
+    }
+    if (codec == null) {
+      return null;
+    }
+    return new Field(
+        name,
+        predicate,
+        "Codecs.readList(reader, " + codec + ")",
+        "Codecs.writeList(writer, " + access + ", " + codec + ");",
+        true);
+  }
+
+  private static Field scalar(String name, String predicate, String scalar, boolean nullable) {
+    return new Field(
+        name,
+        predicate,
+        "Codecs.read" + scalar + "(reader)",
+        "writer.value(value." + name + ");",
+        nullable);
+  }
+
+  /** Returns the suffix of the {@code Codecs.read} method of a boxed type or String, or null. */
+  private static String boxedScalar(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    String name = qualifiedName(type);
+    switch (name) {
+      case "java.lang.String":
+        return "String";
+      case "java.lang.Boolean":
+        return "Boolean";
+      case "java.lang.Integer":
+        return "Int";
+      case "java.lang.Long":
+        return "Long";
+      case "java.lang.Float":
+        return "Float";
+      case "java.lang.Double":
+        return "Double";
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the codec instance of a {@code DgraphType} class, or null for any other type. */
+  private String nodeCodec(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    if (annotation(element, DGRAPH_TYPE) == null) {
+      return null;
+    }
+    return codecName(element) + ".INSTANCE";
+  }
+
+  private void write(TypeElement type, List<Field> fields) {
+    String codecName = codecName(type);
+    int dot = codecName.lastIndexOf('.');
+    String packageName = dot < 0 ? "" : codecName.substring(0, dot);
+    String simpleName = codecName.substring(dot + 1);
+    String typeName = type.getQualifiedName().toString();
+    String dgraphType = value(annotation(type, DGRAPH_TYPE));
+
+    StringBuilder out = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      out.append("package ").append(packageName).append(";\n\n");
+    }
+    out.append("import io.dgraph.json.JsonTokenReader;\n")
+        .append("import io.dgraph.mapping.Codec;\n")
+        .append("import io.dgraph.mapping.Codecs;\n")
+        .append("import io.dgraph.mapping.JsonWriter;\n")
+        .append("import java.io.IOException;\n\n")
+        .append("@javax.annotation.processing.Generated(\"")
+        .append(DgraphTypeProcessor.class.getName())
+        .append("\")\n")
+        .append("public final class ")
+        .append(simpleName)
+        .append(" implements Codec<")
+        .append(typeName)
+        .append("> {\n")
+        .append("  public static final ")
+        .append(simpleName)
+        .append(" INSTANCE = new ")
+        .append(simpleName)
+        .append("();\n\n")
+        .append("  private ")
+        .append(simpleName)
+        .append("() {}\n\n");
+
+    out.append("  @Override\n")
+        .append("  public ")
+        .append(typeName)
+        .append(" decode(JsonTokenReader reader) throws IOException {\n")
+        .append("    ")
+        .append(typeName)
+        .append(" value = new ")
+        .append(typeName)
+        .append("();\n")
+        .append("    reader.beginObject();\n")
+        .append("    while (reader.hasNext()) {\n")
+        .append("      String name = reader.nextName();\n")
+        .append("      if (Codecs.skipNull(reader)) {\n")
+        .append("        continue;\n")
+        .append("      }\n")
+        .append("      switch (name) {\n");
+    for (Field field : fields) {
+      out.append("        case ")
+          .append(literal(field.predicate))
+          .append(":\n")
+          .append("          value.")
+          .append(field.name)
+          .append(" = ")
+          .append(field.read)
+          .append(";\n")
+          .append("          break;\n");
+    }
+    out.append("        default:\n")
+        .append("          reader.skipValue();\n")
+        .append("      }\n")
+        .append("    }\n")
+        .append("    reader.endObject();\n")
+        .append("    return value;\n")
+        .append("  }\n\n");
+
+    out.append("  @Override\n")
+        .append("  public void encode(")
+        .append(typeName)
+        .append(" value, JsonWriter writer) {\n")
+        .append("    writer.beginObject();\n");
+    if (!dgraphType.isEmpty()) {
+      out.append("    writer.name(\"dgraph.type\").value(")
+          .append(literal(dgraphType))
+          .append(");\n");
+    }
+    for (Field field : fields) {
+      String indent = "    ";
+      if (field.nullable) {
+        out.append("    if (value.").append(field.name).append(" != null) {\n");
+        indent = "      ";
+      }
+      out.append(indent).append("writer.name(").append(literal(field.predicate)).append(");\n");
+      out.append(indent).append(field.write).append("\n");
+      if (field.nullable) {
+        out.append("    }\n");
+      }
+    }
+    out.append("    writer.endObject();\n").append("  }\n").append("}\n");
+
+    try (Writer writer = processingEnv.getFiler().createSourceFile(codecName, type).openWriter()) {
+      writer.write(out.toString());
+    } catch (IOException e) {
+      error(type, "cannot write " + codecName + ": " + e);
+    }
+  }
+
+  /** Returns the superclass of {@code type}, or null if it is {@code Object}. */
+  private static TypeElement superclass(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED || isType(superclass, "java.lang.Object")) {
+      return null;
+    }
+    return (TypeElement) ((DeclaredType) superclass).asElement();
+  }
+
+  private String packageOf(TypeElement type) {
+    return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+  }
+
+  /** Returns e.g. {@code com.example.Outer_Person_DgraphCodec} for {@code Outer.Person}. */
+  private String codecName(TypeElement type) {
+    String packageName = packageOf(type);
+    String nestedName = type.getSimpleName().toString();
+    for (Element enclosing = type.getEnclosingElement();
+        enclosing.getKind() != ElementKind.PACKAGE;
+        enclosing = enclosing.getEnclosingElement()) {
+      nestedName = enclosing.getSimpleName() + "_" + nestedName;
+    }
+    String prefix = packageName.isEmpty() ? "" : packageName + ".";
+    return prefix + nestedName + "_DgraphCodec";
+  }
+
+  private static boolean isType(TypeMirror type, String name) {
+    return type.getKind() == TypeKind.DECLARED && qualifiedName(type).equals(name);
+  }
+
+  private static String qualifiedName(TypeMirror type) {
+    return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+  }
+
+  private static AnnotationMirror annotation(Element element, String name) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      if (qualifiedName(mirror.getAnnotationType()).equals(name)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private static String value(AnnotationMirror annotation) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        annotation.getElementValues().entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals("value")) {
+        return (String) entry.getValue().getValue();
+      }
+    }
+    return "";
+  }
+
+  /** Returns {@code s} as a Java string literal. */
+  private static String literal(String s) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c < 0x20 || c > 0x7e) {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
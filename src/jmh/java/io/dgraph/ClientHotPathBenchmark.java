@@ -0,0 +1,120 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.TxnContext;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Per-call client work that does not involve the network. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientHotPathBenchmark {
+  private static final String QUERY =
+      "query q($name: string) { people(func: eq(name, $name)) { uid name age friend { name } } }";
+  private static final Map<String, String> VARS = Map.of("$name", "Alice");
+
+  private DgraphAsyncClient client;
+  private Channel channel;
+  private AccessJwtInterceptor jwtInterceptor;
+  private AsyncTransaction txn;
+  private TxnContext responseContext;
+  private StatusRuntimeException aborted;
+  private StatusRuntimeException draining;
+  private RetryPolicy retryPolicy;
+  private Mutation mutation;
+
+  @Setup
+  public void setup() {
+    channel = new NoopChannel();
+    client = new DgraphAsyncClient(DgraphGrpc.newStub(channel));
+    jwtInterceptor = new AccessJwtInterceptor();
+    jwtInterceptor.setAccessJwt("header.payload.signature");
+    txn = client.newTransaction(TxnContext.newBuilder().setStartTs(42).setHash("abc").build());
+
+    TxnContext.Builder context = TxnContext.newBuilder().setStartTs(42).setHash("abc");
+    for (int i = 0; i < 10; i++) {
+      context.addKeys("key-" + i);
+    }
+    responseContext = context.addPreds("1-name").addPreds("1-age").build();
+
+    aborted = Status.ABORTED.withDescription("Transaction has been aborted").asRuntimeException();
+    draining =
+        Status.UNKNOWN.withDescription("the server is in draining mode").asRuntimeException();
+    retryPolicy = RetryPolicy.DEFAULT;
+    mutation =
+        Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8("<0x1> <a> \"b\" .")).build();
+  }
+
+  /** Builds a query request the way {@code queryWithVars} and {@code doRequest} do. */
+  @Benchmark
+  public Request buildQueryRequest() {
+    return txn.withTxnContext(txn.buildQueryRequest(QUERY, VARS, Request.RespFormat.JSON));
+  }
+
+  /** Merges the context of a response into a new transaction, as after its first request. */
+  @Benchmark
+  public AsyncTransaction mergeContext() {
+    AsyncTransaction fresh = new AsyncTransaction(client, 0);
+    fresh.mergeContext(responseContext);
+    return fresh;
+  }
+
+  /** Translates an error by status code. */
+  @Benchmark
+  public DgraphException translateByStatus() {
+    return Exceptions.translate(aborted);
+  }
+
+  /** Translates an UNKNOWN error, which falls back to matching its message. */
+  @Benchmark
+  public DgraphException translateByMessage() {
+    return Exceptions.translate(draining);
+  }
+
+  /** Starts a query call through the interceptor that attaches the access JWT. */
+  @Benchmark
+  public Metadata attachJwt() {
+    ClientCall<Request, DgraphProto.Response> call =
+        jwtInterceptor.interceptCall(DgraphGrpc.getQueryMethod(), CallOptions.DEFAULT, channel);
+    Metadata headers = new Metadata();
+    call.start(new ClientCall.Listener<DgraphProto.Response>() {}, headers);
+    return headers;
+  }
+
+  @Benchmark
+  public long calculateDelay() {
+    return retryPolicy.calculateDelay(3);
+  }
+
+  @Benchmark
+  public Mutation deleteEdges() {
+    return Helpers.deleteEdges(mutation, "0x1", "name", "age", "friend");
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query and mutation throughput through the full client stack against an in-process alpha that
+ * answers immediately, so that the client and gRPC overhead dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EndToEndBenchmark {
+  private static final String QUERY = "{ q(func: uid(0x1)) { uid name } }";
+  private static final Mutation MUTATION =
+      Mutation.newBuilder()
+          .setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"Alice\" ."))
+          .setCommitNow(true)
+          .build();
+
+  private Server server;
+  private ManagedChannel channel;
+  private DgraphAsyncClient client;
+
+  @Setup
+  public void setup() throws Exception {
+    String name = InProcessServerBuilder.generateName();
+    server =
+        InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new ImmediateAlpha())
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    client = new DgraphAsyncClient(DgraphGrpc.newStub(channel));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.shutdown();
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Response query() {
+    return client.newReadOnlyTransaction().query(QUERY).join();
+  }
+
+  @Benchmark
+  public Response mutateCommitNow() {
+    return client.newTransaction().mutate(MUTATION).join();
+  }
+
+  private static final class ImmediateAlpha extends DgraphGrpc.DgraphImplBase {
+    private static final Response RESPONSE =
+        Response.newBuilder()
+            .setJson(ByteString.copyFromUtf8("{\"q\":[{\"uid\":\"0x1\",\"name\":\"Alice\"}]}"))
+            .setTxn(TxnContext.newBuilder().setStartTs(1))
+            .build();
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(RESPONSE);
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.dgraph.DgraphProto.Mutation;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the same mutation of {@code nodes} people as {@code set_json} with Gson, as {@code
+ * set_nquads} text and with {@link NQuadBatch}; run with the {@code gc} profiler to compare the
+ * client-side allocation. The {@code decode} benchmarks approximate the alpha's side: a JSON
+ * mutation has to be parsed again after the protobuf message, while the quads of an {@code
+ * NQuadBatch} arrive already typed. The serialized size of each form is printed after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NQuadBatchBenchmark {
+  @Param({"1000"})
+  public int nodes;
+
+  private static final Instant BORN = Instant.parse("1990-01-01T00:00:00Z");
+  private final NQuadBatch batch = new NQuadBatch();
+  private byte[] jsonMutation;
+  private byte[] nquadMutation;
+
+  @Setup
+  public void setup() {
+    jsonMutation = json().toByteArray();
+    nquadMutation = nquadBatch().toByteArray();
+  }
+
+  @TearDown
+  public void report() {
+    System.out.printf(
+        "%nserialized mutation: json %d bytes, rdf %d bytes, nquads %d bytes%n",
+        jsonMutation.length, rdf().getSerializedSize(), nquadMutation.length);
+  }
+
+  @Benchmark
+  public Mutation json() {
+    JsonArray people = new JsonArray(nodes);
+    for (int i = 0; i < nodes; i++) {
+      JsonObject person = new JsonObject();
+      person.addProperty("uid", "_:p" + i);
+      person.addProperty("dgraph.type", "Person");
+      person.addProperty("name", "Person " + i);
+      person.addProperty("age", i % 100);
+      person.addProperty("born", BORN.toString());
+      JsonObject friend = new JsonObject();
+      friend.addProperty("uid", "_:p" + (i + 1));
+      friend.addProperty("friend|since", 2010);
+      JsonArray friends = new JsonArray(1);
+      friends.add(friend);
+      person.add("friend", friends);
+      people.add(person);
+    }
+    return Mutation.newBuilder().setSetJson(ByteString.copyFromUtf8(people.toString())).build();
+  }
+
+  @Benchmark
+  public Mutation rdf() {
+    StringBuilder rdf = new StringBuilder(nodes * 160);
+    for (int i = 0; i < nodes; i++) {
+      String subject = "_:p" + i;
+      rdf.append(subject).append(" <dgraph.type> \"Person\" .\n");
+      rdf.append(subject).append(" <name> \"Person ").append(i).append("\" .\n");
+      rdf.append(subject).append(" <age> \"").append(i % 100).append("\"^^<xs:int> .\n");
+      rdf.append(subject).append(" <born> \"").append(BORN).append("\"^^<xs:dateTime> .\n");
+      rdf.append(subject).append(" <friend> _:p").append(i + 1).append(" (since=2010) .\n");
+    }
+    return Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8(rdf.toString())).build();
+  }
+
+  @Benchmark
+  public Mutation nquadBatch() {
+    batch.clear();
+    for (int i = 0; i < nodes; i++) {
+      batch
+          .subject("_:p" + i)
+          .type("Person")
+          .set("name", "Person " + i)
+          .set("age", i % 100)
+          .set("born", BORN)
+          .link("friend", "_:p" + (i + 1))
+          .facet("since", 2010);
+    }
+    return batch.build();
+  }
+
+  @Benchmark
+  public int decodeJson() throws InvalidProtocolBufferException {
+    Mutation mutation = Mutation.parseFrom(jsonMutation);
+    return JsonParser.parseString(mutation.getSetJson().toStringUtf8()).getAsJsonArray().size();
+  }
+
+  @Benchmark
+  public int decodeNQuads() throws InvalidProtocolBufferException {
+    return Mutation.parseFrom(nquadMutation).getSetCount();
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+/** A channel whose calls do nothing, so that only client-side work is measured. */
+final class NoopChannel extends Channel {
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+    return new ClientCall<ReqT, RespT>() {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {}
+
+      @Override
+      public void request(int numMessages) {}
+
+      @Override
+      public void cancel(String message, Throwable cause) {}
+
+      @Override
+      public void halfClose() {}
+
+      @Override
+      public void sendMessage(ReqT message) {}
+    };
+  }
+
+  @Override
+  public String authority() {
+    return "noop";
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.NQuad;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode throughput of one embedding: as the JSON string that {@code vfloat32} predicates are
+ * commonly given today, as the text of a query variable, and as {@code vfloat32_val} bytes from a
+ * {@code float[]} or from a big-endian {@code FloatBuffer} view of a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorBenchmark {
+  @Param({"768", "1536"})
+  public int dimension;
+
+  private final Gson gson = new Gson();
+  private float[] vector;
+  private FloatBuffer buffer;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    vector = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      vector[i] = random.nextFloat() * 2 - 1;
+    }
+    buffer =
+        ByteBuffer.allocateDirect(dimension * Float.BYTES)
+            .order(ByteOrder.BIG_ENDIAN)
+            .asFloatBuffer();
+    buffer.put(vector).flip();
+  }
+
+  @Benchmark
+  public ByteString jsonString() {
+    return ByteString.copyFromUtf8(gson.toJson(vector));
+  }
+
+  @Benchmark
+  public String format() {
+    return Vectors.format(vector);
+  }
+
+  @Benchmark
+  public ByteString encodeArray() {
+    return Vectors.encode(vector);
+  }
+
+  @Benchmark
+  public ByteString encodeBuffer() {
+    return Vectors.encode(buffer);
+  }
+
+  @Benchmark
+  public NQuad nquad() {
+    return Vectors.nquad("0x1", "embedding", vector);
+  }
+}
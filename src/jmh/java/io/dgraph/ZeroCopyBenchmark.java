@@ -0,0 +1,112 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Receives a {@value #RESPONSE_MB} MiB query response over a Netty connection to an alpha in the
+ * same JVM, copied as by {@code doRequest} and retained as by {@code doRequestRetained}. Each
+ * invocation counts as {@value #RESPONSE_MB} operations, so {@code gc.alloc.rate.norm} reads as
+ * heap bytes allocated per MiB of response. The server side serializes into pooled direct buffers
+ * and adds little to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZeroCopyBenchmark {
+  static final int RESPONSE_MB = 32;
+  private static final Request REQUEST = Request.newBuilder().setQuery("{}").build();
+
+  private Server server;
+  private ManagedChannel channel;
+  private DgraphAsyncClient client;
+
+  @Setup
+  public void setup() throws Exception {
+    server =
+        NettyServerBuilder.forAddress(new InetSocketAddress("localhost", 0))
+            .addService(new LargeResponseAlpha())
+            .build()
+            .start();
+    channel =
+        NettyChannelBuilder.forAddress("localhost", server.getPort())
+            .usePlaintext()
+            .maxInboundMessageSize(2 * RESPONSE_MB << 20)
+            .build();
+    client = new DgraphAsyncClient(DgraphGrpc.newStub(channel));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.shutdown();
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RESPONSE_MB)
+  public int copied() {
+    return client.newReadOnlyTransaction().doRequest(REQUEST).join().getJson().size();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RESPONSE_MB)
+  public int retained() {
+    try (RetainedResponse response =
+        client.newReadOnlyTransaction().doRequestRetained(REQUEST).join()) {
+      return response.getResponse().getJson().size();
+    }
+  }
+
+  private static final class LargeResponseAlpha extends DgraphGrpc.DgraphImplBase {
+    private final Response response;
+
+    LargeResponseAlpha() {
+      byte[] json = new byte[RESPONSE_MB << 20];
+      Arrays.fill(json, (byte) ' ');
+      json[0] = '{';
+      json[json.length - 1] = '}';
+      response =
+          Response.newBuilder()
+              .setJson(ByteString.copyFrom(json))
+              .setTxn(TxnContext.newBuilder().setStartTs(1))
+              .build();
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(response);
+      responseObserver.onCompleted();
+    }
+  }
+}
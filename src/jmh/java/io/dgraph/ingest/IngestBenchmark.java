@@ -0,0 +1,128 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.ingest;
+
+import io.dgraph.DgraphAsyncClient;
+import io.dgraph.DgraphGrpc;
+import io.dgraph.DgraphProto.AllocateIDsRequest;
+import io.dgraph.DgraphProto.AllocateIDsResponse;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.DgraphProto.Value;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the N-Quads per second that {@link IngestPipeline} pushes through an in-process alpha
+ * that commits every request immediately, i.e. the client-side ceiling of a load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+  private static final int NQUADS = 100_000;
+
+  @Param({"1", "8"})
+  public int shards;
+
+  @Param({"1000"})
+  public int batchSize;
+
+  private Server server;
+  private ManagedChannel channel;
+  private DgraphAsyncClient client;
+  private NQuad[] input;
+
+  @Setup
+  public void setup() throws Exception {
+    String name = InProcessServerBuilder.generateName();
+    server =
+        InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new CommittingAlpha())
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    client = new DgraphAsyncClient(DgraphGrpc.newStub(channel));
+
+    input = new NQuad[NQUADS];
+    for (int i = 0; i < NQUADS; i++) {
+      input[i] =
+          NQuad.newBuilder()
+              .setSubject("0x" + Integer.toHexString(i / 4 + 1))
+              .setPredicate("p" + (i % 4))
+              .setObjectValue(Value.newBuilder().setStrVal("value " + i))
+              .build();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.shutdown();
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NQUADS)
+  public IngestStats ingest() throws InterruptedException {
+    IngestPipeline pipeline =
+        IngestPipeline.builder(client).shards(shards).batchSize(batchSize).build();
+    for (NQuad nquad : input) {
+      pipeline.add(nquad);
+    }
+    return pipeline.finish();
+  }
+
+  /** Commits every request without looking at it. */
+  private static final class CommittingAlpha extends DgraphGrpc.DgraphImplBase {
+    private final AtomicLong nextUid = new AtomicLong(1);
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(
+          Response.newBuilder()
+              .setTxn(TxnContext.newBuilder().setStartTs(1).setCommitTs(2))
+              .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void allocateIDs(
+        AllocateIDsRequest request, StreamObserver<AllocateIDsResponse> responseObserver) {
+      long start = nextUid.getAndAdd(request.getHowMany());
+      responseObserver.onNext(
+          AllocateIDsResponse.newBuilder()
+              .setStart(start)
+              .setEnd(start + request.getHowMany() - 1)
+              .build());
+      responseObserver.onCompleted();
+    }
+  }
+}
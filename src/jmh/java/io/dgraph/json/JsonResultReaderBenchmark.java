@@ -0,0 +1,151 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Response;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sums one property over every node of a large query result, once by decoding the result as a
+ * String into a Gson tree, as callers of {@code response.getJson().toStringUtf8()} do, and once
+ * with {@link JsonResultReader}. Besides the allocation rate reported by the {@code gc} profiler,
+ * each run prints the peak heap above the retained response: the pools are reset after a full GC
+ * before every invocation, so the peak approximates what the decoding needed at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JsonResultReaderBenchmark {
+  @Param({"64"})
+  public int sizeMb;
+
+  private Response response;
+  private long baselineBytes;
+  private long peakBytes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    long target = sizeMb * 1024L * 1024L;
+    ByteString.Output out = ByteString.newOutput((int) target + 1024);
+    write(out, "{\"people\":[");
+    for (int i = 0; out.size() < target; i++) {
+      if (i > 0) {
+        write(out, ",");
+      }
+      write(
+          out,
+          "{\"uid\":\"0x"
+              + Integer.toHexString(i)
+              + "\",\"name\":\"Person "
+              + i
+              + "\",\"age\":"
+              + (i % 100)
+              + ",\"friend\":[{\"name\":\"Friend of "
+              + i
+              + "\"}]}");
+    }
+    write(out, "]}");
+    response = Response.newBuilder().setJson(out.toByteString()).build();
+  }
+
+  @Setup(Level.Invocation)
+  public void resetPeak() {
+    System.gc();
+    baselineBytes = 0;
+    for (MemoryPoolMXBean pool : heapPools()) {
+      pool.resetPeakUsage();
+      baselineBytes += pool.getUsage().getUsed();
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void recordPeak() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : heapPools()) {
+      peak += pool.getPeakUsage().getUsed();
+    }
+    peakBytes = Math.max(peakBytes, peak - baselineBytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void report() {
+    System.out.printf("%npeak heap above the retained response: %d MiB%n", peakBytes >> 20);
+  }
+
+  @Benchmark
+  public long stringAndTree() {
+    JsonElement root = JsonParser.parseString(response.getJson().toStringUtf8());
+    JsonArray people = root.getAsJsonObject().getAsJsonArray("people");
+    long sum = 0;
+    for (JsonElement person : people) {
+      sum += person.getAsJsonObject().get("age").getAsLong();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long streaming() {
+    long sum = 0;
+    try (JsonResultReader result = JsonResultReader.of(response)) {
+      while (result.nextBlock()) {
+        while (result.hasNextNode()) {
+          sum +=
+              result.nextNode(
+                  reader -> {
+                    long age = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                      if (reader.nextName().equals("age")) {
+                        age = Long.parseLong(reader.nextNumber());
+                      } else {
+                        reader.skipValue();
+                      }
+                    }
+                    reader.endObject();
+                    return age;
+                  });
+        }
+      }
+    }
+    return sum;
+  }
+
+  private static Iterable<MemoryPoolMXBean> heapPools() {
+    return () ->
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .iterator();
+  }
+
+  private static void write(ByteString.Output out, String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.write(bytes, 0, bytes.length);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.annotations.SerializedName;
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodes a query result into objects and encodes objects into a {@code set_json} mutation, once
+ * with Gson through a {@code String}, as callers of {@code response.getJson().toStringUtf8()} and
+ * {@code ByteString.copyFromUtf8(gson.toJson(...))} do, and once with the generated codecs of
+ * {@link Mapper}. Run with the {@code gc} profiler to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+  @Param({"1000"})
+  public int nodes;
+
+  @DgraphType("Person")
+  public static class Person {
+    @Uid String uid;
+    String name;
+    int age;
+    double score;
+    boolean admin;
+
+    @Predicate("friend")
+    @SerializedName("friend")
+    List<Person> friends;
+  }
+
+  /** The shape Gson decodes a result into. */
+  static class Result {
+    List<Person> people;
+  }
+
+  private final Gson gson = new Gson();
+  private Response response;
+  private List<Person> people;
+
+  @Setup
+  public void setup() {
+    StringBuilder json = new StringBuilder("{\"people\":[");
+    for (int i = 0; i < nodes; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"uid\":\"0x")
+          .append(Integer.toHexString(i + 1))
+          .append("\",\"name\":\"Person ")
+          .append(i)
+          .append("\",\"age\":")
+          .append(i % 100)
+          .append(",\"score\":")
+          .append(i / 7.0)
+          .append(",\"admin\":")
+          .append(i % 10 == 0)
+          .append(",\"dgraph.type\":[\"Person\"],\"friend\":[{\"uid\":\"0x")
+          .append(Integer.toHexString(i + 2))
+          .append("\",\"name\":\"Friend of ")
+          .append(i)
+          .append("\"}]}");
+    }
+    json.append("]}");
+    response =
+        Response.newBuilder()
+            .setJson(ByteString.copyFrom(json.toString(), StandardCharsets.UTF_8))
+            .build();
+    people = Mapper.decode(response, "people", Person.class);
+  }
+
+  @Benchmark
+  public List<Person> decodeGson() {
+    return gson.fromJson(response.getJson().toStringUtf8(), Result.class).people;
+  }
+
+  @Benchmark
+  public List<Person> decodeGsonTree() {
+    // what callers do when the block name is only known at runtime
+    JsonObject root = gson.fromJson(response.getJson().toStringUtf8(), JsonObject.class);
+    List<Person> result = new ArrayList<>();
+    root.getAsJsonArray("people").forEach(node -> result.add(gson.fromJson(node, Person.class)));
+    return result;
+  }
+
+  @Benchmark
+  public List<Person> decodeMapper() {
+    return Mapper.decode(response, "people", Person.class);
+  }
+
+  @Benchmark
+  public ByteString encodeGson() {
+    return ByteString.copyFromUtf8(gson.toJson(people));
+  }
+
+  @Benchmark
+  public ByteString encodeMapper() {
+    return Mapper.encodeAll(people, Person.class);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+/**
+ * Attaches the current access JWT to every outgoing call but Login, which authenticates by its
+ * request. A single instance is installed on each stub when the client is created; logging in only
+ * swaps the cached headers, so the per-call path takes no lock and builds no new Metadata.
+ */
+final class AccessJwtInterceptor implements ClientInterceptor {
+  static final Metadata.Key<String> ACCESS_JWT_KEY =
+      Metadata.Key.of("accessJwt", Metadata.ASCII_STRING_MARSHALLER);
+  private static final String LOGIN_METHOD = DgraphGrpc.getLoginMethod().getFullMethodName();
+
+  // headers to merge into each call, or null when no access JWT is available
+  private volatile Metadata headers;
+
+  /**
+   * Replaces the access JWT attached to subsequent calls.
+   *
+   * @param accessJwt the new access JWT; null or empty stops attaching the header
+   */
+  void setAccessJwt(String accessJwt) {
+    if (accessJwt == null || accessJwt.isEmpty()) {
+      headers = null;
+      return;
+    }
+    Metadata metadata = new Metadata();
+    metadata.put(ACCESS_JWT_KEY, accessJwt);
+    headers = metadata;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    final Metadata extraHeaders = headers;
+    if (extraHeaders == null || LOGIN_METHOD.equals(method.getFullMethodName())) {
+      return next.newCall(method, callOptions);
+    }
+    return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata callHeaders) {
+        callHeaders.merge(extraHeaders);
+        super.start(responseListener, callHeaders);
+      }
+    };
+  }
+}
@@ -10,10 +10,20 @@ import io.dgraph.DgraphProto.Mutation;
 import io.dgraph.DgraphProto.Request;
 import io.dgraph.DgraphProto.Response;
 import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.json.JsonReaderFactory;
+import io.dgraph.json.JsonResultReader;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * This is the implementation of asynchronous Dgraph transaction. The asynchrony is backed-up by
@@ -33,33 +43,75 @@ public class AsyncTransaction implements AutoCloseable {
   private volatile boolean bestEffort;
 
   private final DgraphAsyncClient client;
-  private final DgraphStub stub;
-
-  AsyncTransaction(DgraphAsyncClient client, DgraphStub stub) {
+  // a read-only transaction moves to another stub if its alpha fails before a start_ts is assigned
+  private volatile int stubIndex;
+  private volatile DgraphStub stub;
+  // the end of the withRetry call this transaction is an attempt of, or null
+  private volatile Deadline attemptDeadline;
+  // where to share the start_ts assigned to this read-only transaction, or null
+  private volatile ReadTimestamps readTimestamps;
+  private volatile long createdNanos;
+
+  AsyncTransaction(DgraphAsyncClient client, int stubIndex) {
     this.context = TxnContext.newBuilder().build();
     this.client = client;
-    this.stub = stub;
+    this.stubIndex = stubIndex;
+    this.stub = client.getStub(stubIndex);
     this.readOnly = false;
     this.bestEffort = false;
   }
 
-  AsyncTransaction(DgraphAsyncClient client, DgraphStub stub, final boolean readOnly) {
-    this(client, stub);
+  AsyncTransaction(DgraphAsyncClient client, int stubIndex, final boolean readOnly) {
+    this(client, stubIndex);
     this.readOnly = readOnly;
   }
 
-  AsyncTransaction(DgraphAsyncClient client, DgraphStub stub, TxnContext context) {
-    this(client, stub);
+  AsyncTransaction(DgraphAsyncClient client, int stubIndex, TxnContext context) {
+    this(client, stubIndex);
     this.context = context;
   }
 
   AsyncTransaction(
-      DgraphAsyncClient client, DgraphStub stub, TxnContext context, final boolean readOnly) {
-    this(client, stub, context);
+      DgraphAsyncClient client, int stubIndex, TxnContext context, final boolean readOnly) {
+    this(client, stubIndex, context);
     this.context = context;
     this.readOnly = readOnly;
   }
 
+  /** Offers the start_ts that the alpha assigns to this transaction to {@code readTimestamps}. */
+  void shareStartTs(ReadTimestamps readTimestamps, long createdNanos) {
+    this.readTimestamps = readTimestamps;
+    this.createdNanos = createdNanos;
+  }
+
+  /** Returns the index of the stub this transaction currently sends its requests to. */
+  int getStubIndex() {
+    return stubIndex;
+  }
+
+  /** Bounds the queries, mutations and commit of this transaction by {@code deadline}, if any. */
+  AsyncTransaction withAttemptDeadline(Deadline deadline) {
+    this.attemptDeadline = deadline;
+    return this;
+  }
+
+  Deadline getAttemptDeadline() {
+    return attemptDeadline;
+  }
+
+  /**
+   * Returns {@code stub} with a deadline {@code timeout} from now, or at the attempt deadline if
+   * that is earlier.
+   */
+  private DgraphStub withDeadline(DgraphStub stub, long timeoutNanos) {
+    Deadline deadline = attemptDeadline;
+    if (timeoutNanos > 0) {
+      Deadline timeout = Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS);
+      deadline = deadline == null ? timeout : deadline.minimum(timeout);
+    }
+    return deadline == null ? stub : stub.withDeadline(deadline);
+  }
+
   /**
    * Sends a query to one of the connected dgraph instances. If no mutations need to be made in the
    * same transaction, it's convenient to chain the method: <code>
@@ -88,17 +140,7 @@ public class AsyncTransaction implements AutoCloseable {
    */
   public CompletableFuture<Response> queryWithVars(
       final String query, final Map<String, String> vars, long duration, TimeUnit units) {
-
-    final Request request =
-        Request.newBuilder()
-            .setQuery(query)
-            .putAllVars(vars)
-            .setStartTs(context.getStartTs())
-            .setReadOnly(readOnly)
-            .setBestEffort(bestEffort)
-            .build();
-
-    return this.doRequest(request, duration, units);
+    return this.doRequest(buildQueryRequest(query, vars, Request.RespFormat.JSON), duration, units);
   }
 
   /**
@@ -152,18 +194,7 @@ public class AsyncTransaction implements AutoCloseable {
    */
   public CompletableFuture<Response> queryRDFWithVars(
       final String query, final Map<String, String> vars, long duration, TimeUnit units) {
-
-    final Request request =
-        Request.newBuilder()
-            .setQuery(query)
-            .putAllVars(vars)
-            .setStartTs(context.getStartTs())
-            .setReadOnly(readOnly)
-            .setBestEffort(bestEffort)
-            .setRespFormat(Request.RespFormat.RDF)
-            .build();
-
-    return this.doRequest(request, duration, units);
+    return this.doRequest(buildQueryRequest(query, vars, Request.RespFormat.RDF), duration, units);
   }
 
   /**
@@ -189,6 +220,34 @@ public class AsyncTransaction implements AutoCloseable {
     return queryRDFWithVars(query, Collections.emptyMap(), duration, units);
   }
 
+  /**
+   * Sends a query and returns a reader that decodes the JSON result lazily from the bytes of the
+   * response, block by block and node by node, instead of materializing it as a String.
+   *
+   * @param query query in DQL
+   * @param vars DQL variables used in query
+   * @return a reader of the result, which the caller must close
+   */
+  public CompletableFuture<JsonResultReader> queryResults(
+      final String query, final Map<String, String> vars) {
+    return queryResults(query, vars, JsonReaderFactory.DEFAULT);
+  }
+
+  /**
+   * Sends a query and returns a reader that decodes the JSON result lazily with the token reader
+   * created by {@code jsonReaderFactory}.
+   *
+   * @param query query in DQL
+   * @param vars DQL variables used in query
+   * @param jsonReaderFactory the JSON backend
+   * @return a reader of the result, which the caller must close
+   */
+  public CompletableFuture<JsonResultReader> queryResults(
+      final String query, final Map<String, String> vars, JsonReaderFactory jsonReaderFactory) {
+    return queryWithVars(query, vars)
+        .thenApply(response -> JsonResultReader.of(response.getJson(), jsonReaderFactory));
+  }
+
   /**
    * Sets the best effort flag for this transaction. The Best effort flag can only be set for
    * read-only transactions, and setting the best effort flag will enable a read-only transaction to
@@ -256,6 +315,39 @@ public class AsyncTransaction implements AutoCloseable {
    * @return a Response protocol buffer object.
    */
   public CompletableFuture<Response> doRequest(Request request, long duration, TimeUnit units) {
+    return doRequest(request, duration, units, Rpc.COPYING);
+  }
+
+  /**
+   * Like {@link #doRequest(Request)}, but parses the response without copying its {@code json} and
+   * {@code rdf} fields off the transport buffers. The caller must close the returned handle; see
+   * {@link RetainedResponse}.
+   *
+   * @param request a Request protocol buffer object.
+   * @return a handle of the response, which the caller must close
+   */
+  public CompletableFuture<RetainedResponse> doRequestRetained(Request request) {
+    return doRequestRetained(request, 0, null);
+  }
+
+  /**
+   * Like {@link #doRequest(Request, long, TimeUnit)}, but parses the response without copying its
+   * {@code json} and {@code rdf} fields off the transport buffers. The caller must close the
+   * returned handle; see {@link RetainedResponse}.
+   *
+   * @param request a Request protocol buffer object.
+   * @param duration A non-negative timeout duration for the request. If duration is 0, then no
+   *     timeout is set.
+   * @param units the time unit for the duration
+   * @return a handle of the response, which the caller must close
+   */
+  public CompletableFuture<RetainedResponse> doRequestRetained(
+      Request request, long duration, TimeUnit units) {
+    return doRequest(request, duration, units, Rpc.RETAINING);
+  }
+
+  private <T> CompletableFuture<T> doRequest(
+      Request request, long duration, TimeUnit units, Rpc<T> rpc) {
     if (finished) {
       throw new TxnFinishedException();
     }
@@ -268,43 +360,123 @@ public class AsyncTransaction implements AutoCloseable {
       mutated = true;
     }
 
-    Request requestStartTs =
-        Request.newBuilder(request)
-            .setStartTs(context.getStartTs())
-            .setHash(context.getHash())
-            .build();
+    UndeliveredResults<T> results = new UndeliveredResults<>(rpc::release);
+    return results.returning(
+        CompletableFutures.cancellable(
+            () ->
+                sendWithFailover(
+                        withTxnContext(request), duration, units, rpc, results, new HashSet<>())
+                    .handle(
+                        (T response, Throwable throwable) -> {
+                          if (throwable != null) {
+                            // the context of a cancelled request would cancel the discard as well
+                            Context.current().fork().run(this::discard);
+                            throw Exceptions.translate(throwable);
+                          }
+
+                          return response;
+                        })));
+  }
+
+  Request buildQueryRequest(
+      final String query, final Map<String, String> vars, Request.RespFormat respFormat) {
+    return Request.newBuilder()
+        .setQuery(query)
+        .putAllVars(vars)
+        .setStartTs(context.getStartTs())
+        .setReadOnly(readOnly)
+        .setBestEffort(bestEffort)
+        .setRespFormat(respFormat)
+        .build();
+  }
+
+  /** Returns the request with the start timestamp and hash of this transaction. */
+  Request withTxnContext(Request request) {
+    return Request.newBuilder(request)
+        .setStartTs(context.getStartTs())
+        .setHash(context.getHash())
+        .build();
+  }
 
-    return client
-        .runWithRetries(
-            "doRequest",
-            () -> {
-              StreamObserverBridge<Response> bridge = new StreamObserverBridge<>();
-              DgraphStub localStub = client.getStubWithJwt(stub);
-              if (duration > 0) {
-                localStub = localStub.withDeadlineAfter(duration, units);
+  private <T> CompletableFuture<T> send(
+      Request request, long duration, TimeUnit units, Rpc<T> rpc, UndeliveredResults<T> results) {
+    String operation = request.getMutationsCount() > 0 ? "mutate" : "query";
+    return client.runWithRetries(
+        operation,
+        () -> {
+          StreamObserverBridge<T> bridge = new StreamObserverBridge<>();
+          int localStubIndex = stubIndex;
+          Timeouts timeouts = client.getTimeouts();
+          Duration timeout =
+              request.getMutationsCount() > 0 ? timeouts.getMutate() : timeouts.getQuery();
+          long timeoutNanos = duration > 0 ? units.toNanos(duration) : timeout.toNanos();
+          DgraphStub localStub = withDeadline(stub, timeoutNanos);
+          long sentNanos = System.nanoTime();
+          Hedger hedger = readOnly ? client.getHedger() : null;
+          if (hedger != null) {
+            hedger.call(rpc, localStubIndex, localStub, request, bridge);
+          } else {
+            rpc.call(localStub, request, bridge);
+          }
+
+          return bridge
+              .getDelegate()
+              .thenApply(
+                  (result) -> {
+                    Response response = rpc.responseOf(results.received(result));
+                    if (request.getCommitNow()) {
+                      finished = true;
+                    }
+                    mergeContext(response.getTxn());
+                    ReadTimestamps timestamps = readTimestamps;
+                    if (timestamps != null) {
+                      readTimestamps = null;
+                      // a best-effort start_ts may be behind commits the alpha has not applied yet
+                      if (!bestEffort && context.getStartTs() != 0) {
+                        timestamps.offer(context, createdNanos);
+                      } else {
+                        timestamps.abandon(createdNanos);
+                      }
+                    }
+                    // only once the response is merged, so that its keys reach the commit
+                    client.onResponse(operation, sentNanos, request, response);
+                    return result;
+                  });
+        });
+  }
+
+  /**
+   * Sends the request, moving a read-only transaction that has no start_ts yet to another stub
+   * when its alpha is unavailable. Such a transaction has no server-side state, so the request can
+   * be repeated anywhere; every other transaction stays on its stub.
+   */
+  private <T> CompletableFuture<T> sendWithFailover(
+      Request request,
+      long duration,
+      TimeUnit units,
+      Rpc<T> rpc,
+      UndeliveredResults<T> results,
+      Set<Integer> tried) {
+    return send(request, duration, units, rpc, results)
+        .<CompletableFuture<T>>handle(
+            (response, throwable) -> {
+              if (throwable == null) {
+                return CompletableFuture.completedFuture(response);
               }
-              localStub.query(requestStartTs, bridge);
-
-              return bridge
-                  .getDelegate()
-                  .thenApply(
-                      (response) -> {
-                        if (requestStartTs.getCommitNow()) {
-                          finished = true;
-                        }
-                        mergeContext(response.getTxn());
-                        return response;
-                      });
-            })
-        .handle(
-            (Response response, Throwable throwable) -> {
-              if (throwable != null) {
-                discard();
-                throw Exceptions.translate(throwable);
+              DgraphException ex = Exceptions.translate(throwable);
+              tried.add(stubIndex);
+              if (!readOnly
+                  || context.getStartTs() != 0
+                  || !Exceptions.isAlphaUnavailable(ex)
+                  || tried.size() >= client.getStubCount()) {
+                return CompletableFuture.failedFuture(ex);
               }
-
-              return response;
-            });
+              int next = client.selectStub(tried);
+              stubIndex = next;
+              stub = client.getStub(next);
+              return sendWithFailover(request, duration, units, rpc, results, tried);
+            })
+        .thenCompose(Function.identity());
   }
 
   /**
@@ -335,8 +507,8 @@ public class AsyncTransaction implements AutoCloseable {
         "commit",
         () -> {
           StreamObserverBridge<TxnContext> bridge = new StreamObserverBridge<>();
-          DgraphStub localStub = client.getStubWithJwt(stub);
-          localStub.commitOrAbort(context, bridge);
+          withDeadline(stub, client.getTimeouts().getCommit().toNanos())
+              .commitOrAbort(context, bridge);
           return bridge.getDelegate().thenApply(txnContext -> null);
         });
   }
@@ -352,6 +524,12 @@ public class AsyncTransaction implements AutoCloseable {
    * @return CompletableFuture with Void result
    */
   public CompletableFuture<Void> discard() {
+    ReadTimestamps timestamps = readTimestamps;
+    if (timestamps != null) {
+      // also reached when a request fails
+      readTimestamps = null;
+      timestamps.abandon(createdNanos);
+    }
     if (finished) {
       return CompletableFuture.completedFuture(null);
     }
@@ -366,13 +544,15 @@ public class AsyncTransaction implements AutoCloseable {
         "discard",
         () -> {
           StreamObserverBridge<TxnContext> bridge = new StreamObserverBridge<>();
-          DgraphStub localStub = client.getStubWithJwt(stub);
-          localStub.commitOrAbort(context, bridge);
+          // not bound by the attempt deadline, so that a withRetry call that ran out of time
+          // still aborts its transaction
+          DgraphAsyncClient.withTimeout(stub, client.getTimeouts().getCommit())
+              .commitOrAbort(context, bridge);
           return bridge.getDelegate().thenApply((o) -> null);
         });
   }
 
-  private void mergeContext(final TxnContext src) {
+  void mergeContext(final TxnContext src) {
     TxnContext.Builder builder = TxnContext.newBuilder(context);
 
     builder.setHash(src.getHash());
@@ -394,4 +574,52 @@ public class AsyncTransaction implements AutoCloseable {
   public void close() {
     discard().join();
   }
+
+  /** Sends a Query request and extracts the Response from what the call returns. */
+  interface Rpc<T> {
+    /** Copies the response to the heap, as the generated stub does. */
+    Rpc<Response> COPYING =
+        new Rpc<Response>() {
+          @Override
+          public void call(DgraphStub stub, Request request, StreamObserver<Response> observer) {
+            stub.query(request, observer);
+          }
+
+          @Override
+          public Response responseOf(Response result) {
+            return result;
+          }
+        };
+
+    /** Keeps the transport buffers of the response; see {@link RetainedResponse}. */
+    Rpc<RetainedResponse> RETAINING =
+        new Rpc<RetainedResponse>() {
+          @Override
+          public void call(
+              DgraphStub stub, Request request, StreamObserver<RetainedResponse> observer) {
+            ClientCalls.asyncUnaryCall(
+                stub.getChannel()
+                    .newCall(RetainedResponseMarshaller.QUERY_METHOD, stub.getCallOptions()),
+                request,
+                observer);
+          }
+
+          @Override
+          public Response responseOf(RetainedResponse result) {
+            return result.getResponse();
+          }
+
+          @Override
+          public void release(RetainedResponse result) {
+            result.close();
+          }
+        };
+
+    void call(DgraphStub stub, Request request, StreamObserver<T> observer);
+
+    Response responseOf(T result);
+
+    /** Releases a result that is not handed to the caller. */
+    default void release(T result) {}
+  }
 }
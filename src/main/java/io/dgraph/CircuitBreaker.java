@@ -0,0 +1,105 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.time.Duration;
+
+/**
+ * Configures the circuit breaker that {@code withRetry} keeps for each stub of a client. Immutable
+ * — create instances via {@link #builder()} and install them with {@link
+ * DgraphAsyncClient.Builder#circuitBreaker}.
+ *
+ * <p>A circuit opens after {@code failureThreshold} consecutive attempts on its stub failed because
+ * the alpha was unavailable or overloaded. While it is open, attempts are sent to the other stubs,
+ * or fail with {@link CircuitOpenException} if every circuit is open. After {@code openDuration},
+ * the circuit is half-open: one attempt is let through as a probe, and its outcome closes the
+ * circuit or opens it again. A probe that has not ended after {@code probeTimeout} no longer
+ * holds the circuit, and the next attempt probes instead. Errors that the alpha returned after
+ * handling the request, such as conflicts or invalid queries, count as successes, and so do
+ * failures of this client: expired deadlines and rejections by its concurrency limit.
+ *
+ * <pre>{@code
+ * CircuitBreaker.DEFAULT                                               // open for 10s
+ * CircuitBreaker.builder().openDuration(Duration.ofSeconds(30)).build() // open for 30s
+ * }</pre>
+ */
+public final class CircuitBreaker {
+
+  /** Opens after 5 consecutive failures, for 10 seconds. */
+  public static final CircuitBreaker DEFAULT = builder().build();
+
+  /** The state of the circuit of one stub. */
+  public enum State {
+    /** Attempts are sent to the stub. */
+    CLOSED,
+    /** Attempts avoid the stub. */
+    OPEN,
+    /** The next attempt on the stub decides whether the circuit closes. */
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Duration probeTimeout;
+
+  private CircuitBreaker(Builder builder) {
+    this.failureThreshold = builder.failureThreshold;
+    this.openDuration = builder.openDuration;
+    this.probeTimeout = builder.probeTimeout;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  public Duration getProbeTimeout() {
+    return probeTimeout;
+  }
+
+  public static final class Builder {
+    private int failureThreshold = 5;
+    private Duration openDuration = Duration.ofSeconds(10);
+    private Duration probeTimeout = Duration.ofSeconds(10);
+
+    private Builder() {}
+
+    public Builder failureThreshold(int failureThreshold) {
+      if (failureThreshold < 1) {
+        throw new IllegalArgumentException("failureThreshold must be >= 1");
+      }
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    public Builder openDuration(Duration openDuration) {
+      if (openDuration.isNegative()) {
+        throw new IllegalArgumentException("openDuration must be >= 0");
+      }
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    public Builder probeTimeout(Duration probeTimeout) {
+      if (probeTimeout.isNegative() || probeTimeout.isZero()) {
+        throw new IllegalArgumentException("probeTimeout must be > 0");
+      }
+      this.probeTimeout = probeTimeout;
+      return this;
+    }
+
+    public CircuitBreaker build() {
+      return new CircuitBreaker(this);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/**
+ * Thrown by {@code withRetry} without sending a request when the {@link CircuitBreaker} of every
+ * stub is open. Not retryable: the circuits stay open until their {@code openDuration} has passed.
+ */
+public class CircuitOpenException extends DgraphException {
+  private static final long serialVersionUID = 1L;
+
+  CircuitOpenException(int stubs) {
+    super("the circuits of all " + stubs + " alphas are open");
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/**
+ * Receives measurements of the requests a {@link DgraphAsyncClient} sends. Install one with
+ * {@link DgraphAsyncClient.Builder#metrics}; {@link InMemoryClientMetrics} is a reference
+ * implementation, and adapters to Micrometer or OpenTelemetry can be written against this interface
+ * without the client depending on either.
+ *
+ * <p>Operations are named after the client methods: {@code query}, {@code mutate}, {@code commit},
+ * {@code discard}, {@code alter}, {@code checkVersion}, {@code runDQL}, {@code allocateIDs}, {@code
+ * login} and the namespace operations. A request that is repeated with a refreshed JWT is measured
+ * once.
+ *
+ * <p>Methods are called on gRPC and executor threads, concurrently, and must be fast and must not
+ * throw.
+ */
+public interface ClientMetrics {
+  /** Discards every measurement. This is the default. */
+  ClientMetrics NOOP = new ClientMetrics() {};
+
+  /** Called when a request is sent. */
+  default void onRequestStart(String operation) {}
+
+  /**
+   * Called when a request completes.
+   *
+   * @param operation the operation passed to {@link #onRequestStart}
+   * @param latencyNanos the time since {@link #onRequestStart}
+   * @param error the translated error, or null if the request succeeded
+   */
+  default void onRequestEnd(String operation, long latencyNanos, DgraphException error) {}
+
+  /**
+   * Called when {@code withRetry} schedules another attempt.
+   *
+   * @param attempt the number of the failed attempt, starting at 0
+   * @param error the error of the failed attempt
+   */
+  default void onRetry(int attempt, DgraphException error) {}
+
+  /**
+   * Called when {@code withRetry} gives up on a retryable error because the {@link RetryBudget} of
+   * the client has no tokens left.
+   *
+   * @param error the error that was not retried
+   */
+  default void onRetryBudgetExhausted(DgraphException error) {}
+
+  /**
+   * Called when the {@link CircuitBreaker} of a stub opens.
+   *
+   * @param stubIndex the position of the stub in the array passed to the client
+   */
+  default void onCircuitOpened(int stubIndex) {}
+
+  /**
+   * Called when a query of a read-only transaction is sent to a second stub by hedging.
+   *
+   * @param stubIndex the position of the stub of the hedge in the array passed to the client
+   */
+  default void onHedge(int stubIndex) {}
+
+  /** Called when the access JWT is exchanged for a new one with the refresh JWT. */
+  default void onJwtRefresh() {}
+}
@@ -6,7 +6,10 @@
 package io.dgraph;
 
 import io.grpc.Context;
+import io.grpc.Deadline;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,55 +28,101 @@ final class CompletableFutures {
    * attempt fails with an expired JWT error, {@code retryLogin} is invoked and the callable is
    * retried once.
    *
+   * <p>The retry is expressed purely as a composition of the futures returned by {@code callable}
+   * and {@code retryLogin}, so no thread is blocked while an RPC is in flight. Dependent stages run
+   * on whichever thread completes the underlying gRPC call.
+   *
    * @param <T> the result type
    * @param operation human-readable name used in log messages
    * @param callable the operation to execute (will be wrapped with the current gRPC Context)
    * @param retryLogin supplier that performs a JWT refresh and returns a future that completes when
    *     the refresh is done
-   * @param executor the executor on which to run the async work
    * @return a CompletableFuture that completes with the result or fails with a translated exception
    */
   static <T> CompletableFuture<T> runWithRetries(
       String operation,
       Callable<CompletableFuture<T>> callable,
-      Supplier<CompletableFuture<Void>> retryLogin,
-      Executor executor) {
+      Supplier<CompletableFuture<Void>> retryLogin) {
     final Callable<CompletableFuture<T>> ctxCallable = Context.current().wrap(callable);
 
-    return CompletableFuture.supplyAsync(
-        () -> {
-          try {
-            return ctxCallable.call().get();
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOG.error("The " + operation + " got interrupted:", e);
-            throw new DgraphException("The " + operation + " got interrupted", e);
-          } catch (ExecutionException e) {
-            if (Exceptions.isJwtExpired(e.getCause())) {
-              try {
-                retryLogin.get().get();
-                return ctxCallable.call().get();
-              } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                LOG.error("The retried " + operation + " got interrupted:", ie);
-                throw new DgraphException(
-                    "The retried " + operation + " got interrupted", ie);
-              } catch (ExecutionException ie) {
-                LOG.error(
-                    "The retried " + operation + " encounters an execution exception:", ie);
-                throw new CompletionException(Exceptions.translate(ie.getCause()));
-              } catch (Exception ie) {
-                LOG.error(
-                    "The retried " + operation + " encounters a completion exception:", ie);
-                throw new CompletionException(Exceptions.translate(ie));
+    return call(ctxCallable)
+        .<CompletableFuture<T>>handle(
+            (result, throwable) -> {
+              if (throwable == null) {
+                return CompletableFuture.completedFuture(result);
+              }
+              Throwable cause = unwrap(throwable);
+              if (!Exceptions.isJwtExpired(cause)) {
+                return CompletableFuture.failedFuture(Exceptions.translate(cause));
               }
-            }
-            throw new CompletionException(Exceptions.translate(e.getCause()));
-          } catch (Exception e) {
-            throw new CompletionException(Exceptions.translate(e));
+              return retryLogin
+                  .get()
+                  .thenCompose(ignored -> call(ctxCallable))
+                  .handle(
+                      (retried, retryThrowable) -> {
+                        if (retryThrowable != null) {
+                          LOG.error(
+                              "The retried " + operation + " encounters an execution exception:",
+                              retryThrowable);
+                          throw new CompletionException(Exceptions.translate(retryThrowable));
+                        }
+                        return retried;
+                      });
+            })
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Invokes the callable, converting a synchronously thrown exception into a failed future so that
+   * callers can treat both failure modes uniformly.
+   */
+  private static <T> CompletableFuture<T> call(Callable<CompletableFuture<T>> callable) {
+    try {
+      return callable.call();
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Runs {@code call} in a new cancellable gRPC context, which is cancelled when the returned
+   * future is cancelled or times out via {@link CompletableFuture#orTimeout}. Every RPC that {@code
+   * call} starts, directly or in the stages of its future, is bound to that context, so that the
+   * alpha stops working on a request the caller abandoned.
+   *
+   * <p>The context is left alone when the future completes on its own: by then the RPCs are done,
+   * and stages that run afterwards, such as a failover, must not be cancelled.
+   */
+  static <T> CompletableFuture<T> cancellable(Supplier<CompletableFuture<T>> call) {
+    Context.CancellableContext context = Context.current().withCancellation();
+    CompletableFuture<T> future;
+    Context previous = context.attach();
+    try {
+      future = call.get();
+    } finally {
+      context.detach(previous);
+    }
+    future.whenComplete(
+        (result, throwable) -> {
+          if (throwable instanceof CancellationException
+              || throwable instanceof TimeoutException) {
+            context.cancel(throwable);
           }
-        },
-        executor);
+        });
+    return future;
+  }
+
+  /** Returns whether {@code deadline} passes within {@code delayMs}; never if it is null. */
+  static boolean expiresWithin(Deadline deadline, long delayMs) {
+    return deadline != null && deadline.timeRemaining(TimeUnit.MILLISECONDS) <= delayMs;
+  }
+
+  /** Strips the CompletionException wrapper added by dependent CompletableFuture stages. */
+  static Throwable unwrap(Throwable t) {
+    if (t instanceof CompletionException && t.getCause() != null) {
+      return t.getCause();
+    }
+    return t;
   }
 
   /**
@@ -84,6 +133,10 @@ final class CompletableFutures {
    * @param policy the retry policy controlling max retries, delays, and transaction mode
    * @param op the operation to execute within a fresh transaction on each attempt
    * @param attempt the current attempt number (0-based)
+   * @param excludedStubs indexes of the stubs whose alpha was found unavailable by an earlier
+   *     attempt; {@code txnFactory} is expected to avoid them
+   * @param client consulted for the circuit breakers and retry budget, and notified of every
+   *     attempt
    * @param txnFactory creates a new read-write or read-only transaction per the policy
    * @return a CompletableFuture that completes with the result or fails after exhausting retries
    */
@@ -91,16 +144,30 @@ final class CompletableFutures {
       RetryPolicy policy,
       AsyncTransactionOp<T> op,
       int attempt,
+      Set<Integer> excludedStubs,
+      DgraphAsyncClient client,
       Supplier<AsyncTransaction> txnFactory) {
 
-    AsyncTransaction txn = txnFactory.get();
+    AsyncTransaction txn;
+    try {
+      txn = txnFactory.get();
+    } catch (CircuitOpenException e) {
+      return CompletableFuture.failedFuture(e);
+    }
     if (policy.isBestEffort()) {
       txn.setBestEffort(true);
     }
 
     CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture<T> execution;
+    try {
+      execution = op.execute(txn);
+    } catch (RuntimeException e) {
+      // still reported below, so that an attempt sent as a circuit probe always ends the probe
+      execution = CompletableFuture.failedFuture(e);
+    }
 
-    op.execute(txn)
+    execution
         .whenComplete(
             (value, throwable) -> {
               try {
@@ -110,22 +177,33 @@ final class CompletableFutures {
               }
 
               if (throwable == null) {
+                client.onAttemptEnd(txn.getStubIndex(), null);
                 result.complete(value);
                 return;
               }
 
               DgraphException ex = Exceptions.translate(throwable);
-              if (!ex.isRetryable() || attempt >= policy.getMaxRetries()) {
+              client.onAttemptEnd(txn.getStubIndex(), ex);
+              long delayMs = policy.calculateDelay(attempt);
+              if (!ex.isRetryable()
+                  || attempt >= policy.getMaxRetries()
+                  || expiresWithin(txn.getAttemptDeadline(), delayMs)
+                  || !client.allowRetry(attempt, ex)) {
                 result.completeExceptionally(ex);
                 return;
               }
+              if (Exceptions.isAlphaUnavailable(ex)) {
+                excludedStubs.add(txn.getStubIndex());
+              }
 
               // Schedule retry after backoff delay
-              long delayMs = policy.calculateDelay(attempt);
               Executor delayed =
                   CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
               CompletableFuture.supplyAsync(() -> null, delayed)
-                  .thenCompose(ignored -> attemptAsync(policy, op, attempt + 1, txnFactory))
+                  .thenCompose(
+                      ignored ->
+                          attemptAsync(
+                              policy, op, attempt + 1, excludedStubs, client, txnFactory))
                   .whenComplete(
                       (retryValue, retryThrowable) -> {
                         if (retryThrowable != null) {
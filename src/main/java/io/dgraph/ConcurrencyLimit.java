@@ -0,0 +1,132 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/**
+ * Configures the adaptive limit on the RPCs in flight per stub of a {@link DgraphAsyncClient}.
+ * Immutable — create instances via {@link #builder()} and install them with {@link
+ * DgraphAsyncClient.Builder#concurrencyLimit}.
+ *
+ * <p>The limit follows additive increase, multiplicative decrease: every successful RPC that
+ * completes while at least half of the limit is in use raises it by {@code 1 / limit}, so a
+ * saturated stub gains about one slot per round trip; every RPC that fails with {@link
+ * AlphaOverloadedException}, {@link ResourceExhaustedException} or {@link
+ * DeadlineExceededException} multiplies it by {@code backoffRatio}. The limit stays between
+ * {@code minLimit} and {@code maxLimit}.
+ *
+ * <p>RPCs beyond the limit wait in a queue of up to {@code maxQueued} calls per stub, and fail with
+ * a {@link ResourceExhaustedException} once it is full. Time spent in the queue counts against the
+ * deadline of the call.
+ *
+ * <pre>{@code
+ * ConcurrencyLimit.DEFAULT                        // 20 initial, 1 to 1000, 0.9, 1000 queued
+ * ConcurrencyLimit.builder().maxQueued(0).build() // fail fast instead of queueing
+ * }</pre>
+ */
+public final class ConcurrencyLimit {
+
+  /** Starts at 20, between 1 and 1000, backs off by 0.9, queues up to 1000 calls. */
+  public static final ConcurrencyLimit DEFAULT = builder().build();
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final int maxQueued;
+
+  private ConcurrencyLimit(Builder builder) {
+    this.initialLimit = builder.initialLimit;
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.backoffRatio = builder.backoffRatio;
+    this.maxQueued = builder.maxQueued;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public static final class Builder {
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+    private double backoffRatio = 0.9;
+    private int maxQueued = 1000;
+
+    private Builder() {}
+
+    public Builder initialLimit(int initialLimit) {
+      if (initialLimit < 1) {
+        throw new IllegalArgumentException("initialLimit must be >= 1");
+      }
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    public Builder minLimit(int minLimit) {
+      if (minLimit < 1) {
+        throw new IllegalArgumentException("minLimit must be >= 1");
+      }
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    public Builder maxLimit(int maxLimit) {
+      if (maxLimit < 1) {
+        throw new IllegalArgumentException("maxLimit must be >= 1");
+      }
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    public Builder backoffRatio(double backoffRatio) {
+      if (backoffRatio <= 0 || backoffRatio >= 1) {
+        throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+      }
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /** Sets how many calls per stub may wait for a slot; 0 fails calls over the limit at once. */
+    public Builder maxQueued(int maxQueued) {
+      if (maxQueued < 0) {
+        throw new IllegalArgumentException("maxQueued must be >= 0");
+      }
+      this.maxQueued = maxQueued;
+      return this;
+    }
+
+    public ConcurrencyLimit build() {
+      if (minLimit > maxLimit) {
+        throw new IllegalArgumentException("minLimit must be <= maxLimit");
+      }
+      if (initialLimit < minLimit || initialLimit > maxLimit) {
+        throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+      }
+      return new ConcurrencyLimit(this);
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Holds back the calls on a stub that exceed its {@link ConcurrencyLimiter}, starting them when a
+ * slot is released, and feeds the outcome of every call back into the limit. Failures are
+ * classified with {@link Exceptions#translate}, as for the exceptions surfaced to callers.
+ *
+ * <p>A held-back call fails with {@code DEADLINE_EXCEEDED} once its deadline passes, and with
+ * {@code CANCELLED} once the context it was started in is cancelled, without counting against the
+ * limit: the alpha never saw it. For the same reason, a call that expires only counts as overload
+ * if its deadline had not passed yet when it was started.
+ */
+final class ConcurrencyLimitInterceptor implements ClientInterceptor {
+  /** The start of the description of a call rejected by the limit, rather than by the alpha. */
+  static final String REJECTED_DESCRIPTION = "client-side concurrency limit";
+
+  private final ConcurrencyLimiter limiter;
+
+  ConcurrencyLimitInterceptor(ConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    return new LimitedCall<>(next.newCall(method, callOptions), callOptions.getDeadline());
+  }
+
+  /**
+   * Starts the underlying call once it holds a slot. Until then, the requests, messages and
+   * half-close of the caller are buffered and replayed in order.
+   */
+  private final class LimitedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final ClientCall<ReqT, RespT> call;
+    private final Runnable onAcquired = this::begin;
+    private final Context.CancellationListener onCancelled = this::cancelled;
+    private Context context;
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private Deadline deadline;
+
+    // guarded by this; null once the call has started
+    private List<Consumer<ClientCall<ReqT, RespT>>> buffered = new ArrayList<>();
+    private boolean closed;
+
+    LimitedCall(ClientCall<ReqT, RespT> call, Deadline deadline) {
+      this.call = call;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void start(Listener<RespT> listener, Metadata headers) {
+      this.listener = listener;
+      this.headers = headers;
+      this.context = Context.current();
+      // the call is bound to the deadline of the context it is started in as well
+      Deadline contextDeadline = context.getDeadline();
+      if (contextDeadline != null && (deadline == null || contextDeadline.isBefore(deadline))) {
+        deadline = contextDeadline;
+      }
+      switch (limiter.acquire(onAcquired)) {
+        case ACQUIRED:
+          begin();
+          break;
+        case QUEUED:
+          // runs at once if the context is already cancelled
+          context.addListener(onCancelled, Runnable::run);
+          if (deadline != null) {
+            CompletableFuture.delayedExecutor(
+                    deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                .execute(this::expire);
+          }
+          break;
+        case REJECTED:
+          close(
+              Status.RESOURCE_EXHAUSTED.withDescription(
+                  REJECTED_DESCRIPTION
+                      + " of "
+                      + limiter.getLimit()
+                      + " reached and "
+                      + limiter.getQueued()
+                      + " calls queued"));
+          break;
+      }
+    }
+
+    /** Fails the call if it is still waiting for a slot when its deadline passes. */
+    private void expire() {
+      if (limiter.dequeue(onAcquired)) {
+        close(
+            Status.DEADLINE_EXCEEDED.withDescription(
+                "deadline exceeded while waiting for a client-side concurrency slot"));
+      }
+    }
+
+    /** Fails the call if it is still waiting for a slot when its context is cancelled. */
+    private void cancelled(Context cancelled) {
+      if (limiter.dequeue(onAcquired)) {
+        close(
+            Status.CANCELLED
+                .withDescription(
+                    "context cancelled while waiting for a client-side concurrency slot")
+                .withCause(cancelled.cancellationCause()));
+      }
+    }
+
+    private void begin() {
+      // once started, the underlying call follows the context on its own
+      context.removeListener(onCancelled);
+      int inFlightAtStart = limiter.getInFlight();
+      // a call started past its deadline fails without reaching the alpha
+      boolean startedInTime = deadline == null || !deadline.isExpired();
+      call.start(
+          new SimpleForwardingClientCallListener<RespT>(listener) {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+              boolean overloaded =
+                  !status.isOk()
+                      && (startedInTime || status.getCode() != Status.Code.DEADLINE_EXCEEDED)
+                      && Exceptions.isOverloaded(
+                          Exceptions.translate(status.asRuntimeException(trailers)));
+              limiter.release(inFlightAtStart, overloaded);
+              super.onClose(status, trailers);
+            }
+          },
+          headers);
+      // replayed outside the lock, as the call may complete synchronously and call back into this
+      while (true) {
+        List<Consumer<ClientCall<ReqT, RespT>>> operations;
+        synchronized (this) {
+          operations = buffered;
+          if (operations.isEmpty()) {
+            buffered = null;
+            return;
+          }
+          buffered = new ArrayList<>();
+        }
+        for (Consumer<ClientCall<ReqT, RespT>> operation : operations) {
+          operation.accept(call);
+        }
+      }
+    }
+
+    /** Closes a call that never started. */
+    private void close(Status status) {
+      context.removeListener(onCancelled);
+      synchronized (this) {
+        closed = true;
+      }
+      listener.onClose(status, new Metadata());
+    }
+
+    private void run(Consumer<ClientCall<ReqT, RespT>> operation) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (buffered != null) {
+          buffered.add(operation);
+          return;
+        }
+      }
+      operation.accept(call);
+    }
+
+    @Override
+    public void request(int numMessages) {
+      run(c -> c.request(numMessages));
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      run(c -> c.sendMessage(message));
+    }
+
+    @Override
+    public void halfClose() {
+      run(ClientCall::halfClose);
+    }
+
+    @Override
+    public void setMessageCompression(boolean enabled) {
+      run(c -> c.setMessageCompression(enabled));
+    }
+
+    @Override
+    public void cancel(String message, Throwable cause) {
+      if (limiter.dequeue(onAcquired)) {
+        close(Status.CANCELLED.withDescription(message).withCause(cause));
+        return;
+      }
+      run(c -> c.cancel(message, cause));
+    }
+
+    @Override
+    public boolean isReady() {
+      synchronized (this) {
+        if (buffered != null) {
+          return false;
+        }
+      }
+      return call.isReady();
+    }
+  }
+}
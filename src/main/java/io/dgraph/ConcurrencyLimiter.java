@@ -0,0 +1,89 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/** The adaptive in-flight limit of one stub, as configured by a {@link ConcurrencyLimit}. */
+final class ConcurrencyLimiter {
+  enum Admission {
+    ACQUIRED,
+    QUEUED,
+    REJECTED
+  }
+
+  private final ConcurrencyLimit config;
+
+  // guarded by this
+  private double limit;
+  private int inFlight;
+  private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+  ConcurrencyLimiter(ConcurrencyLimit config) {
+    this.config = config;
+    this.limit = config.getInitialLimit();
+  }
+
+  /**
+   * Takes a slot if one is free. Otherwise queues {@code onAcquired}, which is run with the slot
+   * once one is released, or rejects the call if the queue is full.
+   */
+  synchronized Admission acquire(Runnable onAcquired) {
+    if (inFlight < (int) limit && queue.isEmpty()) {
+      inFlight++;
+      return Admission.ACQUIRED;
+    }
+    if (queue.size() < config.getMaxQueued()) {
+      queue.add(onAcquired);
+      return Admission.QUEUED;
+    }
+    return Admission.REJECTED;
+  }
+
+  /** Removes a queued call. Returns false if it already has a slot. */
+  synchronized boolean dequeue(Runnable onAcquired) {
+    return queue.remove(onAcquired);
+  }
+
+  /**
+   * Releases a slot and adapts the limit to the outcome of the call that held it.
+   *
+   * @param inFlightAtStart the number of calls in flight when the call started, itself included
+   * @param overloaded whether the call failed because the alpha or the deadline was overrun
+   */
+  void release(int inFlightAtStart, boolean overloaded) {
+    List<Runnable> acquired = new ArrayList<>();
+    synchronized (this) {
+      inFlight--;
+      if (overloaded) {
+        limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+      } else if (inFlightAtStart * 2 >= limit) {
+        limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+      }
+      while (inFlight < (int) limit && !queue.isEmpty()) {
+        inFlight++;
+        acquired.add(queue.poll());
+      }
+    }
+    for (Runnable call : acquired) {
+      call.run();
+    }
+  }
+
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  synchronized int getQueued() {
+    return queue.size();
+  }
+}
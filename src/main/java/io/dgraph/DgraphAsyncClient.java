@@ -5,23 +5,23 @@
 
 package io.dgraph;
 
-import static java.util.Arrays.asList;
-
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
 import io.dgraph.DgraphProto.Payload;
 import io.dgraph.DgraphProto.TxnContext;
 import io.dgraph.DgraphProto.Version;
 import io.grpc.Channel;
+import io.grpc.Context;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannel;
-import io.grpc.Metadata;
-import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ClientCalls;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,22 +37,29 @@ import org.slf4j.LoggerFactory;
 public class DgraphAsyncClient {
   private static final Logger LOG = LoggerFactory.getLogger(DgraphAsyncClient.class);
   private final List<DgraphGrpc.DgraphStub> stubs;
+  private final List<Channel> channels;
+  private final List<StubStats> stubStats;
+  private final StubSelector stubSelector;
   private final Executor executor;
-  private final ReadWriteLock jwtLock;
-  private DgraphProto.Jwt jwt;
+  private final ClientMetrics metrics;
+  private final ResponseListener responseListener;
+  private final RetryBudget retryBudget;
+  private final Hedger hedger;
+  private final Timeouts timeouts;
+  private final ReadTimestamps readTimestamps;
+  private final AccessJwtInterceptor jwtInterceptor;
+  private final JwtManager jwtManager;
 
   /**
    * Creates a new client for interacting with a Dgraph store.
    *
    * <p>A single client is thread safe.
    *
-   * @param stubs - an array of grpc stubs to be used by this client. The stubs to be used are
-   *     chosen at random per transaction.
+   * @param stubs - an array of grpc stubs to be used by this client. The stub used for each
+   *     transaction is chosen by {@link StubSelector#powerOfTwoChoices()}.
    */
   public DgraphAsyncClient(DgraphGrpc.DgraphStub... stubs) {
-    this.stubs = asList(stubs);
-    this.executor = ForkJoinPool.commonPool();
-    this.jwtLock = new ReentrantReadWriteLock();
+    this(new Builder(stubs));
   }
 
   /**
@@ -61,13 +68,77 @@ public class DgraphAsyncClient {
    * <p>A single client is thread safe.
    *
    * @param executor - the executor to use for various asynchronous tasks executed by this client.
-   * @param stubs - an array of grpc stubs to be used by this client. The stubs to be used are
-   *     chosen at random per transaction.
+   * @param stubs - an array of grpc stubs to be used by this client. The stub used for each
+   *     transaction is chosen by {@link StubSelector#powerOfTwoChoices()}.
    */
   public DgraphAsyncClient(Executor executor, DgraphGrpc.DgraphStub... stubs) {
-    this.stubs = asList(stubs);
-    this.executor = executor;
-    this.jwtLock = new ReentrantReadWriteLock();
+    this(new Builder(stubs).executor(executor));
+  }
+
+  private DgraphAsyncClient(Builder builder) {
+    this.executor = builder.executor;
+    this.stubSelector = builder.stubSelector;
+    this.metrics = builder.metrics;
+    this.responseListener = builder.responseListener;
+    this.retryBudget = builder.retryBudget;
+    this.timeouts = builder.timeouts;
+    this.readTimestamps =
+        builder.maxReadStaleness == null
+            ? null
+            : new ReadTimestamps(builder.maxReadStaleness.toNanos());
+    this.jwtInterceptor = new AccessJwtInterceptor();
+    this.jwtManager = new JwtManager(jwtInterceptor, this::loginCall, executor);
+
+    // interceptors are installed once here; logins only swap the header the JWT interceptor
+    // attaches, and the stats interceptor sees every call including the JWT header it carries
+    DgraphGrpc.DgraphStub[] stubs = builder.stubs;
+    long ejectionNanos = builder.ejectionTime.toNanos();
+    List<DgraphGrpc.DgraphStub> wrapped = new ArrayList<>(stubs.length);
+    List<Channel> rawChannels = new ArrayList<>(stubs.length);
+    List<StubStats> stats = new ArrayList<>(stubs.length);
+    for (int i = 0; i < stubs.length; i++) {
+      DgraphGrpc.DgraphStub stub = stubs[i];
+      StubCircuit circuit =
+          builder.circuitBreaker == null ? null : new StubCircuit(builder.circuitBreaker);
+      StubStats stubStats;
+      if (builder.concurrencyLimit == null) {
+        stubStats = new StubStats(i, ejectionNanos, null, circuit);
+        stub = stub.withInterceptors(jwtInterceptor, new StubStatsInterceptor(stubStats));
+      } else {
+        // the limiter runs first, so that time spent waiting for a slot is not seen as latency
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(builder.concurrencyLimit);
+        stubStats = new StubStats(i, ejectionNanos, limiter, circuit);
+        stub =
+            stub.withInterceptors(
+                jwtInterceptor,
+                new StubStatsInterceptor(stubStats),
+                new ConcurrencyLimitInterceptor(limiter));
+      }
+      wrapped.add(stub);
+      rawChannels.add(stubs[i].getChannel());
+      stats.add(stubStats);
+    }
+    this.stubs = Collections.unmodifiableList(wrapped);
+    this.channels = Collections.unmodifiableList(rawChannels);
+    this.stubStats = Collections.unmodifiableList(stats);
+    this.hedger = builder.hedging == null ? null : new Hedger(this, builder.hedging);
+  }
+
+  /**
+   * Returns a builder for a client that sends requests through the given stubs.
+   *
+   * <pre>{@code
+   * DgraphAsyncClient client =
+   *     DgraphAsyncClient.builder(stub1, stub2, stub3)
+   *         .stubSelector(StubSelector.random())
+   *         .ejectionTime(Duration.ofSeconds(10))
+   *         .build();
+   * }</pre>
+   *
+   * @param stubs - an array of grpc stubs to be used by the client
+   */
+  public static Builder builder(DgraphGrpc.DgraphStub... stubs) {
+    return new Builder(stubs);
   }
 
   /**
@@ -97,98 +168,63 @@ public class DgraphAsyncClient {
    */
   public CompletableFuture<Void> loginIntoNamespace(
       String userid, String password, long namespace) {
-    Lock wlock = jwtLock.writeLock();
-    wlock.lock();
-    try {
-      final DgraphGrpc.DgraphStub client = anyClient();
-      final DgraphProto.LoginRequest loginRequest =
-          DgraphProto.LoginRequest.newBuilder()
-              .setUserid(userid)
-              .setPassword(password)
-              .setNamespace(namespace)
-              .build();
-
-      StreamObserverBridge<DgraphProto.Response> bridge = new StreamObserverBridge<>();
-      client.login(loginRequest, bridge);
-      return bridge
-          .getDelegate()
-          .thenAccept(
-              (DgraphProto.Response response) -> {
-                try {
-                  // set the jwt field
-                  jwt = DgraphProto.Jwt.parseFrom(response.getJson());
-                } catch (InvalidProtocolBufferException e) {
-                  String errmsg = "error while parsing jwt from the response: ";
-                  LOG.error(errmsg, e);
-                  throw new AuthException(errmsg, e);
-                }
-              });
-    } finally {
-      wlock.unlock();
+    final DgraphProto.LoginRequest loginRequest =
+        DgraphProto.LoginRequest.newBuilder()
+            .setUserid(userid)
+            .setPassword(password)
+            .setNamespace(namespace)
+            .build();
+    if (readTimestamps == null) {
+      return jwtManager.login(loginRequest);
     }
+    // the hash of a start_ts is bound to the namespace
+    return jwtManager.login(loginRequest).thenRun(readTimestamps::clear);
   }
 
+  /**
+   * retryLogin exchanges the refresh JWT for a new access JWT. Concurrent callers share a single
+   * in-flight Login request.
+   *
+   * @return a future which completes when the new access JWT is in use
+   */
   protected CompletableFuture<Void> retryLogin() {
-    Lock wlock = jwtLock.writeLock();
-    wlock.lock();
-    try {
-      if (jwt.getRefreshJwt().isEmpty()) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        future.completeExceptionally(new Exception("refresh JWT should not be empty"));
-        return future;
-      }
+    return jwtManager.refresh();
+  }
 
-      final DgraphGrpc.DgraphStub client = anyClient();
-      final DgraphProto.LoginRequest loginRequest =
-          DgraphProto.LoginRequest.newBuilder().setRefreshToken(jwt.getRefreshJwt()).build();
-
-      StreamObserverBridge<DgraphProto.Response> bridge = new StreamObserverBridge<>();
-      client.login(loginRequest, bridge);
-      return bridge
-          .getDelegate()
-          .thenAccept(
-              (DgraphProto.Response response) -> {
-                try {
-                  // set the jwt field
-                  jwt = DgraphProto.Jwt.parseFrom(response.getJson());
-                } catch (InvalidProtocolBufferException e) {
-                  LOG.error("error while parsing jwt from the response: ", e);
-                }
-              });
-    } finally {
-      wlock.unlock();
+  private CompletableFuture<DgraphProto.Response> loginCall(DgraphProto.LoginRequest request) {
+    if (!request.getRefreshToken().isEmpty()) {
+      metrics.onJwtRefresh();
     }
+    StreamObserverBridge<DgraphProto.Response> bridge = new StreamObserverBridge<>();
+    long startNanos = System.nanoTime();
+    metrics.onRequestStart("login");
+    withTimeout(anyClient(), timeouts.getLogin()).login(request, bridge);
+    return measured("login", startNanos, bridge.getDelegate());
   }
 
   /**
-   * getStubWithJwt adds an AttachHeadersInterceptor to the stub, which will eventually attach a
-   * header whose key is accessJwt and value is the access JWT stored in the current
-   * DgraphAsyncClient object.
+   * getStubWithJwt adds an interceptor to the stub, which will eventually attach a header whose
+   * key is accessJwt and value is the access JWT stored in the current DgraphAsyncClient object.
    *
+   * @deprecated the stubs passed to the constructor already attach the access JWT; this is only
+   *     needed for stubs created outside of this client.
    * @param stub the original stub that we should attach JWT to
    * @return the augmented stub with JWT
    */
+  @Deprecated
   protected DgraphGrpc.DgraphStub getStubWithJwt(DgraphGrpc.DgraphStub stub) {
-    Lock readLock = jwtLock.readLock();
-    readLock.lock();
-    try {
-      if (jwt != null && !jwt.getAccessJwt().isEmpty()) {
-        Metadata metadata = new Metadata();
-        metadata.put(
-            Metadata.Key.of("accessJwt", Metadata.ASCII_STRING_MARSHALLER), jwt.getAccessJwt());
-        return stub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata));
-      }
-
-      return stub;
-    } finally {
-      readLock.unlock();
-    }
+    return stub.withInterceptors(jwtInterceptor);
   }
 
   /**
    * runWithRetries takes a supplier of CompletableFuture, tries to get the result from it while
    * handling exceptions caused by access JWT expiration. If such an exception happens,
-   * runWithRetries will retry login using the refresh JWT and retry the logic in the supplier.
+   * runWithRetries will retry login using the refresh JWT and retry the logic in the supplier. No
+   * thread is blocked while waiting for the result.
+   *
+   * <p>If the access JWT is known to have expired, the supplier is only invoked once the in-flight
+   * refresh has completed, rather than sending a request that would be rejected. Cancelling the
+   * returned future, or its timing out via {@link CompletableFuture#orTimeout}, cancels the RPCs.
    *
    * @param <T> The type of the supplier's returned CompletableFuture. If the supplier provides
    *     logic to run queries, then the type T will be DgraphProto.Response.
@@ -199,7 +235,43 @@ public class DgraphAsyncClient {
    */
   protected <T> CompletableFuture<T> runWithRetries(
       String operation, Callable<CompletableFuture<T>> callable) {
-    return CompletableFutures.runWithRetries(operation, callable, this::retryLogin, this.executor);
+    return CompletableFutures.cancellable(() -> runWithJwt(operation, callable));
+  }
+
+  private <T> CompletableFuture<T> runWithJwt(
+      String operation, Callable<CompletableFuture<T>> callable) {
+    long startNanos = System.nanoTime();
+    metrics.onRequestStart(operation);
+    CompletableFuture<Void> jwtReady = jwtManager.awaitValid();
+    if (jwtReady.isDone()) {
+      return measured(
+          operation,
+          startNanos,
+          CompletableFutures.runWithRetries(operation, callable, this::retryLogin));
+    }
+
+    final Callable<CompletableFuture<T>> ctxCallable = Context.current().wrap(callable);
+    // a failed refresh is not fatal here: the request itself reports the expired token
+    return measured(
+        operation,
+        startNanos,
+        jwtReady
+            .exceptionally(throwable -> null)
+            .thenCompose(
+                ignored ->
+                    CompletableFutures.runWithRetries(operation, ctxCallable, this::retryLogin)));
+  }
+
+  /** Reports the completion of a request started at {@code startNanos} to the metrics. */
+  private <T> CompletableFuture<T> measured(
+      String operation, long startNanos, CompletableFuture<T> future) {
+    future.whenComplete(
+        (result, throwable) ->
+            metrics.onRequestEnd(
+                operation,
+                System.nanoTime() - startNanos,
+                throwable == null ? null : Exceptions.translate(throwable)));
+    return future;
   }
 
   /**
@@ -216,14 +288,12 @@ public class DgraphAsyncClient {
    * @return CompletableFuture with instance of Payload set as result
    */
   public CompletableFuture<Payload> alter(DgraphProto.Operation op) {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "alter",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAlter());
           StreamObserverBridge<Payload> observerBridge = new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.alter(op, observerBridge);
+          stub.alter(op, observerBridge);
           return observerBridge.getDelegate();
         });
   }
@@ -236,15 +306,14 @@ public class DgraphAsyncClient {
    *     Dgraph instance.
    */
   public CompletableFuture<Version> checkVersion() {
-    final DgraphGrpc.DgraphStub stub = anyClient();
     final DgraphProto.Check checkRequest = DgraphProto.Check.newBuilder().build();
 
     return runWithRetries(
         "checkVersion",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAdmin());
           StreamObserverBridge<Version> observerBridge = new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.checkVersion(checkRequest, observerBridge);
+          stub.checkVersion(checkRequest, observerBridge);
           return observerBridge.getDelegate();
         });
   }
@@ -253,6 +322,41 @@ public class DgraphAsyncClient {
   // DQL
   // ---------------------------------------------------------------------------
 
+  /**
+   * Like {@link #runDQL(DgraphProto.RunDQLRequest)}, but parses the response without copying its
+   * {@code json} and {@code rdf} fields off the transport buffers. The caller must close the
+   * returned handle; see {@link RetainedResponse}.
+   *
+   * @param request a fully-built RunDQLRequest
+   * @return a handle of the response, which the caller must close
+   */
+  public CompletableFuture<RetainedResponse> runDQLRetained(DgraphProto.RunDQLRequest request) {
+    UndeliveredResults<RetainedResponse> results =
+        new UndeliveredResults<>(RetainedResponse::close);
+
+    return results.returning(
+        runWithRetries(
+            "runDQL",
+            () -> {
+              DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getRunDQL());
+              StreamObserverBridge<RetainedResponse> bridge = new StreamObserverBridge<>();
+              long sentNanos = System.nanoTime();
+              ClientCalls.asyncUnaryCall(
+                  stub.getChannel()
+                      .newCall(RetainedResponseMarshaller.RUN_DQL_METHOD, stub.getCallOptions()),
+                  request,
+                  bridge);
+              return bridge
+                  .getDelegate()
+                  .thenApply(
+                      retained -> {
+                        results.received(retained);
+                        onResponse("runDQL", sentNanos, request, retained.getResponse());
+                        return retained;
+                      });
+            }));
+  }
+
   /**
    * Runs a DQL query or mutation using the RunDQL RPC.
    *
@@ -260,15 +364,16 @@ public class DgraphAsyncClient {
    * @return CompletableFuture with the Response
    */
   public CompletableFuture<DgraphProto.Response> runDQL(DgraphProto.RunDQLRequest request) {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "runDQL",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getRunDQL());
           StreamObserverBridge<DgraphProto.Response> bridge = new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.runDQL(request, bridge);
-          return bridge.getDelegate();
+          long sentNanos = System.nanoTime();
+          stub.runDQL(request, bridge);
+          return bridge
+              .getDelegate()
+              .thenApply(response -> onResponse("runDQL", sentNanos, request, response));
         });
   }
 
@@ -315,15 +420,13 @@ public class DgraphAsyncClient {
    */
   public CompletableFuture<DgraphProto.AllocateIDsResponse> allocateIDs(
       DgraphProto.AllocateIDsRequest request) {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "allocateIDs",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAdmin());
           StreamObserverBridge<DgraphProto.AllocateIDsResponse> bridge =
               new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.allocateIDs(request, bridge);
+          stub.allocateIDs(request, bridge);
           return bridge.getDelegate();
         });
   }
@@ -389,15 +492,13 @@ public class DgraphAsyncClient {
    * @return CompletableFuture with the CreateNamespaceResponse containing the new namespace ID
    */
   public CompletableFuture<DgraphProto.CreateNamespaceResponse> createNamespace() {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "createNamespace",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAdmin());
           StreamObserverBridge<DgraphProto.CreateNamespaceResponse> bridge =
               new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.createNamespace(
+          stub.createNamespace(
               DgraphProto.CreateNamespaceRequest.newBuilder().build(), bridge);
           return bridge.getDelegate();
         });
@@ -410,15 +511,13 @@ public class DgraphAsyncClient {
    * @return CompletableFuture with the DropNamespaceResponse
    */
   public CompletableFuture<DgraphProto.DropNamespaceResponse> dropNamespace(long namespace) {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "dropNamespace",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAdmin());
           StreamObserverBridge<DgraphProto.DropNamespaceResponse> bridge =
               new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.dropNamespace(
+          stub.dropNamespace(
               DgraphProto.DropNamespaceRequest.newBuilder().setNamespace(namespace).build(),
               bridge);
           return bridge.getDelegate();
@@ -431,15 +530,13 @@ public class DgraphAsyncClient {
    * @return CompletableFuture with the ListNamespacesResponse
    */
   public CompletableFuture<DgraphProto.ListNamespacesResponse> listNamespaces() {
-    final DgraphGrpc.DgraphStub stub = anyClient();
-
     return runWithRetries(
         "listNamespaces",
         () -> {
+          DgraphGrpc.DgraphStub stub = withTimeout(anyClient(), timeouts.getAdmin());
           StreamObserverBridge<DgraphProto.ListNamespacesResponse> bridge =
               new StreamObserverBridge<>();
-          DgraphGrpc.DgraphStub localStub = getStubWithJwt(stub);
-          localStub.listNamespaces(
+          stub.listNamespaces(
               DgraphProto.ListNamespacesRequest.newBuilder().build(), bridge);
           return bridge.getDelegate();
         });
@@ -518,9 +615,95 @@ public class DgraphAsyncClient {
   }
 
   private DgraphGrpc.DgraphStub anyClient() {
-    int index = ThreadLocalRandom.current().nextInt(stubs.size());
-    DgraphGrpc.DgraphStub rawStub = stubs.get(index);
-    return getStubWithJwt(rawStub);
+    return stubs.get(selectStub(Collections.emptySet()));
+  }
+
+  /**
+   * Chooses the stub for the next request with the configured {@link StubSelector}, skipping the
+   * stubs in {@code excluded} unless that would leave none.
+   *
+   * @return the index of the chosen stub
+   */
+  int selectStub(Set<Integer> excluded) {
+    if (stubs.size() == 1) {
+      return 0;
+    }
+    List<StubStats> candidates = stubStats;
+    if (!excluded.isEmpty()) {
+      List<StubStats> remaining = new ArrayList<>(stubStats.size());
+      for (StubStats stats : stubStats) {
+        if (!excluded.contains(stats.getIndex())) {
+          remaining.add(stats);
+        }
+      }
+      // once every alpha has failed, trying one of them again beats failing without a request
+      if (!remaining.isEmpty()) {
+        candidates = remaining;
+      }
+    }
+    return stubSelector.select(candidates).getIndex();
+  }
+
+  DgraphGrpc.DgraphStub getStub(int index) {
+    return stubs.get(index);
+  }
+
+  int getStubCount() {
+    return stubs.size();
+  }
+
+  Executor getExecutor() {
+    return executor;
+  }
+
+  ClientMetrics getMetrics() {
+    return metrics;
+  }
+
+  Timeouts getTimeouts() {
+    return timeouts;
+  }
+
+  /** Returns {@code stub} with a deadline {@code timeout} from now, unless that is zero. */
+  static DgraphGrpc.DgraphStub withTimeout(DgraphGrpc.DgraphStub stub, Duration timeout) {
+    if (timeout.isZero()) {
+      return stub;
+    }
+    return stub.withDeadlineAfter(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /** Returns the hedger of the queries of read-only transactions, or null if there is none. */
+  Hedger getHedger() {
+    return hedger;
+  }
+
+  /**
+   * Passes the telemetry of a response to the response listener, if there is one. Request sizes
+   * are only computed when a listener is installed. An exception thrown by the listener is logged,
+   * so that it cannot fail a request the server has already applied.
+   *
+   * @return the response
+   */
+  DgraphProto.Response onResponse(
+      String operation, long sentNanos, MessageLite request, DgraphProto.Response response) {
+    if (responseListener != null) {
+      long roundTripNanos = System.nanoTime() - sentNanos;
+      try {
+        responseListener.onResponse(
+            new ResponseTelemetry(
+                operation, roundTripNanos, request.getSerializedSize(), response));
+      } catch (RuntimeException e) {
+        LOG.warn("response listener failed: ", e);
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Returns the live statistics of each stub, in the order the stubs were passed to this client.
+   */
+  public List<StubStats> getStubStats() {
+    return stubStats;
   }
 
   /**
@@ -541,7 +724,7 @@ public class DgraphAsyncClient {
    * @return a new AsyncTransaction object.
    */
   public AsyncTransaction newTransaction() {
-    return new AsyncTransaction(this, this.anyClient());
+    return new AsyncTransaction(this, selectStub(Collections.emptySet()));
   }
 
   /**
@@ -562,7 +745,7 @@ public class DgraphAsyncClient {
    * @return a new AsyncTransaction object.
    */
   public AsyncTransaction newTransaction(TxnContext context) {
-    return new AsyncTransaction(this, this.anyClient(), context);
+    return new AsyncTransaction(this, selectStub(Collections.emptySet()), context);
   }
 
   /**
@@ -570,10 +753,104 @@ public class DgraphAsyncClient {
    * or AsyncTransaction#commit() call made to the read only transaction will result in
    * TxnReadOnlyException. All operations performed by this transaction are asynchronous.
    *
+   * <p>If the client was built with {@link Builder#maxReadStaleness}, the transaction may read at
+   * the start timestamp of a recent read-only transaction instead of being assigned one.
+   *
    * @return a new AsyncTransaction object
    */
   public AsyncTransaction newReadOnlyTransaction() {
-    return new AsyncTransaction(this, this.anyClient(), true);
+    return readOnlyTransactionOn(selectStub(Collections.emptySet()));
+  }
+
+  /**
+   * Creates a transaction on a stub chosen among those not in {@code excludedStubs}. Used by the
+   * retry helpers to move the next attempt away from alphas that are unavailable.
+   */
+  AsyncTransaction newTransaction(boolean readOnly, Set<Integer> excludedStubs) {
+    int stubIndex = selectRetryStub(excludedStubs);
+    return readOnly
+        ? readOnlyTransactionOn(stubIndex)
+        : new AsyncTransaction(this, stubIndex, false);
+  }
+
+  private AsyncTransaction readOnlyTransactionOn(int stubIndex) {
+    if (readTimestamps == null) {
+      return new AsyncTransaction(this, stubIndex, true);
+    }
+    long nowNanos = System.nanoTime();
+    TxnContext shared = readTimestamps.take(nowNanos);
+    if (shared != null) {
+      return new AsyncTransaction(this, stubIndex, shared, true);
+    }
+    AsyncTransaction txn = new AsyncTransaction(this, stubIndex, true);
+    txn.shareStartTs(readTimestamps, nowNanos);
+    return txn;
+  }
+
+  /**
+   * Selects the stub of a {@code withRetry} attempt, avoiding stubs whose circuit is open.
+   *
+   * @throws CircuitOpenException if the circuit of every stub is open
+   */
+  private int selectRetryStub(Set<Integer> excludedStubs) {
+    if (stubStats.get(0).getCircuit() == null) {
+      return selectStub(excludedStubs);
+    }
+    Set<Integer> open = new HashSet<>();
+    for (StubStats stats : stubStats) {
+      if (!stats.getCircuit().isAvailable()) {
+        open.add(stats.getIndex());
+      }
+    }
+    if (open.size() == stubs.size()) {
+      throw new CircuitOpenException(stubs.size());
+    }
+    Set<Integer> excluded = new HashSet<>(open);
+    excluded.addAll(excludedStubs);
+    // alphas found unavailable by earlier attempts are tried again before open circuits
+    int index = selectStub(excluded.size() == stubs.size() ? open : excluded);
+    stubStats.get(index).getCircuit().onAttempt();
+    return index;
+  }
+
+  /** Returns the deadline of a {@code withRetry} call starting now, or null if there is none. */
+  Deadline retryDeadline() {
+    Duration retry = timeouts.getRetry();
+    return retry.isZero() ? null : Deadline.after(retry.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the outcome of a {@code withRetry} attempt in the circuit of its stub and the retry
+   * budget. Only failures of the alpha count against the circuit; see {@link
+   * Exceptions#isAlphaFailure}.
+   *
+   * @param error the translated error of the attempt, or null if it succeeded
+   */
+  void onAttemptEnd(int stubIndex, DgraphException error) {
+    StubCircuit circuit = stubStats.get(stubIndex).getCircuit();
+    if (circuit != null) {
+      if (error == null || !Exceptions.isAlphaFailure(error)) {
+        circuit.onSuccess();
+      } else if (circuit.onFailure()) {
+        metrics.onCircuitOpened(stubIndex);
+      }
+    }
+    if (error == null && retryBudget != null) {
+      retryBudget.onSuccess();
+    }
+  }
+
+  /**
+   * Returns whether {@code withRetry} may repeat an attempt that failed with a retryable error,
+   * taking a token of the retry budget if so.
+   */
+  boolean allowRetry(int attempt, DgraphException error) {
+    if (retryBudget != null && !retryBudget.tryWithdraw()) {
+      metrics.onRetryBudgetExhausted(error);
+      return false;
+    }
+    metrics.onRetry(attempt, error);
+    return true;
   }
 
   /**
@@ -585,7 +862,33 @@ public class DgraphAsyncClient {
    * @return a new AsyncTransaction object
    */
   public AsyncTransaction newReadOnlyTransaction(TxnContext context) {
-    return new AsyncTransaction(this, this.anyClient(), context, true);
+    return new AsyncTransaction(this, selectStub(Collections.emptySet()), context, true);
+  }
+
+  /**
+   * Returns a publisher that sends each request of {@code requests} in a transaction of its own
+   * and publishes the responses in request order, with at most 256 requests in flight. See {@link
+   * RequestPublisher}.
+   *
+   * @param requests the requests to send
+   * @return a publisher of the responses
+   */
+  public RequestPublisher doRequests(Flow.Publisher<DgraphProto.Request> requests) {
+    return doRequests(requests, 256);
+  }
+
+  /**
+   * Returns a publisher that sends each request of {@code requests} in a transaction of its own
+   * and publishes the responses in request order. The subscriber's demand sets how many requests
+   * are in flight, up to {@code maxInFlight}. See {@link RequestPublisher}.
+   *
+   * @param requests the requests to send
+   * @param maxInFlight the most requests sent but not yet published, whatever the demand
+   * @return a publisher of the responses
+   */
+  public RequestPublisher doRequests(
+      Flow.Publisher<DgraphProto.Request> requests, int maxInFlight) {
+    return new RequestPublisher(this, requests, maxInFlight);
   }
 
   // ---------------------------------------------------------------------------
@@ -597,7 +900,9 @@ public class DgraphAsyncClient {
    * failures, using {@link RetryPolicy#DEFAULT}.
    *
    * <p>A fresh transaction is created for each attempt. The transaction is always discarded after
-   * the operation completes or fails. Backoff delays are non-blocking.
+   * the operation completes or fails. Backoff delays are non-blocking. Attempts after a {@link
+   * ConnectionException}, {@link AlphaShutdownException} or {@link AlphaNotReadyException} are sent
+   * to a different alpha while one is left.
    *
    * @param op the operation to execute
    * @param <T> the return type
@@ -612,7 +917,9 @@ public class DgraphAsyncClient {
    * failures.
    *
    * <p>A fresh transaction is created for each attempt. The transaction is always discarded after
-   * the operation completes or fails. Backoff delays are non-blocking.
+   * the operation completes or fails. Backoff delays are non-blocking. Attempts after a {@link
+   * ConnectionException}, {@link AlphaShutdownException} or {@link AlphaNotReadyException} are sent
+   * to a different alpha while one is left.
    *
    * @param policy the retry policy to use
    * @param op the operation to execute
@@ -620,24 +927,24 @@ public class DgraphAsyncClient {
    * @return a future that completes with the operation result
    */
   public <T> CompletableFuture<T> withRetry(RetryPolicy policy, AsyncTransactionOp<T> op) {
+    Set<Integer> excludedStubs = ConcurrentHashMap.newKeySet();
+    Deadline deadline = retryDeadline();
     return CompletableFutures.attemptAsync(
         policy,
         op,
         0,
-        () -> {
-          AsyncTransaction txn =
-              policy.isReadOnly() ? newReadOnlyTransaction() : newTransaction();
-          return txn;
-        });
+        excludedStubs,
+        this,
+        () -> newTransaction(policy.isReadOnly(), excludedStubs).withAttemptDeadline(deadline));
   }
 
   /** Calls %{@link io.grpc.ManagedChannel#shutdown} on all connections for this client */
   public CompletableFuture<Void> shutdown() {
+    jwtManager.close();
     CompletableFuture<Void> future =
         CompletableFuture.runAsync(
             () -> {
-              for (DgraphGrpc.DgraphStub stub : this.stubs) {
-                Channel chan = stub.getChannel();
+              for (Channel chan : this.channels) {
                 if (chan instanceof ManagedChannel) {
                   ((ManagedChannel) chan).shutdown();
                 }
@@ -646,4 +953,148 @@ public class DgraphAsyncClient {
             this.executor);
     return future;
   }
+
+  /** Configures a {@link DgraphAsyncClient}. Create instances via {@link #builder}. */
+  public static final class Builder {
+    private final DgraphGrpc.DgraphStub[] stubs;
+    private Executor executor = ForkJoinPool.commonPool();
+    private StubSelector stubSelector = StubSelector.powerOfTwoChoices();
+    private Duration ejectionTime = Duration.ofSeconds(5);
+    private ClientMetrics metrics = ClientMetrics.NOOP;
+    private ResponseListener responseListener;
+    private ConcurrencyLimit concurrencyLimit;
+    private RetryBudget retryBudget;
+    private CircuitBreaker circuitBreaker;
+    private HedgingPolicy hedging;
+    private Timeouts timeouts = Timeouts.NONE;
+    private Duration maxReadStaleness;
+
+    private Builder(DgraphGrpc.DgraphStub[] stubs) {
+      if (stubs == null || stubs.length == 0) {
+        throw new IllegalArgumentException("at least one stub is required");
+      }
+      this.stubs = stubs.clone();
+    }
+
+    /** Sets the executor used for various asynchronous tasks. Defaults to the common pool. */
+    public Builder executor(Executor executor) {
+      if (executor == null) {
+        throw new IllegalArgumentException("executor must not be null");
+      }
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Sets how the stub for each transaction and client-level request is chosen. Defaults to
+     * {@link StubSelector#powerOfTwoChoices()}.
+     */
+    public Builder stubSelector(StubSelector stubSelector) {
+      if (stubSelector == null) {
+        throw new IllegalArgumentException("stubSelector must not be null");
+      }
+      this.stubSelector = stubSelector;
+      return this;
+    }
+
+    /**
+     * Sets how long a stub is skipped by the selector after its alpha failed with a connection
+     * error or reported that it is shutting down or not ready. Defaults to 5 seconds.
+     */
+    public Builder ejectionTime(Duration ejectionTime) {
+      if (ejectionTime.isNegative()) {
+        throw new IllegalArgumentException("ejectionTime must be >= 0");
+      }
+      this.ejectionTime = ejectionTime;
+      return this;
+    }
+
+    /**
+     * Sets the receiver of request latencies, retries and errors. Defaults to {@link
+     * ClientMetrics#NOOP}.
+     */
+    public Builder metrics(ClientMetrics metrics) {
+      if (metrics == null) {
+        throw new IllegalArgumentException("metrics must not be null");
+      }
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Sets the receiver of the server-side latency, round trip and sizes of every query, mutation
+     * and DQL response. There is none by default.
+     */
+    public Builder responseListener(ResponseListener responseListener) {
+      this.responseListener = responseListener;
+      return this;
+    }
+
+    /**
+     * Limits the RPCs in flight per stub to an adaptive limit that shrinks when alphas report
+     * overload and grows while they keep up, queueing or failing the calls beyond it. There is no
+     * limit by default.
+     */
+    public Builder concurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+      this.concurrencyLimit = concurrencyLimit;
+      return this;
+    }
+
+    /**
+     * Caps the retries of all {@code withRetry} calls at a fraction of the successful attempts.
+     * There is no budget by default.
+     */
+    public Builder retryBudget(RetryBudget retryBudget) {
+      this.retryBudget = retryBudget;
+      return this;
+    }
+
+    /**
+     * Keeps a circuit breaker per stub that stops {@code withRetry} from sending attempts to an
+     * alpha after repeated connection or overload errors. There is none by default.
+     */
+    public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+      return this;
+    }
+
+    /**
+     * Sends a query of a read-only transaction again to another stub when it is slower than most
+     * recent ones, and uses whichever response arrives first. There is no hedging by default.
+     */
+    public Builder hedging(HedgingPolicy hedging) {
+      this.hedging = hedging;
+      return this;
+    }
+
+    /**
+     * Sets the default deadline of each kind of request, and the time budget of {@code withRetry}
+     * calls. Defaults to {@link Timeouts#NONE}.
+     */
+    public Builder timeouts(Timeouts timeouts) {
+      if (timeouts == null) {
+        throw new IllegalArgumentException("timeouts must not be null");
+      }
+      this.timeouts = timeouts;
+      return this;
+    }
+
+    /**
+     * Lets {@link #newReadOnlyTransaction()} read at the start timestamp of a read-only transaction
+     * created up to {@code maxReadStaleness} ago, instead of having the alpha assign one to every
+     * transaction. Such reads skip timestamp assignment, but may miss commits of the last {@code
+     * maxReadStaleness}. Every read-only transaction reads at a fresh timestamp by default.
+     */
+    public Builder maxReadStaleness(Duration maxReadStaleness) {
+      if (maxReadStaleness.isNegative() || maxReadStaleness.isZero()) {
+        throw new IllegalArgumentException("maxReadStaleness must be > 0");
+      }
+      this.maxReadStaleness = maxReadStaleness;
+      return this;
+    }
+
+    public DgraphAsyncClient build() {
+      return new DgraphAsyncClient(this);
+    }
+  }
 }
@@ -8,6 +8,7 @@ package io.dgraph;
 import io.dgraph.DgraphProto.Operation;
 import io.dgraph.DgraphProto.TxnContext;
 import io.dgraph.DgraphProto.Version;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.Metadata;
 import io.grpc.netty.NettyChannelBuilder;
@@ -17,9 +18,14 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.grpc.stub.MetadataUtils;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.concurrent.Executor;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -42,6 +48,7 @@ public class DgraphClient {
   private static final String SSLMODE_DISABLE = "disable";
   private static final String SSLMODE_REQUIRE = "require";
   private static final String SSLMODE_VERIFY_CA = "verify-ca";
+  private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)(ms|s|m|h)");
 
   private final DgraphAsyncClient asyncClient;
 
@@ -61,6 +68,7 @@ public class DgraphClient {
     private String username;
     private String password;
     private String authorizationToken;
+    private Timeouts timeouts = Timeouts.NONE;
     private final String host;
     private final int port;
 
@@ -118,6 +126,21 @@ public class DgraphClient {
       return this;
     }
 
+    /**
+     * Sets the default deadline of each kind of request, and the time budget of {@code withRetry}
+     * calls.
+     *
+     * @param timeouts The timeouts to use.
+     * @return This ClientOptions instance for chaining.
+     */
+    public ClientOptions withTimeouts(Timeouts timeouts) {
+      if (timeouts == null) {
+        throw new IllegalArgumentException("timeouts must not be null");
+      }
+      this.timeouts = timeouts;
+      return this;
+    }
+
     /**
      * Configures the client to use plaintext communication (no encryption).
      *
@@ -156,6 +179,7 @@ public class DgraphClient {
       newOptions.username = this.username;
       newOptions.password = this.password;
       newOptions.authorizationToken = this.authorizationToken;
+      newOptions.timeouts = this.timeouts;
       return newOptions;
     }
 
@@ -193,7 +217,8 @@ public class DgraphClient {
         stub = stub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata));
       }
 
-      DgraphClient client = new DgraphClient(stub);
+      DgraphClient client =
+          new DgraphClient(DgraphAsyncClient.builder(stub).timeouts(timeouts).build());
 
       if (username != null && password != null) {
         client.login(username, password);
@@ -249,7 +274,12 @@ public class DgraphClient {
    *   </li>
    *   <li>apikey - API key for authorization</li>
    *   <li>bearertoken - Bearer token for authorization</li>
+   *   <li>timeout - Default deadline of every request, e.g. "30s" (see {@link Timeouts})</li>
+   *   <li>querytimeout, mutatetimeout, committimeout, altertimeout, rundqltimeout,
+   *     logintimeout, admintimeout - Deadline of one kind of request, overriding timeout</li>
+   *   <li>retrytimeout - Time budget of a withRetry call across all of its attempts</li>
    * </ul>
+   * <p>Durations are a number followed by ms, s, m or h.</p>
    *
    * @param connectionString The connection string to connect to Dgraph
    * @return A new DgraphClient instance
@@ -330,9 +360,74 @@ public class DgraphClient {
       options.withBearerToken(params.get("bearertoken"));
     }
 
+    options.withTimeouts(parseTimeouts(params));
+
     return options.build();
   }
 
+  /**
+   * Builds the timeouts of a connection string from its timeout parameters.
+   *
+   * @param params The query parameters of the connection string
+   * @return The timeouts, which are {@link Timeouts#NONE} if there are no timeout parameters
+   * @throws IllegalArgumentException If a timeout is not a valid duration
+   */
+  private static Timeouts parseTimeouts(Map<String, String> params) {
+    Timeouts.Builder builder = Timeouts.builder();
+    if (params.containsKey("timeout")) {
+      builder.all(parseDuration("timeout", params.get("timeout")));
+    }
+    if (params.containsKey("querytimeout")) {
+      builder.query(parseDuration("querytimeout", params.get("querytimeout")));
+    }
+    if (params.containsKey("mutatetimeout")) {
+      builder.mutate(parseDuration("mutatetimeout", params.get("mutatetimeout")));
+    }
+    if (params.containsKey("committimeout")) {
+      builder.commit(parseDuration("committimeout", params.get("committimeout")));
+    }
+    if (params.containsKey("altertimeout")) {
+      builder.alter(parseDuration("altertimeout", params.get("altertimeout")));
+    }
+    if (params.containsKey("rundqltimeout")) {
+      builder.runDQL(parseDuration("rundqltimeout", params.get("rundqltimeout")));
+    }
+    if (params.containsKey("logintimeout")) {
+      builder.login(parseDuration("logintimeout", params.get("logintimeout")));
+    }
+    if (params.containsKey("admintimeout")) {
+      builder.admin(parseDuration("admintimeout", params.get("admintimeout")));
+    }
+    if (params.containsKey("retrytimeout")) {
+      builder.retry(parseDuration("retrytimeout", params.get("retrytimeout")));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Parses a duration such as "500ms", "30s", "5m" or "1h".
+   *
+   * @throws IllegalArgumentException If the value is not a non-negative number with a unit
+   */
+  static Duration parseDuration(String name, String value) {
+    Matcher matcher = DURATION_PATTERN.matcher(value.trim());
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException(
+          "Invalid " + name + ": " + value + " (expected e.g. 500ms, 30s, 5m or 1h)");
+    }
+    long amount = Long.parseLong(matcher.group(1));
+    switch (matcher.group(2)) {
+      case "ms":
+        return Duration.ofMillis(amount);
+      case "s":
+        return Duration.ofSeconds(amount);
+      case "m":
+        return Duration.ofMinutes(amount);
+      default:
+        return Duration.ofHours(amount);
+    }
+  }
+
   /**
    * Creates a gRPC stub to connect with Dgraph Cloud.
    *
@@ -372,8 +467,8 @@ public class DgraphClient {
    *
    * <p>A single client is thread safe.
    *
-   * @param stubs - an array of grpc stubs to be used by this client. The stubs to be used are
-   *     chosen at random per transaction.
+   * @param stubs - an array of grpc stubs to be used by this client. The stub used for each
+   *     transaction is chosen by {@link StubSelector#powerOfTwoChoices()}.
    */
   public DgraphClient(DgraphGrpc.DgraphStub... stubs) {
     this.asyncClient = new DgraphAsyncClient(stubs);
@@ -386,13 +481,23 @@ public class DgraphClient {
    *
    * @param executor - the executor to use for various asynchronous tasks executed by the underlying
    *     asynchronous client.
-   * @param stubs - an array of grpc stubs to be used by this client. The stubs to be used are
-   *     chosen at random per transaction.
+   * @param stubs - an array of grpc stubs to be used by this client. The stub used for each
+   *     transaction is chosen by {@link StubSelector#powerOfTwoChoices()}.
    */
   public DgraphClient(Executor executor, DgraphGrpc.DgraphStub... stubs) {
     this.asyncClient = new DgraphAsyncClient(executor, stubs);
   }
 
+  /**
+   * Creates a new synchronous client on top of an asynchronous one, e.g. one configured through
+   * {@link DgraphAsyncClient#builder}.
+   *
+   * @param asyncClient - the asynchronous client that requests are delegated to.
+   */
+  public DgraphClient(DgraphAsyncClient asyncClient) {
+    this.asyncClient = asyncClient;
+  }
+
   /**
    * Creates a new Transaction object. All operations performed by this transaction are synchronous.
    *
@@ -686,7 +791,9 @@ public class DgraphClient {
    * failures, using {@link RetryPolicy#DEFAULT}.
    *
    * <p>A fresh transaction is created for each attempt. The transaction is always discarded after
-   * the operation completes or fails.
+   * the operation completes or fails. Attempts after a {@link ConnectionException}, {@link
+   * AlphaShutdownException} or {@link AlphaNotReadyException} are sent to a different alpha while
+   * one is left.
    *
    * <pre>{@code
    * Response resp = client.withRetry(txn -> {
@@ -719,28 +826,46 @@ public class DgraphClient {
    */
   public <T> T withRetry(RetryPolicy policy, TransactionOp<T> op) {
     DgraphException lastError = null;
+    Set<Integer> excludedStubs = new HashSet<>();
+    Deadline deadline = asyncClient.retryDeadline();
     for (int attempt = 0; attempt <= policy.getMaxRetries(); attempt++) {
-      Transaction txn = policy.isReadOnly() ? newReadOnlyTransaction() : newTransaction();
+      AsyncTransaction asyncTxn =
+          asyncClient
+              .newTransaction(policy.isReadOnly(), excludedStubs)
+              .withAttemptDeadline(deadline);
+      Transaction txn = new Transaction(asyncTxn);
       if (policy.isBestEffort()) {
         txn.setBestEffort(true);
       }
+      // reported in finally, so that an attempt sent as the probe of a half-open circuit always
+      // ends the probe
+      DgraphException attemptError = null;
       try {
-        T result = op.execute(txn);
-        return result;
+        return op.execute(txn);
       } catch (DgraphException e) {
         lastError = e;
-        if (!e.isRetryable() || attempt >= policy.getMaxRetries()) {
+        attemptError = e;
+        long delayMs = policy.calculateDelay(attempt);
+        if (!e.isRetryable()
+            || attempt >= policy.getMaxRetries()
+            || CompletableFutures.expiresWithin(deadline, delayMs)
+            || !asyncClient.allowRetry(attempt, e)) {
           throw e;
         }
+        if (Exceptions.isAlphaUnavailable(e)) {
+          excludedStubs.add(asyncTxn.getStubIndex());
+        }
         try {
-          Thread.sleep(policy.calculateDelay(attempt));
+          Thread.sleep(delayMs);
         } catch (InterruptedException ie) {
           Thread.currentThread().interrupt();
           throw new DgraphException("Retry interrupted", ie);
         }
       } catch (Exception e) {
-        throw Exceptions.translate(e);
+        attemptError = Exceptions.translate(e);
+        throw attemptError;
       } finally {
+        asyncClient.onAttemptEnd(asyncTxn.getStubIndex(), attemptError);
         try {
           txn.discard();
         } catch (Exception ignored) {
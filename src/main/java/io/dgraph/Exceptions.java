@@ -159,4 +159,41 @@ public class Exceptions {
     return isExpired
         && (code.equals(Status.Code.UNAUTHENTICATED) || code.equals(Status.Code.UNKNOWN));
   }
+
+  /**
+   * Returns whether the error means that the alpha which served the request cannot currently serve
+   * any request, so that it is worth sending the next attempt to a different alpha.
+   */
+  static boolean isAlphaUnavailable(Throwable e) {
+    return e instanceof ConnectionException
+        || e instanceof AlphaShutdownException
+        || e instanceof AlphaNotReadyException;
+  }
+
+  /**
+   * Returns whether the alpha itself was unavailable or overloaded. Unlike {@link #isOverloaded},
+   * this leaves out the failures that this client raises on its own: an expired deadline, which is
+   * set by the caller, and a rejection by the client-side concurrency limit.
+   */
+  static boolean isAlphaFailure(Throwable e) {
+    if (isAlphaUnavailable(e) || e instanceof AlphaOverloadedException) {
+      return true;
+    }
+    if (!(e instanceof ResourceExhaustedException)) {
+      return false;
+    }
+    String description = ((ResourceExhaustedException) e).getStatus().getDescription();
+    return description == null
+        || !description.startsWith(ConcurrencyLimitInterceptor.REJECTED_DESCRIPTION);
+  }
+
+  /**
+   * Returns whether the error means that the alpha could not keep up with the requests sent to it,
+   * so that fewer requests should be in flight.
+   */
+  static boolean isOverloaded(Throwable e) {
+    return e instanceof AlphaOverloadedException
+        || e instanceof ResourceExhaustedException
+        || e instanceof DeadlineExceededException;
+  }
 }
@@ -0,0 +1,229 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphGrpc.DgraphStub;
+import io.dgraph.DgraphProto.Request;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the queries of read-only transactions with a hedge, as configured by a {@link
+ * HedgingPolicy}. One instance is shared by all transactions of a client.
+ *
+ * <p>Both the hedge delay and the hedge budget follow the recent queries only. The delay is the
+ * percentile of a window of the latest latencies, which is replaced once it holds 1024 of them.
+ * Hedges are paid for with tokens, of which every query earns {@code maxHedgeRatio} up to a burst
+ * of 10, so that a long quiet period does not save up hedges for the next slowdown.
+ */
+final class Hedger {
+  // the hedge delay is recomputed from the window after this many new samples
+  private static final long REFRESH_SAMPLES = 64;
+  private static final long WINDOW_SAMPLES = 1024;
+  private static final long MAX_HEDGE_TOKENS = 10;
+  // tokens are counted in millionths, so that a whole number of earned ratios adds up exactly
+  private static final long TOKEN = 1_000_000;
+
+  private final DgraphAsyncClient client;
+  private final HedgingPolicy policy;
+  private final long minDelayNanos;
+  private final long windowSamples;
+  private final long tokensPerQuery;
+  private final AtomicLong hedgeTokens = new AtomicLong();
+
+  private volatile LatencyHistogram window = new LatencyHistogram();
+  private volatile long delayNanos = -1;
+  private volatile long delaySamples;
+
+  Hedger(DgraphAsyncClient client, HedgingPolicy policy) {
+    this.client = client;
+    this.policy = policy;
+    this.minDelayNanos = policy.getMinDelay().toNanos();
+    this.windowSamples = Math.max(WINDOW_SAMPLES, policy.getMinSamples());
+    this.tokensPerQuery = Math.round(policy.getMaxHedgeRatio() * TOKEN);
+  }
+
+  /**
+   * Calls {@code rpc} on {@code stub}, and again on another stub if no response has arrived after
+   * the hedge delay. The first response is passed to {@code observer}; an error is only passed on
+   * once every call has failed.
+   */
+  <T> void call(
+      AsyncTransaction.Rpc<T> rpc,
+      int stubIndex,
+      DgraphStub stub,
+      Request request,
+      StreamObserver<T> observer) {
+    hedgeTokens.accumulateAndGet(
+        tokensPerQuery, (tokens, earned) -> Math.min(MAX_HEDGE_TOKENS * TOKEN, tokens + earned));
+    HedgedCall<T> call = new HedgedCall<>(rpc, request, observer);
+    call.start(stub);
+
+    long delay = hedgeDelayNanos();
+    if (delay < 0 || client.getStubCount() < 2) {
+      return;
+    }
+    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, client.getExecutor())
+        .execute(
+            () -> {
+              if (call.isDone() || !tryTakeHedge()) {
+                return;
+              }
+              int hedgeIndex = client.selectStub(Collections.singleton(stubIndex));
+              DgraphStub hedgeStub = client.getStub(hedgeIndex);
+              Deadline deadline = stub.getCallOptions().getDeadline();
+              if (deadline != null) {
+                hedgeStub = hedgeStub.withDeadline(deadline);
+              }
+              if (call.start(hedgeStub)) {
+                client.getMetrics().onHedge(hedgeIndex);
+              }
+            });
+  }
+
+  /**
+   * Returns the delay after which a query is hedged, or -1 while there are too few samples. Until
+   * a new window holds enough samples, the delay of the previous one stays in use.
+   */
+  long hedgeDelayNanos() {
+    LatencyHistogram current = window;
+    long samples = current.getCount();
+    if (samples >= policy.getMinSamples()
+        && (delayNanos < 0 || samples - delaySamples >= REFRESH_SAMPLES)) {
+      delaySamples = samples;
+      delayNanos = Math.max(minDelayNanos, current.getValueAtPercentile(policy.getPercentile()));
+    }
+    return delayNanos;
+  }
+
+  /** Records the latency of a query, starting a new window once the current one is full. */
+  void record(long nanos) {
+    LatencyHistogram current = window;
+    current.record(nanos);
+    if (current.getCount() >= windowSamples) {
+      synchronized (this) {
+        if (window == current) {
+          window = new LatencyHistogram();
+          delaySamples = 0;
+        }
+      }
+    }
+  }
+
+  /** Takes the token of one hedge, if there is one. */
+  private boolean tryTakeHedge() {
+    while (true) {
+      long tokens = hedgeTokens.get();
+      if (tokens < TOKEN) {
+        return false;
+      }
+      if (hedgeTokens.compareAndSet(tokens, tokens - TOKEN)) {
+        return true;
+      }
+    }
+  }
+
+  /** The calls sent for one query; the first to complete wins and cancels the others. */
+  private final class HedgedCall<T> {
+    private final AsyncTransaction.Rpc<T> rpc;
+    private final Request request;
+    private final StreamObserver<T> observer;
+    private final long startNanos = System.nanoTime();
+    // the hedge is started on a timer thread, but must be cancelled with the query
+    private final Context parent = Context.current();
+
+    // guarded by this
+    private final List<Context.CancellableContext> contexts = new ArrayList<>(2);
+    private int failed;
+    private Throwable firstError;
+    private boolean done;
+
+    HedgedCall(AsyncTransaction.Rpc<T> rpc, Request request, StreamObserver<T> observer) {
+      this.rpc = rpc;
+      this.request = request;
+      this.observer = observer;
+    }
+
+    synchronized boolean isDone() {
+      return done;
+    }
+
+    /** Sends the request on {@code stub}, unless the query is already done. */
+    boolean start(DgraphStub stub) {
+      Context.CancellableContext context = parent.withCancellation();
+      synchronized (this) {
+        if (done) {
+          return false;
+        }
+        contexts.add(context);
+      }
+      // the call is bound to the context it is started in, and is cancelled with it
+      context.run(() -> rpc.call(stub, request, new CallObserver()));
+      return true;
+    }
+
+    private void onWin(T result) {
+      List<Context.CancellableContext> toCancel;
+      synchronized (this) {
+        if (done) {
+          rpc.release(result);
+          return;
+        }
+        done = true;
+        toCancel = new ArrayList<>(contexts);
+      }
+      record(System.nanoTime() - startNanos);
+      toCancel.forEach(context -> context.cancel(null));
+      observer.onNext(result);
+      observer.onCompleted();
+    }
+
+    private void onFailure(Throwable error) {
+      List<Context.CancellableContext> toCancel;
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        if (firstError == null) {
+          firstError = error;
+        }
+        if (++failed < contexts.size()) {
+          return;
+        }
+        done = true;
+        toCancel = new ArrayList<>(contexts);
+      }
+      toCancel.forEach(context -> context.cancel(null));
+      observer.onError(firstError);
+    }
+
+    private final class CallObserver implements StreamObserver<T> {
+      private T result;
+
+      @Override
+      public void onNext(T value) {
+        result = value;
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        onFailure(t);
+      }
+
+      @Override
+      public void onCompleted() {
+        onWin(result);
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.time.Duration;
+
+/**
+ * Configures hedged queries: a query of a read-only transaction that has not completed after the
+ * {@code percentile} latency of recent read-only queries is sent again to another stub, and the
+ * first response wins while the other call is cancelled. Immutable — create instances via {@link
+ * #builder()} and install them with {@link DgraphAsyncClient.Builder#hedging}.
+ *
+ * <p>Hedging trades duplicate work on the alphas for a shorter tail latency. To bound that work,
+ * at most {@code maxHedgeRatio} of the recent read-only queries are hedged, plus a burst of 10, and
+ * none are until the client has measured {@code minSamples} queries. The percentile is taken over
+ * the latest queries, and the hedge delay is never shorter than {@code minDelay}.
+ *
+ * <pre>{@code
+ * HedgingPolicy.DEFAULT                                              // p95, at most 5% of queries
+ * HedgingPolicy.builder().percentile(99).maxHedgeRatio(0.01).build() // p99, at most 1%
+ * }</pre>
+ */
+public final class HedgingPolicy {
+
+  /** Hedges after the 95th percentile latency, at most 5% of read-only queries. */
+  public static final HedgingPolicy DEFAULT = builder().build();
+
+  private final double percentile;
+  private final Duration minDelay;
+  private final double maxHedgeRatio;
+  private final int minSamples;
+
+  private HedgingPolicy(Builder builder) {
+    this.percentile = builder.percentile;
+    this.minDelay = builder.minDelay;
+    this.maxHedgeRatio = builder.maxHedgeRatio;
+    this.minSamples = builder.minSamples;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public double getMaxHedgeRatio() {
+    return maxHedgeRatio;
+  }
+
+  public int getMinSamples() {
+    return minSamples;
+  }
+
+  public static final class Builder {
+    private double percentile = 95;
+    private Duration minDelay = Duration.ofMillis(1);
+    private double maxHedgeRatio = 0.05;
+    private int minSamples = 100;
+
+    private Builder() {}
+
+    public Builder percentile(double percentile) {
+      if (percentile <= 0 || percentile >= 100) {
+        throw new IllegalArgumentException("percentile must be > 0 and < 100");
+      }
+      this.percentile = percentile;
+      return this;
+    }
+
+    public Builder minDelay(Duration minDelay) {
+      if (minDelay.isNegative()) {
+        throw new IllegalArgumentException("minDelay must be >= 0");
+      }
+      this.minDelay = minDelay;
+      return this;
+    }
+
+    public Builder maxHedgeRatio(double maxHedgeRatio) {
+      if (maxHedgeRatio <= 0 || maxHedgeRatio > 1) {
+        throw new IllegalArgumentException("maxHedgeRatio must be > 0 and <= 1");
+      }
+      this.maxHedgeRatio = maxHedgeRatio;
+      return this;
+    }
+
+    public Builder minSamples(int minSamples) {
+      if (minSamples < 1) {
+        throw new IllegalArgumentException("minSamples must be >= 1");
+      }
+      this.minSamples = minSamples;
+      return this;
+    }
+
+    public HedgingPolicy build() {
+      return new HedgingPolicy(this);
+    }
+  }
+}
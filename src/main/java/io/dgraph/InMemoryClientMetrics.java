@@ -0,0 +1,168 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ClientMetrics} that keeps a latency histogram, an in-flight gauge and error counters
+ * per operation in memory, for tests, benchmarks and periodic export to a metrics system.
+ *
+ * <pre>{@code
+ * InMemoryClientMetrics metrics = new InMemoryClientMetrics();
+ * DgraphAsyncClient client = DgraphAsyncClient.builder(stub).metrics(metrics).build();
+ * ...
+ * System.out.println(metrics.getOperation("query").getLatency());
+ * }</pre>
+ */
+public final class InMemoryClientMetrics implements ClientMetrics {
+  private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+  private final LongAdder retries = new LongAdder();
+  private final Map<String, LongAdder> retriesByError = new ConcurrentHashMap<>();
+  private final LongAdder jwtRefreshes = new LongAdder();
+  private final LongAdder retryBudgetExhaustions = new LongAdder();
+  private final LongAdder circuitOpenings = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+
+  @Override
+  public void onRequestStart(String operation) {
+    getOperation(operation).inFlight.incrementAndGet();
+  }
+
+  @Override
+  public void onRequestEnd(String operation, long latencyNanos, DgraphException error) {
+    Operation stats = getOperation(operation);
+    stats.inFlight.decrementAndGet();
+    stats.latency.record(latencyNanos);
+    if (error != null) {
+      increment(stats.errors, error);
+    }
+  }
+
+  @Override
+  public void onRetry(int attempt, DgraphException error) {
+    retries.increment();
+    increment(retriesByError, error);
+  }
+
+  @Override
+  public void onJwtRefresh() {
+    jwtRefreshes.increment();
+  }
+
+  @Override
+  public void onRetryBudgetExhausted(DgraphException error) {
+    retryBudgetExhaustions.increment();
+  }
+
+  @Override
+  public void onCircuitOpened(int stubIndex) {
+    circuitOpenings.increment();
+  }
+
+  @Override
+  public void onHedge(int stubIndex) {
+    hedges.increment();
+  }
+
+  /** Returns the statistics of an operation, which are empty if it was never called. */
+  public Operation getOperation(String operation) {
+    return operations.computeIfAbsent(operation, ignored -> new Operation());
+  }
+
+  /** Returns the statistics of every operation called so far, by operation name. */
+  public Map<String, Operation> getOperations() {
+    return Collections.unmodifiableMap(operations);
+  }
+
+  /** Returns the number of attempts {@code withRetry} repeated. */
+  public long getRetryCount() {
+    return retries.sum();
+  }
+
+  /** Returns the number of repeated attempts by the simple class name of the error. */
+  public Map<String, Long> getRetryCounts() {
+    return snapshot(retriesByError);
+  }
+
+  /** Returns the number of access JWT refreshes. */
+  public long getJwtRefreshCount() {
+    return jwtRefreshes.sum();
+  }
+
+  /** Returns the number of retryable errors not retried because the retry budget was empty. */
+  public long getRetryBudgetExhaustedCount() {
+    return retryBudgetExhaustions.sum();
+  }
+
+  /** Returns the number of times the circuit of a stub opened. */
+  public long getCircuitOpenedCount() {
+    return circuitOpenings.sum();
+  }
+
+  /** Returns the number of queries that were sent to a second stub by hedging. */
+  public long getHedgeCount() {
+    return hedges.sum();
+  }
+
+  private static void increment(Map<String, LongAdder> counters, DgraphException error) {
+    counters
+        .computeIfAbsent(error.getClass().getSimpleName(), ignored -> new LongAdder())
+        .increment();
+  }
+
+  private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+    Map<String, Long> result = new HashMap<>();
+    counters.forEach((name, counter) -> result.put(name, counter.sum()));
+    return Collections.unmodifiableMap(result);
+  }
+
+  /** The statistics of one operation. */
+  public static final class Operation {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private Operation() {}
+
+    /** Returns the latency of completed requests, successful or not. */
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    /** Returns the number of requests sent but not yet completed. */
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    /** Returns the number of failed requests. */
+    public long getErrorCount() {
+      long total = 0;
+      for (LongAdder counter : errors.values()) {
+        total += counter.sum();
+      }
+      return total;
+    }
+
+    /**
+     * Returns the number of failed requests by the simple class name of the error, e.g. {@code
+     * TxnConflictException}.
+     */
+    public Map<String, Long> getErrorCounts() {
+      return snapshot(errors);
+    }
+
+    @Override
+    public String toString() {
+      return latency + " inFlight=" + getInFlight() + " errors=" + getErrorCounts();
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.dgraph.DgraphProto.Jwt;
+import io.dgraph.DgraphProto.LoginRequest;
+import io.dgraph.DgraphProto.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns the JWT pair of a {@link DgraphAsyncClient}. The access JWT is refreshed ahead of the
+ * expiry encoded in its {@code exp} claim, and concurrent refreshes are coalesced into a single
+ * in-flight Login call that requests can wait on instead of failing with an expired token.
+ */
+final class JwtManager {
+  private static final Logger LOG = LoggerFactory.getLogger(JwtManager.class);
+  private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+  private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+  // treat the token as expired slightly early to absorb clock skew and network delay
+  static final long EXPIRY_SKEW_MILLIS = 500;
+
+  private final AccessJwtInterceptor interceptor;
+  private final Function<LoginRequest, CompletableFuture<Response>> loginCall;
+  private final Executor executor;
+  private final AtomicReference<CompletableFuture<Void>> inflightRefresh = new AtomicReference<>();
+
+  private volatile Jwt jwt;
+  // local time after which the access JWT is no longer used, or 0 if its expiry is unknown
+  private volatile long validUntilMillis;
+  private volatile boolean closed;
+
+  JwtManager(
+      AccessJwtInterceptor interceptor,
+      Function<LoginRequest, CompletableFuture<Response>> loginCall,
+      Executor executor) {
+    this.interceptor = interceptor;
+    this.loginCall = loginCall;
+    this.executor = executor;
+  }
+
+  /** Logs in with the given credentials and replaces the current JWT pair on success. */
+  CompletableFuture<Void> login(LoginRequest request) {
+    return loginCall
+        .apply(request)
+        .thenAccept(
+            response -> {
+              try {
+                update(Jwt.parseFrom(response.getJson()));
+              } catch (InvalidProtocolBufferException e) {
+                String errmsg = "error while parsing jwt from the response: ";
+                LOG.error(errmsg, e);
+                throw new AuthException(errmsg, e);
+              }
+            });
+  }
+
+  /**
+   * Exchanges the refresh JWT for a new JWT pair. If a refresh is already in flight, its future is
+   * returned instead of sending another Login request.
+   */
+  CompletableFuture<Void> refresh() {
+    while (true) {
+      CompletableFuture<Void> current = inflightRefresh.get();
+      if (current != null) {
+        return current;
+      }
+      CompletableFuture<Void> next = new CompletableFuture<>();
+      if (inflightRefresh.compareAndSet(null, next)) {
+        startRefresh(next);
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Returns a future that completes once the access JWT can be used. This is an already completed
+   * future unless the token has expired, in which case it is the single in-flight refresh.
+   */
+  CompletableFuture<Void> awaitValid() {
+    long validUntil = validUntilMillis;
+    if (validUntil == 0 || System.currentTimeMillis() < validUntil) {
+      return READY;
+    }
+    return refresh();
+  }
+
+  /** Stops scheduling proactive refreshes. */
+  void close() {
+    closed = true;
+  }
+
+  private void startRefresh(CompletableFuture<Void> result) {
+    Jwt current = jwt;
+    if (current == null || current.getRefreshJwt().isEmpty()) {
+      inflightRefresh.set(null);
+      result.completeExceptionally(new AuthException("refresh JWT should not be empty", null));
+      return;
+    }
+
+    LoginRequest request =
+        LoginRequest.newBuilder().setRefreshToken(current.getRefreshJwt()).build();
+    CompletableFuture<Response> call;
+    try {
+      call = loginCall.apply(request);
+    } catch (RuntimeException e) {
+      call = CompletableFuture.failedFuture(e);
+    }
+    call.whenComplete(
+        (response, throwable) -> {
+          // clear before completing, so callers woken by the result start a fresh refresh if needed
+          inflightRefresh.set(null);
+          if (throwable != null) {
+            LOG.warn("refreshing the access JWT failed: ", throwable);
+            result.completeExceptionally(Exceptions.translate(throwable));
+            return;
+          }
+          try {
+            update(Jwt.parseFrom(response.getJson()));
+            result.complete(null);
+          } catch (InvalidProtocolBufferException e) {
+            LOG.error("error while parsing jwt from the response: ", e);
+            result.completeExceptionally(
+                new AuthException("error while parsing jwt from the response", e));
+          }
+        });
+  }
+
+  private void update(Jwt newJwt) {
+    long expiresAt = expiryMillis(newJwt.getAccessJwt());
+    long validUntil = expiresAt == 0 ? 0 : expiresAt - EXPIRY_SKEW_MILLIS;
+
+    this.jwt = newJwt;
+    this.validUntilMillis = validUntil;
+    interceptor.setAccessJwt(newJwt.getAccessJwt());
+
+    if (validUntil > 0) {
+      scheduleRefresh(newJwt, validUntil);
+    }
+  }
+
+  private void scheduleRefresh(Jwt scheduledFor, long validUntil) {
+    long remaining = validUntil - System.currentTimeMillis();
+    // refresh once three quarters of the remaining lifetime have elapsed
+    long delay = Math.max(0, remaining - remaining / 4);
+    Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor);
+    delayed.execute(
+        () -> {
+          // skip if the client was shut down or the token was replaced in the meantime
+          if (!closed && jwt == scheduledFor) {
+            refresh();
+          }
+        });
+  }
+
+  /**
+   * Extracts the {@code exp} claim of a JWT as epoch milliseconds.
+   *
+   * @return the expiry time, or 0 if the token has no readable {@code exp} claim
+   */
+  static long expiryMillis(String token) {
+    if (token == null) {
+      return 0;
+    }
+    int first = token.indexOf('.');
+    int second = token.indexOf('.', first + 1);
+    if (first < 0 || second < 0) {
+      return 0;
+    }
+    try {
+      byte[] payload = Base64.getUrlDecoder().decode(token.substring(first + 1, second));
+      Matcher matcher = EXP_CLAIM.matcher(new String(payload, StandardCharsets.UTF_8));
+      if (!matcher.find()) {
+        return 0;
+      }
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(1)));
+    } catch (IllegalArgumentException e) {
+      // not base64url, or exp out of range
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, for percentiles of request latency.
+ *
+ * <p>Values are counted in log-linear buckets: every power of two is split into 8 buckets, so a
+ * reported percentile is at most 12.5% above the recorded value it stands for. The histogram
+ * covers every non-negative {@code long} in 488 buckets and never allocates after construction.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Records a duration. Negative durations are recorded as 0. */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /** Returns the number of recorded durations. */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** Returns the mean of the recorded durations, or 0 if there are none. */
+  public long getMeanNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : sum.sum() / n;
+  }
+
+  /** Returns the largest recorded duration, or 0 if there are none. */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Returns an upper bound of the duration below which the given percentage of the recorded
+   * durations fall, or 0 if there are none.
+   *
+   * @param percentile a percentage between 0 and 100, e.g. 99.9
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+        getCount(),
+        millis(getMeanNanos()),
+        millis(getValueAtPercentile(50)),
+        millis(getValueAtPercentile(99)),
+        millis(getMaxNanos()));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    if (mantissa == 2 * SUB_BUCKETS - 1 && exponent == 62) {
+      return Long.MAX_VALUE;
+    }
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
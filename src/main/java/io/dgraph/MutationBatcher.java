@@ -0,0 +1,414 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces small mutations into multi-mutation requests that are committed with {@code
+ * commit_now}. Create instances via {@link #builder(DgraphAsyncClient)}.
+ *
+ * <p>A batch is sent once it holds {@code maxBatchMutations} mutations or {@code maxBatchBytes}
+ * bytes, or {@code linger} after its first mutation was added, whichever comes first. Each batch is
+ * committed atomically, so the mutations of one caller succeed or fail together with the others in
+ * its batch. Retryable failures are retried with the configured {@link RetryPolicy}.
+ *
+ * <p>Blank nodes are renamed per mutation before batching, so that {@code _:alice} in two different
+ * mutations stays two different nodes. The future returned by {@link #add} completes with the uids
+ * assigned to the caller's own blank nodes, keyed by their original names.
+ *
+ * <p>At most {@code maxPendingBytes} of mutations are buffered or in flight; {@link #add} blocks
+ * until earlier batches complete once that limit is reached.
+ *
+ * <p>Only mutations in N-Quad form ({@code set_nquads}, {@code del_nquads}, {@code set}, {@code
+ * del}) without a condition can be batched.
+ *
+ * <pre>{@code
+ * try (MutationBatcher batcher = MutationBatcher.builder(client).build()) {
+ *   CompletableFuture<Map<String, String>> uids = batcher.add(mutation);
+ * }
+ * }</pre>
+ */
+public final class MutationBatcher implements AutoCloseable {
+  private final DgraphAsyncClient client;
+  private final int maxBatchMutations;
+  private final long maxBatchBytes;
+  private final Duration linger;
+  private final int maxPendingBytes;
+  private final RetryPolicy retryPolicy;
+
+  private final Semaphore pendingBytes;
+  private final AtomicLong sequence = new AtomicLong();
+  private final Set<CompletableFuture<Void>> inflight = ConcurrentHashMap.newKeySet();
+
+  // guarded by this
+  private List<Entry> batch = new ArrayList<>();
+  private long batchBytes;
+  private long batchGeneration;
+  private boolean closed;
+
+  private MutationBatcher(Builder builder) {
+    this.client = builder.client;
+    this.maxBatchMutations = builder.maxBatchMutations;
+    this.maxBatchBytes = builder.maxBatchBytes;
+    this.linger = builder.linger;
+    this.maxPendingBytes = builder.maxPendingBytes;
+    this.retryPolicy = builder.retryPolicy;
+    // fair, so that a large mutation is not starved by a stream of small ones
+    this.pendingBytes = new Semaphore(maxPendingBytes, true);
+  }
+
+  public static Builder builder(DgraphAsyncClient client) {
+    return new Builder(client);
+  }
+
+  /**
+   * Adds a mutation to the current batch. Blocks while {@code maxPendingBytes} of earlier
+   * mutations are still buffered or in flight.
+   *
+   * @param mutation a mutation in N-Quad form; {@code commit_now} is ignored, every batch is
+   *     committed
+   * @return a future that completes with the uids assigned to the blank nodes of this mutation,
+   *     keyed by blank node name without the {@code _:} prefix, once its batch is committed
+   * @throws IllegalArgumentException if the mutation uses JSON or a condition, or is larger than
+   *     {@code maxPendingBytes}
+   * @throws IllegalStateException if the batcher is closed
+   */
+  public CompletableFuture<Map<String, String>> add(Mutation mutation) {
+    if (!mutation.getSetJson().isEmpty() || !mutation.getDeleteJson().isEmpty()) {
+      throw new IllegalArgumentException("JSON mutations cannot be batched, use N-Quads");
+    }
+    if (!mutation.getCond().isEmpty()) {
+      throw new IllegalArgumentException("conditional mutations cannot be batched");
+    }
+
+    String prefix = "m" + sequence.incrementAndGet() + "_";
+    Mutation renamed = renameBlankNodes(mutation, prefix);
+    int bytes = renamed.getSerializedSize();
+    if (bytes > maxPendingBytes) {
+      throw new IllegalArgumentException(
+          "mutation of " + bytes + " bytes exceeds maxPendingBytes " + maxPendingBytes);
+    }
+
+    try {
+      pendingBytes.acquire(bytes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DgraphException("interrupted while waiting for pending mutations", e);
+    }
+
+    Entry entry = new Entry(renamed, prefix, bytes);
+    List<Entry> full = null;
+    CompletableFuture<Void> done = null;
+    long scheduleGeneration = -1;
+    synchronized (this) {
+      if (closed) {
+        pendingBytes.release(bytes);
+        throw new IllegalStateException("MutationBatcher is closed");
+      }
+      if (batch.isEmpty()) {
+        scheduleGeneration = batchGeneration;
+      }
+      batch.add(entry);
+      batchBytes += bytes;
+      if (batch.size() >= maxBatchMutations || batchBytes >= maxBatchBytes) {
+        full = takeBatch();
+        done = track();
+        scheduleGeneration = -1;
+      }
+    }
+
+    if (full != null) {
+      send(full, done);
+    } else if (scheduleGeneration >= 0) {
+      scheduleLinger(scheduleGeneration);
+    }
+    return entry.future;
+  }
+
+  /**
+   * Sends the current batch without waiting for it to fill up.
+   *
+   * @return a future that completes when every batch sent so far has completed
+   */
+  public CompletableFuture<Void> flush() {
+    List<Entry> current;
+    CompletableFuture<Void> done = null;
+    synchronized (this) {
+      current = takeBatch();
+      if (!current.isEmpty()) {
+        done = track();
+      }
+    }
+    if (done != null) {
+      send(current, done);
+    }
+    return CompletableFuture.allOf(inflight.toArray(new CompletableFuture[0]));
+  }
+
+  /** Stops accepting mutations, sends the current batch and waits for all batches to complete. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    flush().join();
+  }
+
+  // must hold the lock
+  private List<Entry> takeBatch() {
+    List<Entry> current = batch;
+    batch = new ArrayList<>();
+    batchBytes = 0;
+    batchGeneration++;
+    return current;
+  }
+
+  /**
+   * Returns the future that completes when a batch taken with {@link #takeBatch} is done. Must be
+   * called without releasing the lock in between, so that a {@link #flush} always sees the batch
+   * either buffered or in flight.
+   */
+  private CompletableFuture<Void> track() {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    inflight.add(done);
+    return done;
+  }
+
+  private void scheduleLinger(long generation) {
+    Executor delayed =
+        CompletableFuture.delayedExecutor(
+            linger.toNanos(), TimeUnit.NANOSECONDS, client.getExecutor());
+    delayed.execute(
+        () -> {
+          List<Entry> current;
+          CompletableFuture<Void> done;
+          synchronized (this) {
+            // the batch was already sent because it filled up or was flushed
+            if (batchGeneration != generation || batch.isEmpty()) {
+              return;
+            }
+            current = takeBatch();
+            done = track();
+          }
+          send(current, done);
+        });
+  }
+
+  private void send(List<Entry> entries, CompletableFuture<Void> done) {
+    Request.Builder builder = Request.newBuilder().setCommitNow(true);
+    int bytes = 0;
+    for (Entry entry : entries) {
+      builder.addMutations(entry.mutation);
+      bytes += entry.bytes;
+    }
+    final Request request = builder.build();
+    final int releaseBytes = bytes;
+
+    client
+        .withRetry(retryPolicy, txn -> txn.doRequest(request))
+        .whenComplete(
+            (response, throwable) -> {
+              pendingBytes.release(releaseBytes);
+              if (throwable != null) {
+                DgraphException ex = Exceptions.translate(throwable);
+                for (Entry entry : entries) {
+                  entry.future.completeExceptionally(ex);
+                }
+              } else {
+                distributeUids(entries, response);
+              }
+              inflight.remove(done);
+              done.complete(null);
+            });
+  }
+
+  private static void distributeUids(List<Entry> entries, Response response) {
+    Map<String, Map<String, String>> byPrefix = new HashMap<>();
+    for (Map.Entry<String, String> uid : response.getUidsMap().entrySet()) {
+      String name = uid.getKey();
+      int end = name.indexOf('_');
+      if (end < 0) {
+        continue;
+      }
+      byPrefix
+          .computeIfAbsent(name.substring(0, end + 1), k -> new HashMap<>())
+          .put(name.substring(end + 1), uid.getValue());
+    }
+    for (Entry entry : entries) {
+      Map<String, String> uids = byPrefix.get(entry.prefix);
+      entry.future.complete(uids == null ? Collections.emptyMap() : uids);
+    }
+  }
+
+  /** Renames each blank node {@code _:x} of the mutation to {@code _:<prefix>x}. */
+  static Mutation renameBlankNodes(Mutation mutation, String prefix) {
+    Mutation.Builder builder = mutation.toBuilder().setCommitNow(false);
+    if (!mutation.getSetNquads().isEmpty()) {
+      builder.setSetNquads(renameBlankNodes(mutation.getSetNquads(), prefix));
+    }
+    if (!mutation.getDelNquads().isEmpty()) {
+      builder.setDelNquads(renameBlankNodes(mutation.getDelNquads(), prefix));
+    }
+    for (int i = 0; i < mutation.getSetCount(); i++) {
+      builder.setSet(i, renameBlankNodes(mutation.getSet(i), prefix));
+    }
+    for (int i = 0; i < mutation.getDelCount(); i++) {
+      builder.setDel(i, renameBlankNodes(mutation.getDel(i), prefix));
+    }
+    return builder.build();
+  }
+
+  private static NQuad renameBlankNodes(NQuad nquad, String prefix) {
+    NQuad.Builder builder = nquad.toBuilder();
+    if (nquad.getSubject().startsWith("_:")) {
+      builder.setSubject("_:" + prefix + nquad.getSubject().substring(2));
+    }
+    if (nquad.getObjectId().startsWith("_:")) {
+      builder.setObjectId("_:" + prefix + nquad.getObjectId().substring(2));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Renames the blank node labels of RDF text. IRIs, string literals and comments are copied
+   * unchanged, so a {@code _:} inside them is not mistaken for a label.
+   */
+  static ByteString renameBlankNodes(ByteString rdf, String prefix) {
+    String text = rdf.toStringUtf8();
+    StringBuilder out = new StringBuilder(text.length() + 64);
+    int i = 0;
+    int n = text.length();
+    while (i < n) {
+      char c = text.charAt(i);
+      if (c == '"') {
+        int end = i + 1;
+        while (end < n && text.charAt(end) != '"') {
+          end += text.charAt(end) == '\\' ? 2 : 1;
+        }
+        end = Math.min(end + 1, n);
+        out.append(text, i, end);
+        i = end;
+      } else if (c == '<') {
+        int end = text.indexOf('>', i);
+        end = end < 0 ? n : end + 1;
+        out.append(text, i, end);
+        i = end;
+      } else if (c == '#') {
+        int end = text.indexOf('\n', i);
+        end = end < 0 ? n : end;
+        out.append(text, i, end);
+        i = end;
+      } else if (c == '_' && i + 1 < n && text.charAt(i + 1) == ':') {
+        out.append("_:").append(prefix);
+        i += 2;
+      } else {
+        out.append(c);
+        i++;
+      }
+    }
+    return ByteString.copyFrom(out.toString(), StandardCharsets.UTF_8);
+  }
+
+  private static final class Entry {
+    final Mutation mutation;
+    final String prefix;
+    final int bytes;
+    final CompletableFuture<Map<String, String>> future = new CompletableFuture<>();
+
+    Entry(Mutation mutation, String prefix, int bytes) {
+      this.mutation = mutation;
+      this.prefix = prefix;
+      this.bytes = bytes;
+    }
+  }
+
+  public static final class Builder {
+    private final DgraphAsyncClient client;
+    private int maxBatchMutations = 1000;
+    private long maxBatchBytes = 4L * 1024 * 1024;
+    private Duration linger = Duration.ofMillis(5);
+    private int maxPendingBytes = 64 * 1024 * 1024;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    private Builder(DgraphAsyncClient client) {
+      if (client == null) {
+        throw new IllegalArgumentException("client must not be null");
+      }
+      this.client = client;
+    }
+
+    /** Sends a batch once it holds this many mutations. Defaults to 1000. */
+    public Builder maxBatchMutations(int maxBatchMutations) {
+      if (maxBatchMutations < 1) {
+        throw new IllegalArgumentException("maxBatchMutations must be >= 1");
+      }
+      this.maxBatchMutations = maxBatchMutations;
+      return this;
+    }
+
+    /** Sends a batch once its mutations add up to this many bytes. Defaults to 4 MiB. */
+    public Builder maxBatchBytes(long maxBatchBytes) {
+      if (maxBatchBytes < 1) {
+        throw new IllegalArgumentException("maxBatchBytes must be >= 1");
+      }
+      this.maxBatchBytes = maxBatchBytes;
+      return this;
+    }
+
+    /** Sends a batch this long after its first mutation was added. Defaults to 5ms. */
+    public Builder linger(Duration linger) {
+      if (linger.isNegative()) {
+        throw new IllegalArgumentException("linger must be >= 0");
+      }
+      this.linger = linger;
+      return this;
+    }
+
+    /**
+     * Limits the bytes of mutations that are buffered or in flight; {@link #add} blocks beyond it.
+     * Defaults to 64 MiB.
+     */
+    public Builder maxPendingBytes(int maxPendingBytes) {
+      if (maxPendingBytes < 1) {
+        throw new IllegalArgumentException("maxPendingBytes must be >= 1");
+      }
+      this.maxPendingBytes = maxPendingBytes;
+      return this;
+    }
+
+    /** Sets the retry policy for each batch. Defaults to {@link RetryPolicy#DEFAULT}. */
+    public Builder retryPolicy(RetryPolicy retryPolicy) {
+      if (retryPolicy.isReadOnly()) {
+        throw new IllegalArgumentException("retryPolicy must not be read-only");
+      }
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    public MutationBatcher build() {
+      return new MutationBatcher(this);
+    }
+  }
+}
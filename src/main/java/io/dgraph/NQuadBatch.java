@@ -0,0 +1,230 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Facet;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Value;
+import java.nio.FloatBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Builds the {@code set} and {@code del} N-Quads of a mutation with typed values, as an alternative
+ * to {@code set_json} and {@code set_nquads}, whose text the alpha has to parse again. Values that
+ * have a binary form, such as date-times, geometries and vectors, are sent in it; see {@link
+ * Values}.
+ *
+ * <p>The quads are added straight to the builder of the mutation, without an intermediate {@link
+ * NQuad} or {@link Value} per quad. After {@link #build()}, {@link #clear()} makes the batch ready
+ * for the next mutation. Instances are not thread safe.
+ *
+ * <pre>{@code
+ * Mutation mutation =
+ *     new NQuadBatch()
+ *         .subject("_:alice")
+ *         .type("Person")
+ *         .set("name", "Alice")
+ *         .set("name", "Alicia", "es")
+ *         .set("born", Instant.parse("1990-01-01T00:00:00Z"))
+ *         .link("friend", "0x2")
+ *         .facet("since", 2010)
+ *         .subject("0x3")
+ *         .delete("nickname")
+ *         .build();
+ * }</pre>
+ */
+public final class NQuadBatch {
+  private static final String STAR_ALL = "_STAR_ALL";
+
+  private final Mutation.Builder mutation = Mutation.newBuilder();
+  private String subject;
+  // the quad that facet() adds to
+  private NQuad.Builder last;
+
+  /**
+   * Sets the subject of the quads added next: a uid such as {@code 0x1}, a blank node such as
+   * {@code _:alice}, or {@code uid(v)} in an upsert.
+   */
+  public NQuadBatch subject(String subject) {
+    this.subject = subject;
+    return this;
+  }
+
+  /** Sets the subject of the quads added next to a uid, e.g. one from a {@link UidLeasePool}. */
+  public NQuadBatch subject(long uid) {
+    return subject(UidLeasePool.format(uid));
+  }
+
+  /** Sets the {@code dgraph.type} of the subject. */
+  public NQuadBatch type(String type) {
+    return set("dgraph.type", type);
+  }
+
+  public NQuadBatch set(String predicate, String value) {
+    addSet(predicate).getObjectValueBuilder().setStrVal(value);
+    return this;
+  }
+
+  /** Sets a value in a language, e.g. {@code set("name", "Alicia", "es")}. */
+  public NQuadBatch set(String predicate, String value, String lang) {
+    addSet(predicate).setLang(lang).getObjectValueBuilder().setStrVal(value);
+    return this;
+  }
+
+  public NQuadBatch set(String predicate, long value) {
+    addSet(predicate).getObjectValueBuilder().setIntVal(value);
+    return this;
+  }
+
+  public NQuadBatch set(String predicate, double value) {
+    addSet(predicate).getObjectValueBuilder().setDoubleVal(value);
+    return this;
+  }
+
+  public NQuadBatch set(String predicate, boolean value) {
+    addSet(predicate).getObjectValueBuilder().setBoolVal(value);
+    return this;
+  }
+
+  public NQuadBatch set(String predicate, Instant value) {
+    addSet(predicate).getObjectValueBuilder().setDatetimeVal(Values.datetime(value));
+    return this;
+  }
+
+  public NQuadBatch set(String predicate, OffsetDateTime value) {
+    addSet(predicate).getObjectValueBuilder().setDatetimeVal(Values.datetime(value));
+    return this;
+  }
+
+  /** Sets the value of a {@code float32vector} predicate. */
+  public NQuadBatch set(String predicate, float[] vector) {
+    addSet(predicate).getObjectValueBuilder().setVfloat32Val(Vectors.encode(vector));
+    return this;
+  }
+
+  /**
+   * Sets the value of a {@code float32vector} predicate to the remaining floats of {@code vector},
+   * without changing its position.
+   */
+  public NQuadBatch set(String predicate, FloatBuffer vector) {
+    addSet(predicate).getObjectValueBuilder().setVfloat32Val(Vectors.encode(vector));
+    return this;
+  }
+
+  /**
+   * Sets a value built by the caller, e.g. {@code Value.newBuilder().setGeoVal(Values.geoPoint(lon,
+   * lat))} or a {@code password_val}.
+   */
+  public NQuadBatch set(String predicate, Value value) {
+    addSet(predicate).setObjectValue(value);
+    return this;
+  }
+
+  /** Adds an edge from the subject to {@code object}, a uid or blank node. */
+  public NQuadBatch link(String predicate, String object) {
+    addSet(predicate).setObjectId(object);
+    return this;
+  }
+
+  /** Adds an edge from the subject to the node with the given uid. */
+  public NQuadBatch link(String predicate, long uid) {
+    return link(predicate, UidLeasePool.format(uid));
+  }
+
+  /** Adds a facet to the quad added last. */
+  public NQuadBatch facet(String key, String value) {
+    return addFacet(key, Facet.ValType.STRING, Values.facet(value));
+  }
+
+  public NQuadBatch facet(String key, long value) {
+    return addFacet(key, Facet.ValType.INT, Values.facet(value));
+  }
+
+  public NQuadBatch facet(String key, double value) {
+    return addFacet(key, Facet.ValType.FLOAT, Values.facet(value));
+  }
+
+  public NQuadBatch facet(String key, boolean value) {
+    return addFacet(key, Facet.ValType.BOOL, Values.facet(value));
+  }
+
+  public NQuadBatch facet(String key, Instant value) {
+    return addFacet(key, Facet.ValType.DATETIME, Values.datetime(value));
+  }
+
+  /** Deletes every value of {@code predicate} of the subject. */
+  public NQuadBatch delete(String predicate) {
+    addDel(predicate).getObjectValueBuilder().setDefaultVal(STAR_ALL);
+    return this;
+  }
+
+  /** Deletes one value of {@code predicate} of the subject. */
+  public NQuadBatch delete(String predicate, String value) {
+    addDel(predicate).getObjectValueBuilder().setStrVal(value);
+    return this;
+  }
+
+  /** Deletes the edge from the subject to {@code object}. */
+  public NQuadBatch unlink(String predicate, String object) {
+    addDel(predicate).setObjectId(object);
+    return this;
+  }
+
+  /** Deletes every predicate of the subject that its {@code dgraph.type} declares. */
+  public NQuadBatch deleteNode() {
+    return delete(STAR_ALL);
+  }
+
+  /** Sets the condition of the mutation in an upsert, e.g. {@code @if(eq(len(v), 0))}. */
+  public NQuadBatch cond(String cond) {
+    mutation.setCond(cond);
+    return this;
+  }
+
+  /** Returns the number of quads added since the batch was created or cleared. */
+  public int size() {
+    return mutation.getSetCount() + mutation.getDelCount();
+  }
+
+  public Mutation build() {
+    return mutation.build();
+  }
+
+  /** Removes the quads and condition, keeping the subject. */
+  public NQuadBatch clear() {
+    mutation.clear();
+    last = null;
+    return this;
+  }
+
+  private NQuad.Builder addSet(String predicate) {
+    last = mutation.addSetBuilder().setSubject(checkSubject()).setPredicate(predicate);
+    return last;
+  }
+
+  private NQuad.Builder addDel(String predicate) {
+    last = mutation.addDelBuilder().setSubject(checkSubject()).setPredicate(predicate);
+    return last;
+  }
+
+  private String checkSubject() {
+    if (subject == null) {
+      throw new IllegalStateException("call subject() before adding quads");
+    }
+    return subject;
+  }
+
+  private NQuadBatch addFacet(String key, Facet.ValType type, ByteString value) {
+    if (last == null) {
+      throw new IllegalStateException("add a quad before its facets");
+    }
+    last.addFacetsBuilder().setKey(key).setValType(type).setValue(value);
+    return this;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices selection by latency EWMA and outstanding requests. See {@link
+ * StubSelector#powerOfTwoChoices()}.
+ */
+final class PowerOfTwoChoicesSelector implements StubSelector {
+  static final PowerOfTwoChoicesSelector INSTANCE = new PowerOfTwoChoicesSelector();
+
+  // cost of a stub whose latency is still unknown while a request to it is in flight, so that at
+  // most one probe at a time goes to a stub that has not answered yet
+  private static final double UNKNOWN_LATENCY_PENALTY = Double.MAX_VALUE / 2;
+
+  private PowerOfTwoChoicesSelector() {}
+
+  @Override
+  public StubStats select(List<StubStats> stubs) {
+    int n = stubs.size();
+    if (n == 1) {
+      return stubs.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int i = random.nextInt(n);
+    int j = random.nextInt(n - 1);
+    if (j >= i) {
+      j++;
+    }
+    StubStats a = stubs.get(i);
+    StubStats b = stubs.get(j);
+
+    boolean aEjected = a.isEjected();
+    boolean bEjected = b.isEjected();
+    if (aEjected != bEjected) {
+      return aEjected ? b : a;
+    }
+    if (aEjected) {
+      for (StubStats stats : stubs) {
+        if (!stats.isEjected()) {
+          return stats;
+        }
+      }
+      // every stub is ejected; sending somewhere beats failing outright
+      return a;
+    }
+    return cost(a) <= cost(b) ? a : b;
+  }
+
+  private static double cost(StubStats stats) {
+    long latency = stats.getLatencyEwmaNanos();
+    int outstanding = stats.getOutstanding();
+    if (latency == 0) {
+      return outstanding == 0 ? 0 : UNKNOWN_LATENCY_PENALTY;
+    }
+    return (double) latency * (outstanding + 1);
+  }
+}
@@ -0,0 +1,460 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.json.JsonResultReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the nodes of one query block page by page with {@code first} and {@code after}, so that
+ * scanning a large predicate needs neither a hand-written loop nor the whole result in memory.
+ * Create instances via {@link #builder(DgraphAsyncClient, String)}.
+ *
+ * <p>The query declares a page size and a uid cursor variable, {@code $first} and {@code $after}
+ * by default, and must return the {@code uid} of every node in uid order, i.e. without {@code
+ * orderasc} or {@code orderdesc} on the paged block:
+ *
+ * <pre>{@code
+ * String query =
+ *     "query people($first: int, $after: string) {\n"
+ *         + "  people(func: has(name), first: $first, after: $after) { uid name }\n"
+ *         + "}";
+ * try (QueryPager pager = QueryPager.builder(client, query).pageSize(1000).build()) {
+ *   pager.stream().forEach(person -> System.out.println(person.get("name")));
+ * }
+ * }</pre>
+ *
+ * <p>Every page is read in the same read-only transaction, so all pages see the snapshot of the
+ * first one. The next page is requested as soon as the previous one arrives, while the caller
+ * consumes it, until {@code prefetch} pages are buffered. A page with fewer than {@code pageSize}
+ * nodes is the last one.
+ *
+ * <p>The nodes can be consumed once, with one of {@link #iterator()}, {@link #stream()} or {@link
+ * #subscribe}. Nodes are maps as returned by {@link JsonResultReader#nextNode()}.
+ */
+public final class QueryPager implements Flow.Publisher<Map<String, Object>>, AutoCloseable {
+  /** The cursor of the first page; uids start at 0x1. */
+  private static final String FIRST_UID = "0x0";
+
+  private final AsyncTransaction txn;
+  private final String query;
+  private final Map<String, String> vars;
+  private final String block;
+  private final int pageSize;
+  private final int prefetch;
+  private final String pageSizeVariable;
+  private final String cursorVariable;
+
+  // guarded by this
+  private final Deque<List<Map<String, Object>>> pages = new ArrayDeque<>();
+  private String cursor = FIRST_UID;
+  private boolean consumed;
+  private boolean fetching;
+  private boolean exhausted;
+  private boolean closed;
+  private DgraphException error;
+  private Runnable onPage;
+
+  private QueryPager(Builder builder) {
+    this.txn = builder.client.newReadOnlyTransaction();
+    this.query = builder.query;
+    this.vars = builder.vars;
+    this.block = builder.block;
+    this.pageSize = builder.pageSize;
+    this.prefetch = builder.prefetch;
+    this.pageSizeVariable = builder.pageSizeVariable;
+    this.cursorVariable = builder.cursorVariable;
+  }
+
+  public static Builder builder(DgraphAsyncClient client, String query) {
+    return new Builder(client, query);
+  }
+
+  /**
+   * Returns the nodes of every page. {@code hasNext} blocks until the next page arrives, and
+   * errors of the query are thrown from it as {@link DgraphException}.
+   *
+   * @throws IllegalStateException if the nodes were already consumed
+   */
+  public Iterator<Map<String, Object>> iterator() {
+    claim(null);
+    fetchIfNeeded();
+    return new NodeIterator();
+  }
+
+  /**
+   * Returns the nodes of every page as a sequential stream. Closing the stream closes this pager.
+   *
+   * @throws IllegalStateException if the nodes were already consumed
+   */
+  public Stream<Map<String, Object>> stream() {
+    Spliterator<Map<String, Object>> spliterator =
+        Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  /**
+   * Publishes the nodes of every page. Pages are fetched regardless of demand until {@code
+   * prefetch} of them are buffered; cancelling the subscription closes this pager. A second
+   * subscriber, or a subscriber after {@link #iterator()} or {@link #stream()}, receives {@code
+   * onError} with an {@link IllegalStateException}.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    NodeSubscription subscription = new NodeSubscription(subscriber);
+    try {
+      claim(subscription::drain);
+    } catch (IllegalStateException e) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(e);
+      return;
+    }
+    subscriber.onSubscribe(subscription);
+    fetchIfNeeded();
+  }
+
+  /** Stops fetching pages and ends the transaction. Buffered pages are dropped. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pages.clear();
+      notifyAll();
+    }
+    txn.discard();
+  }
+
+  private synchronized void claim(Runnable onPage) {
+    if (consumed) {
+      throw new IllegalStateException("the nodes of a QueryPager can only be consumed once");
+    }
+    consumed = true;
+    this.onPage = onPage;
+  }
+
+  private void fetchIfNeeded() {
+    String after;
+    synchronized (this) {
+      if (fetching || exhausted || closed || error != null || pages.size() >= prefetch) {
+        return;
+      }
+      fetching = true;
+      after = cursor;
+    }
+    Map<String, String> pageVars = new HashMap<>(vars);
+    pageVars.put(pageSizeVariable, Integer.toString(pageSize));
+    pageVars.put(cursorVariable, after);
+    try {
+      txn.queryWithVars(query, pageVars).whenComplete(this::onResponse);
+    } catch (RuntimeException e) {
+      onResponse(null, e);
+    }
+  }
+
+  private void onResponse(Response response, Throwable failure) {
+    List<Map<String, Object>> page = null;
+    if (failure == null) {
+      try {
+        page = parse(response);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    Runnable listener;
+    boolean last;
+    synchronized (this) {
+      fetching = false;
+      if (closed) {
+        return;
+      }
+      if (failure != null) {
+        error = Exceptions.translate(failure);
+      } else {
+        if (!page.isEmpty()) {
+          pages.add(page);
+          cursor = uidOf(page.get(page.size() - 1));
+        }
+        exhausted = page.size() < pageSize;
+      }
+      notifyAll();
+      listener = onPage;
+      last = exhausted;
+    }
+
+    if (last) {
+      txn.discard();
+    }
+    if (listener != null) {
+      listener.run();
+    }
+    fetchIfNeeded();
+  }
+
+  private List<Map<String, Object>> parse(Response response) {
+    try (JsonResultReader result = JsonResultReader.of(response)) {
+      while (result.nextBlock()) {
+        if (block == null || block.equals(result.getBlockName())) {
+          List<Map<String, Object>> nodes = new ArrayList<>();
+          while (result.hasNextNode()) {
+            nodes.add(result.nextNode());
+          }
+          if (!nodes.isEmpty()) {
+            uidOf(nodes.get(nodes.size() - 1));
+          }
+          return nodes;
+        }
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private static String uidOf(Map<String, Object> node) {
+    Object uid = node.get("uid");
+    if (!(uid instanceof String)) {
+      throw new IllegalStateException("the paged block must return the uid of every node");
+    }
+    return (String) uid;
+  }
+
+  /**
+   * Returns the next page, an empty page once every page was returned, or null if the next page
+   * has not arrived yet. Throws the error of the query once the pages before it were returned.
+   */
+  private List<Map<String, Object>> pollPage() {
+    List<Map<String, Object>> page;
+    synchronized (this) {
+      page = pages.poll();
+      if (page == null) {
+        if (error != null) {
+          throw error;
+        }
+        return exhausted || closed ? Collections.emptyList() : null;
+      }
+    }
+    fetchIfNeeded();
+    return page;
+  }
+
+  private List<Map<String, Object>> takePage() {
+    synchronized (this) {
+      while (pages.isEmpty() && error == null && !exhausted && !closed) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new DgraphException("interrupted while waiting for the next page", e);
+        }
+      }
+    }
+    return pollPage();
+  }
+
+  private final class NodeIterator implements Iterator<Map<String, Object>> {
+    private Iterator<Map<String, Object>> page = Collections.emptyIterator();
+
+    @Override
+    public boolean hasNext() {
+      while (!page.hasNext()) {
+        List<Map<String, Object>> next = takePage();
+        if (next.isEmpty()) {
+          return false;
+        }
+        page = next.iterator();
+      }
+      return true;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return page.next();
+    }
+  }
+
+  /** Emits buffered nodes as far as the demand allows, from whichever thread calls drain. */
+  private final class NodeSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super Map<String, Object>> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile long invalidRequest;
+
+    // only accessed by the thread that won pendingDrains
+    private Iterator<Map<String, Object>> page = Collections.emptyIterator();
+    private boolean done;
+
+    NodeSubscription(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = n;
+      } else {
+        requested.accumulateAndGet(n, (current, add) -> Math.max(current + add, current));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      close();
+    }
+
+    void drain() {
+      if (pendingDrains.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        emit();
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      long emitted = 0;
+      long demand = requested.get();
+      while (!cancelled && !done) {
+        if (invalidRequest != 0) {
+          terminate(new IllegalArgumentException("request(n) needs n > 0, was " + invalidRequest));
+          return;
+        }
+        if (!page.hasNext()) {
+          List<Map<String, Object>> next;
+          try {
+            next = pollPage();
+          } catch (DgraphException e) {
+            terminate(e);
+            return;
+          }
+          if (next == null) {
+            break;
+          }
+          if (next.isEmpty()) {
+            done = true;
+            subscriber.onComplete();
+            return;
+          }
+          page = next.iterator();
+          continue;
+        }
+        if (emitted == demand) {
+          demand = requested.addAndGet(-emitted);
+          emitted = 0;
+          if (demand == 0) {
+            break;
+          }
+        }
+        subscriber.onNext(page.next());
+        emitted++;
+      }
+      requested.addAndGet(-emitted);
+    }
+
+    private void terminate(Throwable error) {
+      done = true;
+      close();
+      subscriber.onError(error);
+    }
+  }
+
+  public static final class Builder {
+    private final DgraphAsyncClient client;
+    private final String query;
+    private Map<String, String> vars = Collections.emptyMap();
+    private String block;
+    private int pageSize = 1000;
+    private int prefetch = 1;
+    private String pageSizeVariable = "$first";
+    private String cursorVariable = "$after";
+
+    private Builder(DgraphAsyncClient client, String query) {
+      this.client = Objects.requireNonNull(client, "client");
+      this.query = Objects.requireNonNull(query, "query");
+    }
+
+    /** Sets the other variables of the query. Defaults to none. */
+    public Builder vars(Map<String, String> vars) {
+      this.vars = new HashMap<>(vars);
+      return this;
+    }
+
+    /** Sets the name of the block to page through. Defaults to the first block of the result. */
+    public Builder block(String block) {
+      this.block = block;
+      return this;
+    }
+
+    /** Sets the number of nodes per page. Defaults to 1000. */
+    public Builder pageSize(int pageSize) {
+      if (pageSize <= 0) {
+        throw new IllegalArgumentException("pageSize must be positive");
+      }
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    /** Sets the number of pages buffered ahead of the consumer. Defaults to 1. */
+    public Builder prefetch(int prefetch) {
+      if (prefetch <= 0) {
+        throw new IllegalArgumentException("prefetch must be positive");
+      }
+      this.prefetch = prefetch;
+      return this;
+    }
+
+    /** Sets the variable the page size is passed in. Defaults to {@code $first}. */
+    public Builder pageSizeVariable(String pageSizeVariable) {
+      this.pageSizeVariable = Objects.requireNonNull(pageSizeVariable, "pageSizeVariable");
+      return this;
+    }
+
+    /** Sets the variable the uid of the last node of the previous page is passed in. */
+    public Builder cursorVariable(String cursorVariable) {
+      this.cursorVariable = Objects.requireNonNull(cursorVariable, "cursorVariable");
+      return this;
+    }
+
+    /** Starts a read-only transaction for the pages; nothing is fetched until they are consumed. */
+    public QueryPager build() {
+      return new QueryPager(this);
+    }
+  }
+}
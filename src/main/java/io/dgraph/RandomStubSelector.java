@@ -0,0 +1,21 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Picks a stub uniformly at random. See {@link StubSelector#random()}. */
+final class RandomStubSelector implements StubSelector {
+  static final RandomStubSelector INSTANCE = new RandomStubSelector();
+
+  private RandomStubSelector() {}
+
+  @Override
+  public StubStats select(List<StubStats> stubs) {
+    return stubs.get(ThreadLocalRandom.current().nextInt(stubs.size()));
+  }
+}
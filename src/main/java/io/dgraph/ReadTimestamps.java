@@ -0,0 +1,99 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.TxnContext;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the start_ts of a recent read-only transaction with the read-only transactions that
+ * follow it, as enabled by {@link DgraphAsyncClient.Builder#maxReadStaleness}. One instance is
+ * shared by all transactions of a client.
+ *
+ * <p>A transaction that gets no start_ts here is assigned one by the alpha, and offers it back.
+ * Once the shared start_ts is half the staleness window old, one transaction is sent without it to
+ * fetch the next one, so that the others keep skipping timestamp assignment meanwhile. If that
+ * transaction is discarded or fails before it gets a start_ts, or has not got one after a quarter
+ * of the window, the next transaction refreshes instead.
+ */
+final class ReadTimestamps {
+  private static final long NOT_REFRESHING = Long.MIN_VALUE;
+
+  private final long maxStalenessNanos;
+  // when the transaction refreshing the start_ts was created
+  private final AtomicLong refreshNanos = new AtomicLong(NOT_REFRESHING);
+  private volatile Entry entry;
+
+  private static final class Entry {
+    final TxnContext context;
+    // when the transaction that was assigned the start_ts was created
+    final long nanos;
+
+    Entry(TxnContext context, long nanos) {
+      this.context = context;
+      this.nanos = nanos;
+    }
+  }
+
+  ReadTimestamps(long maxStalenessNanos) {
+    this.maxStalenessNanos = maxStalenessNanos;
+  }
+
+  /**
+   * Returns the start_ts and hash for a new read-only transaction, or null if the transaction must
+   * be assigned a start_ts by the alpha and {@link #offer} it.
+   */
+  TxnContext take(long nowNanos) {
+    Entry current = entry;
+    if (current == null) {
+      return null;
+    }
+    long age = nowNanos - current.nanos;
+    if (age > maxStalenessNanos) {
+      return null;
+    }
+    if (age > maxStalenessNanos / 2) {
+      long refresh = refreshNanos.get();
+      if ((refresh == NOT_REFRESHING || nowNanos - refresh > maxStalenessNanos / 4)
+          && refreshNanos.compareAndSet(refresh, nowNanos)) {
+        return null;
+      }
+    }
+    return current.context;
+  }
+
+  /**
+   * Shares the start_ts assigned to a read-only transaction created at {@code createdNanos}, unless
+   * a newer one is shared already.
+   */
+  synchronized void offer(TxnContext context, long createdNanos) {
+    Entry current = entry;
+    if (current == null || createdNanos - current.nanos > 0) {
+      entry =
+          new Entry(
+              TxnContext.newBuilder()
+                  .setStartTs(context.getStartTs())
+                  .setHash(context.getHash())
+                  .build(),
+              createdNanos);
+    }
+    refreshNanos.set(NOT_REFRESHING);
+  }
+
+  /**
+   * Called when a transaction created at {@code createdNanos} will not offer a start_ts, so that
+   * the next transaction refreshes it if this one was to.
+   */
+  void abandon(long createdNanos) {
+    refreshNanos.compareAndSet(createdNanos, NOT_REFRESHING);
+  }
+
+  /** Forgets the shared start_ts, e.g. because its hash is bound to another namespace. */
+  synchronized void clear() {
+    entry = null;
+    refreshNanos.set(NOT_REFRESHING);
+  }
+}
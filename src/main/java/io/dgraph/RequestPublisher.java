@@ -0,0 +1,248 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the requests of a {@link Flow.Publisher} and publishes their responses in the same order,
+ * with as many requests in flight as the subscriber has demanded responses, up to {@code
+ * maxInFlight}. Requests are only taken from the upstream publisher when they can be sent, so
+ * neither side needs an unbounded queue. Create instances with {@link
+ * DgraphAsyncClient#doRequests}.
+ *
+ * <p>Every request runs in a transaction of its own. Requests with mutations are committed with
+ * {@code commit_now}; requests without mutations run in a read-only transaction if they are marked
+ * {@code read_only}.
+ *
+ * <p>The first failed request cancels the upstream subscription and its {@link DgraphException}
+ * is published with {@code onError} in place of its response; the requests still in flight are
+ * cancelled, as they are when the subscription is cancelled. An error of the upstream publisher is
+ * published after the responses of the requests received before it.
+ *
+ * <p>Each subscriber subscribes to the upstream publisher once.
+ */
+public final class RequestPublisher implements Flow.Publisher<Response> {
+  private final DgraphAsyncClient client;
+  private final Flow.Publisher<Request> requests;
+  private final int maxInFlight;
+
+  RequestPublisher(DgraphAsyncClient client, Flow.Publisher<Request> requests, int maxInFlight) {
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight must be positive");
+    }
+    this.client = client;
+    this.requests = Objects.requireNonNull(requests, "requests");
+    this.maxInFlight = maxInFlight;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Response> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    requests.subscribe(new Exchange(subscriber));
+  }
+
+  private CompletableFuture<Response> send(Request request) {
+    AsyncTransaction txn;
+    if (request.getMutationsCount() > 0) {
+      txn = client.newTransaction();
+      request = request.toBuilder().setCommitNow(true).build();
+    } else if (request.getReadOnly()) {
+      txn = client.newReadOnlyTransaction();
+    } else {
+      txn = client.newTransaction();
+    }
+    try {
+      return txn.doRequest(request);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Subscribes to the requests on behalf of one subscriber of responses. Upstream signals, response
+   * completions and demand all call {@link #drain}, which runs on one thread at a time and is the
+   * only place that signals the subscriber or requests from upstream.
+   */
+  private final class Exchange implements Flow.Subscriber<Request>, Flow.Subscription {
+    private final Flow.Subscriber<? super Response> subscriber;
+    // responses in request order, in flight or completed but not yet published
+    private final Queue<CompletableFuture<Response>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile boolean cancelled;
+    private volatile long invalidRequest;
+    private volatile boolean done;
+
+    // only accessed in drain
+    private long upstreamRequested;
+
+    Exchange(Flow.Subscriber<? super Response> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      if (upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      upstream = subscription;
+      subscriber.onSubscribe(this);
+      drain();
+    }
+
+    @Override
+    public void onNext(Request request) {
+      Objects.requireNonNull(request, "request");
+      if (done) {
+        return;
+      }
+      CompletableFuture<Response> response = send(request);
+      pending.add(response);
+      // counted as pending before it is counted as received, so drain never undercounts
+      pendingCount.incrementAndGet();
+      received.incrementAndGet();
+      if (done) {
+        // terminated while the request was sent
+        cancelPending();
+        return;
+      }
+      response.whenComplete((ignored, throwable) -> drain());
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      upstreamError = throwable;
+      upstreamDone = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      upstreamDone = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = n;
+      } else {
+        requested.accumulateAndGet(n, (current, add) -> Math.max(current + add, current));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (pendingDrains.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!done) {
+          emit();
+        }
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      if (cancelled) {
+        terminate(null);
+        return;
+      }
+      if (invalidRequest != 0) {
+        terminate(new IllegalArgumentException("request(n) needs n > 0, was " + invalidRequest));
+        return;
+      }
+
+      CompletableFuture<Response> head;
+      while ((head = pending.peek()) != null && head.isDone()) {
+        if (head.isCompletedExceptionally()) {
+          terminate(Exceptions.translate(head.handle((response, t) -> t).join()));
+          return;
+        }
+        if (requested.get() == 0) {
+          break;
+        }
+        pending.poll();
+        pendingCount.decrementAndGet();
+        requested.decrementAndGet();
+        subscriber.onNext(head.join());
+        if (cancelled) {
+          terminate(null);
+          return;
+        }
+      }
+
+      if (upstreamDone && pending.isEmpty()) {
+        Throwable error = upstreamError;
+        terminate(error);
+        if (error == null) {
+          subscriber.onComplete();
+        }
+        return;
+      }
+
+      Flow.Subscription subscription = upstream;
+      if (subscription == null || upstreamDone) {
+        return;
+      }
+      // requests asked for but not received yet, plus those in flight or awaiting demand
+      long outstanding = upstreamRequested - received.get() + pendingCount.get();
+      long wanted = Math.min(requested.get(), maxInFlight) - outstanding;
+      if (wanted > 0) {
+        upstreamRequested += wanted;
+        subscription.request(wanted);
+      }
+    }
+
+    /**
+     * Stops the exchange, cancelling upstream and the requests in flight, and publishing the error
+     * if there is one.
+     */
+    private void terminate(Throwable error) {
+      done = true;
+      cancelPending();
+      if (!upstreamDone && upstream != null) {
+        upstream.cancel();
+      }
+      if (error != null) {
+        subscriber.onError(error);
+      }
+    }
+
+    /** Cancels the requests in flight, so that the alpha stops working on them. */
+    private void cancelPending() {
+      CompletableFuture<Response> response;
+      while ((response = pending.poll()) != null) {
+        response.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/**
+ * Receives the {@link ResponseTelemetry} of every query, mutation and DQL request a {@link
+ * DgraphAsyncClient} completes successfully. Install one with {@link
+ * DgraphAsyncClient.Builder#responseListener}; {@link ResponseTelemetryHistograms} aggregates them.
+ *
+ * <p>Listeners are called on gRPC threads before the response is handed to the caller, so they
+ * must be fast and must not throw.
+ */
+@FunctionalInterface
+public interface ResponseListener {
+  void onResponse(ResponseTelemetry telemetry);
+}
@@ -0,0 +1,91 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Latency;
+import io.dgraph.DgraphProto.Response;
+import java.util.Map;
+
+/**
+ * The server-side latency breakdown of a response next to the round trip the client observed, to
+ * tell whether a slow request spent its time in the alpha, on the wire or waiting on the client.
+ * It copies what it reports, so it stays valid after a {@link RetainedResponse} is closed.
+ */
+public final class ResponseTelemetry {
+  private final String operation;
+  private final long roundTripNanos;
+  private final int requestBytes;
+  private final int responseBytes;
+  private final Latency serverLatency;
+  private final Map<String, Long> numUids;
+
+  ResponseTelemetry(String operation, long roundTripNanos, int requestBytes, Response response) {
+    this.operation = operation;
+    this.roundTripNanos = roundTripNanos;
+    this.requestBytes = requestBytes;
+    this.responseBytes = response.getSerializedSize();
+    this.serverLatency = response.getLatency();
+    this.numUids = Map.copyOf(response.getMetrics().getNumUidsMap());
+  }
+
+  /** Returns the operation, {@code query}, {@code mutate} or {@code runDQL}. */
+  public String getOperation() {
+    return operation;
+  }
+
+  /** Returns the time from sending the request to receiving the response. */
+  public long getRoundTripNanos() {
+    return roundTripNanos;
+  }
+
+  /** Returns the latency breakdown reported by the alpha. */
+  public Latency getServerLatency() {
+    return serverLatency;
+  }
+
+  /**
+   * Returns the part of the round trip the alpha did not account for: network transfer, gRPC
+   * framing and queueing on both sides. It is 0 if the alpha reported no total latency.
+   */
+  public long getOverheadNanos() {
+    long serverNanos = serverLatency.getTotalNs();
+    if (serverNanos == 0) {
+      return 0;
+    }
+    return Math.max(0, roundTripNanos - serverNanos);
+  }
+
+  /** Returns the serialized size of the request. */
+  public int getRequestBytes() {
+    return requestBytes;
+  }
+
+  /** Returns the serialized size of the response. */
+  public int getResponseBytes() {
+    return responseBytes;
+  }
+
+  /** Returns the number of uids the alpha processed for each predicate. */
+  public Map<String, Long> getNumUids() {
+    return numUids;
+  }
+
+  @Override
+  public String toString() {
+    return operation
+        + " roundTrip="
+        + roundTripNanos
+        + "ns server="
+        + serverLatency.getTotalNs()
+        + "ns overhead="
+        + getOverheadNanos()
+        + "ns request="
+        + requestBytes
+        + "B response="
+        + getResponseBytes()
+        + "B";
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Latency;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ResponseListener} that aggregates response telemetry per operation into latency
+ * histograms, byte counters and per-predicate uid counters.
+ *
+ * <pre>{@code
+ * ResponseTelemetryHistograms telemetry = new ResponseTelemetryHistograms();
+ * DgraphAsyncClient client = DgraphAsyncClient.builder(stub).responseListener(telemetry).build();
+ * ...
+ * ResponseTelemetryHistograms.Operation query = telemetry.getOperation("query");
+ * // slow in the alpha, or on the way to and from it?
+ * query.getServerTotal().getValueAtPercentile(99);
+ * query.getOverhead().getValueAtPercentile(99);
+ * }</pre>
+ */
+public final class ResponseTelemetryHistograms implements ResponseListener {
+  private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+  @Override
+  public void onResponse(ResponseTelemetry telemetry) {
+    getOperation(telemetry.getOperation()).record(telemetry);
+  }
+
+  /** Returns the aggregates of an operation, which are empty if it never completed. */
+  public Operation getOperation(String operation) {
+    return operations.computeIfAbsent(operation, ignored -> new Operation());
+  }
+
+  /** Returns the aggregates of every operation completed so far, by operation name. */
+  public Map<String, Operation> getOperations() {
+    return Collections.unmodifiableMap(operations);
+  }
+
+  /** The aggregated telemetry of one operation. */
+  public static final class Operation {
+    private final LatencyHistogram roundTrip = new LatencyHistogram();
+    private final LatencyHistogram overhead = new LatencyHistogram();
+    private final LatencyHistogram serverTotal = new LatencyHistogram();
+    private final LatencyHistogram parsing = new LatencyHistogram();
+    private final LatencyHistogram processing = new LatencyHistogram();
+    private final LatencyHistogram encoding = new LatencyHistogram();
+    private final LatencyHistogram assignTimestamp = new LatencyHistogram();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final Map<String, LongAdder> numUids = new ConcurrentHashMap<>();
+
+    private Operation() {}
+
+    private void record(ResponseTelemetry telemetry) {
+      Latency latency = telemetry.getServerLatency();
+      roundTrip.record(telemetry.getRoundTripNanos());
+      overhead.record(telemetry.getOverheadNanos());
+      serverTotal.record(latency.getTotalNs());
+      parsing.record(latency.getParsingNs());
+      processing.record(latency.getProcessingNs());
+      encoding.record(latency.getEncodingNs());
+      assignTimestamp.record(latency.getAssignTimestampNs());
+      requestBytes.add(telemetry.getRequestBytes());
+      responseBytes.add(telemetry.getResponseBytes());
+      telemetry
+          .getNumUids()
+          .forEach(
+              (predicate, count) ->
+                  numUids.computeIfAbsent(predicate, ignored -> new LongAdder()).add(count));
+    }
+
+    /** Returns the round trips observed by the client. */
+    public LatencyHistogram getRoundTrip() {
+      return roundTrip;
+    }
+
+    /** Returns the round trips minus the total latency reported by the alpha. */
+    public LatencyHistogram getOverhead() {
+      return overhead;
+    }
+
+    /** Returns the total latencies reported by the alpha. */
+    public LatencyHistogram getServerTotal() {
+      return serverTotal;
+    }
+
+    /** Returns the parsing latencies reported by the alpha. */
+    public LatencyHistogram getParsing() {
+      return parsing;
+    }
+
+    /** Returns the processing latencies reported by the alpha. */
+    public LatencyHistogram getProcessing() {
+      return processing;
+    }
+
+    /** Returns the encoding latencies reported by the alpha. */
+    public LatencyHistogram getEncoding() {
+      return encoding;
+    }
+
+    /** Returns the timestamp assignment latencies reported by the alpha. */
+    public LatencyHistogram getAssignTimestamp() {
+      return assignTimestamp;
+    }
+
+    /** Returns the total serialized size of the requests. */
+    public long getRequestBytes() {
+      return requestBytes.sum();
+    }
+
+    /** Returns the total serialized size of the responses. */
+    public long getResponseBytes() {
+      return responseBytes.sum();
+    }
+
+    /** Returns the total number of uids processed for each predicate. */
+    public Map<String, Long> getNumUids() {
+      Map<String, Long> result = new HashMap<>();
+      numUids.forEach((predicate, counter) -> result.put(predicate, counter.sum()));
+      return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+      return "roundTrip["
+          + roundTrip
+          + "] server["
+          + serverTotal
+          + "] overhead["
+          + overhead
+          + "] requestBytes="
+          + getRequestBytes()
+          + " responseBytes="
+          + getResponseBytes();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Response;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A response whose {@code bytes} fields, {@code json} and {@code rdf} in particular, may share the
+ * transport buffers the response was received in instead of being copied to the heap. Obtain one
+ * with {@link AsyncTransaction#doRequestRetained} or {@link DgraphAsyncClient#runDQLRetained}.
+ *
+ * <p>The buffers stay allocated until {@link #close()} is called, which must happen exactly once
+ * the response is no longer used, typically in a try-with-resources block. Reading the response,
+ * or any {@code ByteString} obtained from it, after closing it returns undefined data. Copy what
+ * must outlive the handle, e.g. with {@code ByteString.copyFrom(json.asReadOnlyByteBuffer())}.
+ *
+ * <p>Zero-copy parsing needs a transport that hands messages over in buffers, such as Netty. With
+ * other transports the response is parsed as usual and {@link #isZeroCopy()} returns false.
+ */
+public final class RetainedResponse implements AutoCloseable {
+  private final Response response;
+  private final Closeable buffers;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  RetainedResponse(Response response, Closeable buffers) {
+    this.response = response;
+    this.buffers = buffers;
+  }
+
+  /** Returns the response. It must not be used after {@link #close()}. */
+  public Response getResponse() {
+    if (closed.get()) {
+      throw new IllegalStateException("the response has been released");
+    }
+    return response;
+  }
+
+  /** Returns whether the response shares the transport buffers it was received in. */
+  public boolean isZeroCopy() {
+    return buffers != null;
+  }
+
+  /** Releases the transport buffers. Calling it again has no effect. */
+  @Override
+  public void close() {
+    if (buffers != null && closed.compareAndSet(false, true)) {
+      try {
+        buffers.close();
+      } catch (IOException e) {
+        // releasing a transport buffer does not fail
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.RunDQLRequest;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses responses with aliasing over the buffers the transport received them in, so that large
+ * {@code bytes} fields are not copied off those buffers. The buffers are detached from the
+ * transport and released by {@link RetainedResponse#close()}.
+ */
+final class RetainedResponseMarshaller implements MethodDescriptor.Marshaller<RetainedResponse> {
+  static final RetainedResponseMarshaller INSTANCE = new RetainedResponseMarshaller();
+
+  /** The Query method, returning retained responses. */
+  static final MethodDescriptor<Request, RetainedResponse> QUERY_METHOD =
+      DgraphGrpc.getQueryMethod()
+          .toBuilder(ProtoUtils.marshaller(Request.getDefaultInstance()), INSTANCE)
+          .build();
+
+  /** The RunDQL method, returning retained responses. */
+  static final MethodDescriptor<RunDQLRequest, RetainedResponse> RUN_DQL_METHOD =
+      DgraphGrpc.getRunDQLMethod()
+          .toBuilder(ProtoUtils.marshaller(RunDQLRequest.getDefaultInstance()), INSTANCE)
+          .build();
+
+  private RetainedResponseMarshaller() {}
+
+  @Override
+  public InputStream stream(RetainedResponse value) {
+    return value.getResponse().toByteString().newInput();
+  }
+
+  @Override
+  public RetainedResponse parse(InputStream stream) {
+    try {
+      if (stream instanceof Detachable
+          && stream instanceof HasByteBuffer
+          && stream instanceof KnownLength
+          && ((HasByteBuffer) stream).byteBufferSupported()) {
+        return parseAliased(((Detachable) stream).detach());
+      }
+      return new RetainedResponse(Response.parseFrom(stream), null);
+    } catch (IOException e) {
+      throw Status.INTERNAL
+          .withDescription("invalid protobuf byte sequence")
+          .withCause(e)
+          .asRuntimeException();
+    }
+  }
+
+  private static RetainedResponse parseAliased(InputStream detached) throws IOException {
+    boolean retained = false;
+    try {
+      HasByteBuffer buffers = (HasByteBuffer) detached;
+      ByteString bytes = ByteString.EMPTY;
+      ByteBuffer buffer;
+      while ((buffer = buffers.getByteBuffer()) != null) {
+        int size = buffer.remaining();
+        // concatenation builds a rope over the buffers without copying them
+        bytes = bytes.concat(UnsafeByteOperations.unsafeWrap(buffer));
+        if (detached.skip(size) != size) {
+          throw new IOException("transport buffer shorter than announced");
+        }
+      }
+      CodedInputStream input = bytes.newCodedInput();
+      input.enableAliasing(true);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      Response response = Response.parseFrom(input);
+      retained = true;
+      return new RetainedResponse(response, detached);
+    } finally {
+      if (!retained) {
+        detached.close();
+      }
+    }
+  }
+}
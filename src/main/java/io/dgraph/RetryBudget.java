@@ -0,0 +1,85 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/**
+ * Caps the retries of every {@code withRetry} call of a client at a fraction of its successful
+ * attempts, so that an outage is not amplified by each caller retrying up to {@link
+ * RetryPolicy#getMaxRetries()} times. Create instances via {@link #builder()} and install them with
+ * {@link DgraphAsyncClient.Builder#retryBudget}.
+ *
+ * <p>The budget is a token bucket that starts full with {@code maxTokens} tokens. Every successful
+ * attempt adds {@code tokenRatio} tokens and every retry takes one, so that in the long run there
+ * are at most {@code tokenRatio} retries per success, plus a burst of {@code maxTokens}. While the
+ * bucket holds less than one token, failed attempts are not retried and {@link
+ * ClientMetrics#onRetryBudgetExhausted} is called instead.
+ *
+ * <p>A budget is thread safe, and can be shared by several clients.
+ */
+public final class RetryBudget {
+  private final double maxTokens;
+  private final double tokenRatio;
+
+  // guarded by this
+  private double tokens;
+
+  private RetryBudget(Builder builder) {
+    this.maxTokens = builder.maxTokens;
+    this.tokenRatio = builder.tokenRatio;
+    this.tokens = builder.maxTokens;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns the number of retries the budget currently allows. */
+  public synchronized double getTokens() {
+    return tokens;
+  }
+
+  synchronized void onSuccess() {
+    tokens = Math.min(maxTokens, tokens + tokenRatio);
+  }
+
+  /** Takes the token of one retry, if there is one. */
+  synchronized boolean tryWithdraw() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  public static final class Builder {
+    private int maxTokens = 100;
+    private double tokenRatio = 0.1;
+
+    private Builder() {}
+
+    /** Sets the size of the bucket, i.e. the burst of retries allowed. Defaults to 100. */
+    public Builder maxTokens(int maxTokens) {
+      if (maxTokens < 1) {
+        throw new IllegalArgumentException("maxTokens must be >= 1");
+      }
+      this.maxTokens = maxTokens;
+      return this;
+    }
+
+    /** Sets the retries earned per successful attempt. Defaults to 0.1, i.e. 10%. */
+    public Builder tokenRatio(double tokenRatio) {
+      if (tokenRatio <= 0 || tokenRatio > 1) {
+        throw new IllegalArgumentException("tokenRatio must be > 0 and <= 1");
+      }
+      this.tokenRatio = tokenRatio;
+      return this;
+    }
+
+    public RetryBudget build() {
+      return new RetryBudget(this);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.dgraph.DgraphProto.Request;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A query for the {@code k} nodes whose vector is nearest to a given one, via {@code similar_to}
+ * on a {@code float32vector} predicate with an {@code hnsw} index. Immutable — create instances
+ * via {@link #builder(String, int)}, once per kind of search; the query text is built once and
+ * each search only binds its vector to the {@code $vector} variable.
+ *
+ * <pre>{@code
+ * SimilarToQuery nearest =
+ *     SimilarToQuery.builder("embedding", 10).select("uid title").build();
+ * Response response =
+ *     client.newReadOnlyTransaction().queryWithVars(nearest.getQuery(), nearest.vars(vector));
+ * }</pre>
+ */
+public final class SimilarToQuery {
+  static final String VARIABLE = "$vector";
+
+  private final String query;
+
+  private SimilarToQuery(Builder builder) {
+    StringBuilder query = new StringBuilder();
+    query
+        .append("query similar(")
+        .append(VARIABLE)
+        .append(": float32vector) {\n  ")
+        .append(builder.block)
+        .append("(func: similar_to(")
+        .append(builder.predicate)
+        .append(", ")
+        .append(builder.k)
+        .append(", ")
+        .append(VARIABLE)
+        .append("))");
+    if (builder.filter != null) {
+      query.append(" @filter(").append(builder.filter).append(')');
+    }
+    query.append(" {\n    ").append(builder.select).append("\n  }\n}");
+    this.query = query.toString();
+  }
+
+  /**
+   * Returns a builder of a query for the {@code k} nearest nodes by {@code predicate}.
+   *
+   * @throws IllegalArgumentException if {@code k} is not positive
+   */
+  public static Builder builder(String predicate, int k) {
+    return new Builder(predicate, k);
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  /** Returns the variables that bind {@code vector}. */
+  public Map<String, String> vars(float[] vector) {
+    return Collections.singletonMap(VARIABLE, Vectors.format(vector));
+  }
+
+  /** Returns a read-only request for the nodes nearest to {@code vector}. */
+  public Request request(float[] vector) {
+    return Request.newBuilder()
+        .setQuery(query)
+        .putVars(VARIABLE, Vectors.format(vector))
+        .setReadOnly(true)
+        .build();
+  }
+
+  public static final class Builder {
+    private final String predicate;
+    private final int k;
+    private String block = "similar";
+    private String select = "uid";
+    private String filter;
+
+    private Builder(String predicate, int k) {
+      if (k < 1) {
+        throw new IllegalArgumentException("k must be >= 1");
+      }
+      this.predicate = predicate;
+      this.k = k;
+    }
+
+    /** Sets the name of the result block, {@code similar} by default. */
+    public Builder block(String block) {
+      this.block = block;
+      return this;
+    }
+
+    /** Sets the predicates returned for each node, {@code uid} by default. */
+    public Builder select(String select) {
+      this.select = select;
+      return this;
+    }
+
+    /** Filters the nearest nodes, e.g. {@code eq(lang, "en")}. */
+    public Builder filter(String filter) {
+      this.filter = filter;
+      return this;
+    }
+
+    public SimilarToQuery build() {
+      return new SimilarToQuery(this);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+/** The circuit of one stub, as configured by a {@link CircuitBreaker}. */
+final class StubCircuit {
+  private final int failureThreshold;
+  private final long openNanos;
+  private final long probeTimeoutNanos;
+
+  // guarded by this
+  private CircuitBreaker.State state = CircuitBreaker.State.CLOSED;
+  private int consecutiveFailures;
+  private long openUntilNanos;
+  private boolean probing;
+  private long probeStartedNanos;
+
+  StubCircuit(CircuitBreaker config) {
+    this.failureThreshold = config.getFailureThreshold();
+    this.openNanos = config.getOpenDuration().toNanos();
+    this.probeTimeoutNanos = config.getProbeTimeout().toNanos();
+  }
+
+  synchronized CircuitBreaker.State getState() {
+    if (state == CircuitBreaker.State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+      return CircuitBreaker.State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /** Returns whether an attempt may be sent to the stub, without claiming the probe. */
+  synchronized boolean isAvailable() {
+    switch (getState()) {
+      case CLOSED:
+        return true;
+      case HALF_OPEN:
+        return !isProbing();
+      default:
+        return false;
+    }
+  }
+
+  /** Called when an attempt is sent to the stub; the first one after opening is the probe. */
+  synchronized void onAttempt() {
+    if (getState() == CircuitBreaker.State.HALF_OPEN && !isProbing()) {
+      state = CircuitBreaker.State.HALF_OPEN;
+      probing = true;
+      probeStartedNanos = System.nanoTime();
+    }
+  }
+
+  /** Returns whether a probe is in flight; one that never ended is given up after a timeout. */
+  private boolean isProbing() {
+    return probing && System.nanoTime() - probeStartedNanos < probeTimeoutNanos;
+  }
+
+  synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    probing = false;
+    state = CircuitBreaker.State.CLOSED;
+  }
+
+  /**
+   * Counts a failure of the alpha.
+   *
+   * @return whether the circuit was opened by it
+   */
+  synchronized boolean onFailure() {
+    consecutiveFailures++;
+    boolean probeFailed = state == CircuitBreaker.State.HALF_OPEN;
+    if (!probeFailed
+        && (state == CircuitBreaker.State.OPEN || consecutiveFailures < failureThreshold)) {
+      return false;
+    }
+    state = CircuitBreaker.State.OPEN;
+    probing = false;
+    openUntilNanos = System.nanoTime() + openNanos;
+    return true;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.List;
+
+/**
+ * Chooses the stub (and therefore the alpha) that a new transaction or client-level request is
+ * sent to. Implementations must be thread safe.
+ *
+ * <p>Built-in selectors:
+ *
+ * <pre>{@code
+ * StubSelector.powerOfTwoChoices() // default: least loaded of two random stubs, skips ejected ones
+ * StubSelector.random()            // uniformly random, ignores stub health
+ * }</pre>
+ */
+public interface StubSelector {
+
+  /**
+   * Selects one of the given stubs.
+   *
+   * @param stubs statistics of the candidate stubs; never empty
+   * @return one of the elements of {@code stubs}
+   */
+  StubStats select(List<StubStats> stubs);
+
+  /** Returns a selector that picks a stub uniformly at random. */
+  static StubSelector random() {
+    return RandomStubSelector.INSTANCE;
+  }
+
+  /**
+   * Returns a selector that samples two distinct stubs at random and picks the one with the lower
+   * product of latency EWMA and outstanding requests. Ejected stubs are only picked when every stub
+   * is ejected.
+   */
+  static StubSelector powerOfTwoChoices() {
+    return PowerOfTwoChoicesSelector.INSTANCE;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics for one of the stubs of a {@link DgraphAsyncClient}, as seen by a {@link
+ * StubSelector}. The client updates these for every RPC sent through the stub.
+ */
+public final class StubStats {
+  // weight of the newest sample in the moving average
+  private static final double EWMA_ALPHA = 0.2;
+  // without new samples, the latency estimate halves every this many nanoseconds, so that a stub
+  // which was avoided for being slow is eventually tried again
+  private static final long DECAY_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final int index;
+  private final long ejectionNanos;
+  private final ConcurrencyLimiter limiter;
+  private final StubCircuit circuit;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private final AtomicLong latencyEwmaNanos = new AtomicLong();
+  private volatile long lastSampleNanos;
+  private volatile long ejectedUntilNanos;
+  private volatile boolean ejected;
+
+  StubStats(int index, long ejectionNanos) {
+    this(index, ejectionNanos, null, null);
+  }
+
+  StubStats(int index, long ejectionNanos, ConcurrencyLimiter limiter, StubCircuit circuit) {
+    this.index = index;
+    this.ejectionNanos = ejectionNanos;
+    this.limiter = limiter;
+    this.circuit = circuit;
+  }
+
+  /** Returns the position of the stub in the array passed to the client. */
+  public int getIndex() {
+    return index;
+  }
+
+  /** Returns the number of RPCs currently in flight on this stub. */
+  public int getOutstanding() {
+    return outstanding.get();
+  }
+
+  /**
+   * Returns the current adaptive limit on the RPCs in flight on this stub, or {@link
+   * Integer#MAX_VALUE} if the client has no {@link ConcurrencyLimit}.
+   */
+  public int getConcurrencyLimit() {
+    return limiter == null ? Integer.MAX_VALUE : limiter.getLimit();
+  }
+
+  /** Returns the number of RPCs waiting for the concurrency limit of this stub. */
+  public int getQueued() {
+    return limiter == null ? 0 : limiter.getQueued();
+  }
+
+  /**
+   * Returns the state of the {@link CircuitBreaker} of this stub, which is always closed if the
+   * client has none.
+   */
+  public CircuitBreaker.State getCircuitState() {
+    return circuit == null ? CircuitBreaker.State.CLOSED : circuit.getState();
+  }
+
+  /** Returns the circuit of this stub, or null if the client has no {@link CircuitBreaker}. */
+  StubCircuit getCircuit() {
+    return circuit;
+  }
+
+  /**
+   * Returns the exponentially weighted moving average of the RPC latency on this stub, decayed by
+   * the time since the last sample. Returns 0 if no RPC has completed yet.
+   */
+  public long getLatencyEwmaNanos() {
+    long ewma = latencyEwmaNanos.get();
+    if (ewma == 0) {
+      return 0;
+    }
+    long idle = System.nanoTime() - lastSampleNanos;
+    if (idle <= DECAY_HALF_LIFE_NANOS) {
+      return ewma;
+    }
+    return Math.max(1, (long) (ewma * Math.pow(0.5, (double) idle / DECAY_HALF_LIFE_NANOS)));
+  }
+
+  /**
+   * Returns whether the stub is temporarily excluded from selection because its alpha recently
+   * failed with a {@link ConnectionException}, {@link AlphaShutdownException} or {@link
+   * AlphaNotReadyException}.
+   */
+  public boolean isEjected() {
+    return ejected && System.nanoTime() - ejectedUntilNanos < 0;
+  }
+
+  void onStart() {
+    outstanding.incrementAndGet();
+  }
+
+  /** Counts an RPC that the client cancelled, without a latency sample. */
+  void onCancelled() {
+    outstanding.decrementAndGet();
+  }
+
+  void onComplete(long latencyNanos, DgraphException error) {
+    outstanding.decrementAndGet();
+    if (Exceptions.isAlphaUnavailable(error)) {
+      ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+      ejected = true;
+      return;
+    }
+
+    long sample = Math.max(1, latencyNanos);
+    latencyEwmaNanos.getAndUpdate(
+        prev -> prev == 0 ? sample : (long) (prev + EWMA_ALPHA * (sample - prev)));
+    lastSampleNanos = System.nanoTime();
+  }
+}
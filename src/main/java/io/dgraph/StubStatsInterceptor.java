@@ -0,0 +1,60 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Feeds the outcome and latency of every RPC on a stub into its {@link StubStats}. Failures are
+ * classified with {@link Exceptions#translate}, so ejection follows the same rules as the
+ * exceptions surfaced to callers. A cancelled RPC, such as the losing call of a hedged query, was
+ * cut short by the client and says nothing about the latency of the alpha.
+ */
+final class StubStatsInterceptor implements ClientInterceptor {
+  private final StubStats stats;
+
+  StubStatsInterceptor(StubStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        final long startNanos = System.nanoTime();
+        stats.onStart();
+        super.start(
+            new SimpleForwardingClientCallListener<RespT>(responseListener) {
+              @Override
+              public void onClose(Status status, Metadata trailers) {
+                if (status.getCode() == Status.Code.CANCELLED) {
+                  stats.onCancelled();
+                  super.onClose(status, trailers);
+                  return;
+                }
+                DgraphException error = null;
+                if (!status.isOk()) {
+                  error = Exceptions.translate(status.asRuntimeException(trailers));
+                }
+                stats.onComplete(System.nanoTime() - startNanos, error);
+                super.onClose(status, trailers);
+              }
+            },
+            headers);
+      }
+    };
+  }
+}
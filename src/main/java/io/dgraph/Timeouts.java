@@ -0,0 +1,168 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.time.Duration;
+
+/**
+ * The default deadline of each kind of request a client sends. Immutable — create instances via
+ * {@link #builder()} and install them with {@link DgraphAsyncClient.Builder#timeouts} or {@link
+ * DgraphClient.ClientOptions#withTimeouts}, or with the {@code timeout} parameters of a connection
+ * string. A zero duration means no deadline, which is the default for every kind.
+ *
+ * <p>A deadline passed to a single query, such as {@link AsyncTransaction#query(String, long,
+ * java.util.concurrent.TimeUnit)}, replaces the {@code query} or {@code mutate} timeout. The
+ * {@code retry} timeout bounds a whole {@code withRetry} call: each attempt gets the time that is
+ * left, and no attempt is started that could not outlive its backoff delay.
+ *
+ * <pre>{@code
+ * Timeouts.NONE                                                        // no deadlines
+ * Timeouts.builder().all(Duration.ofSeconds(30)).build()               // 30s for every request
+ * Timeouts.builder().query(Duration.ofSeconds(5)).retry(Duration.ofSeconds(20)).build()
+ * }</pre>
+ */
+public final class Timeouts {
+
+  /** Sets no deadline on any request. */
+  public static final Timeouts NONE = builder().build();
+
+  private final Duration query;
+  private final Duration mutate;
+  private final Duration commit;
+  private final Duration alter;
+  private final Duration runDQL;
+  private final Duration login;
+  private final Duration admin;
+  private final Duration retry;
+
+  private Timeouts(Builder builder) {
+    this.query = builder.query;
+    this.mutate = builder.mutate;
+    this.commit = builder.commit;
+    this.alter = builder.alter;
+    this.runDQL = builder.runDQL;
+    this.login = builder.login;
+    this.admin = builder.admin;
+    this.retry = builder.retry;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Duration getQuery() {
+    return query;
+  }
+
+  public Duration getMutate() {
+    return mutate;
+  }
+
+  public Duration getCommit() {
+    return commit;
+  }
+
+  public Duration getAlter() {
+    return alter;
+  }
+
+  public Duration getRunDQL() {
+    return runDQL;
+  }
+
+  public Duration getLogin() {
+    return login;
+  }
+
+  public Duration getAdmin() {
+    return admin;
+  }
+
+  public Duration getRetry() {
+    return retry;
+  }
+
+  public static final class Builder {
+    private Duration query = Duration.ZERO;
+    private Duration mutate = Duration.ZERO;
+    private Duration commit = Duration.ZERO;
+    private Duration alter = Duration.ZERO;
+    private Duration runDQL = Duration.ZERO;
+    private Duration login = Duration.ZERO;
+    private Duration admin = Duration.ZERO;
+    private Duration retry = Duration.ZERO;
+
+    private Builder() {}
+
+    /** Sets the timeout of every kind of request except {@code retry}. */
+    public Builder all(Duration timeout) {
+      return query(timeout)
+          .mutate(timeout)
+          .commit(timeout)
+          .alter(timeout)
+          .runDQL(timeout)
+          .login(timeout)
+          .admin(timeout);
+    }
+
+    /** Sets the timeout of queries of transactions. */
+    public Builder query(Duration query) {
+      this.query = check(query, "query");
+      return this;
+    }
+
+    /** Sets the timeout of requests of transactions that carry mutations. */
+    public Builder mutate(Duration mutate) {
+      this.mutate = check(mutate, "mutate");
+      return this;
+    }
+
+    /** Sets the timeout of commits and discards of transactions. */
+    public Builder commit(Duration commit) {
+      this.commit = check(commit, "commit");
+      return this;
+    }
+
+    public Builder alter(Duration alter) {
+      this.alter = check(alter, "alter");
+      return this;
+    }
+
+    public Builder runDQL(Duration runDQL) {
+      this.runDQL = check(runDQL, "runDQL");
+      return this;
+    }
+
+    /** Sets the timeout of logins, including the refresh of access JWTs. */
+    public Builder login(Duration login) {
+      this.login = check(login, "login");
+      return this;
+    }
+
+    /** Sets the timeout of version checks, uid allocations and namespace operations. */
+    public Builder admin(Duration admin) {
+      this.admin = check(admin, "admin");
+      return this;
+    }
+
+    /** Sets the time budget of a {@code withRetry} call, across all of its attempts. */
+    public Builder retry(Duration retry) {
+      this.retry = check(retry, "retry");
+      return this;
+    }
+
+    private static Duration check(Duration timeout, String name) {
+      if (timeout.isNegative()) {
+        throw new IllegalArgumentException(name + " timeout must be >= 0");
+      }
+      return timeout;
+    }
+
+    public Timeouts build() {
+      return new Timeouts(this);
+    }
+  }
+}
@@ -8,6 +8,8 @@ package io.dgraph;
 import io.dgraph.DgraphProto.Mutation;
 import io.dgraph.DgraphProto.Request;
 import io.dgraph.DgraphProto.Response;
+import io.dgraph.json.JsonReaderFactory;
+import io.dgraph.json.JsonResultReader;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -137,6 +139,34 @@ public class Transaction implements AutoCloseable {
     return queryRDFWithVars(query, Collections.emptyMap(), duration, units);
   }
 
+  /**
+   * Sends a query and returns a reader that decodes the JSON result lazily from the bytes of the
+   * response, block by block and node by node, instead of materializing it as a String.
+   *
+   * @param query query in DQL
+   * @param vars DQL variables used in query
+   * @return a reader of the result, which the caller must close
+   */
+  public JsonResultReader queryResults(final String query, final Map<String, String> vars) {
+    return Exceptions.withExceptionUnwrapped(
+        () -> asyncTransaction.queryResults(query, vars).join());
+  }
+
+  /**
+   * Sends a query and returns a reader that decodes the JSON result lazily with the token reader
+   * created by {@code jsonReaderFactory}.
+   *
+   * @param query query in DQL
+   * @param vars DQL variables used in query
+   * @param jsonReaderFactory the JSON backend
+   * @return a reader of the result, which the caller must close
+   */
+  public JsonResultReader queryResults(
+      final String query, final Map<String, String> vars, JsonReaderFactory jsonReaderFactory) {
+    return Exceptions.withExceptionUnwrapped(
+        () -> asyncTransaction.queryResults(query, vars, jsonReaderFactory).join());
+  }
+
   /**
    * Allows data stored on dgraph instances to be modified. The fields in Mutation come in pairs,
    * set and delete. Mutations can either be encoded as JSON or as RDFs. If the `commitNow` property
@@ -178,6 +208,19 @@ public class Transaction implements AutoCloseable {
     return Exceptions.withExceptionUnwrapped(() -> asyncTransaction.doRequest(request).join());
   }
 
+  /**
+   * Like {@link #doRequest(Request)}, but parses the response without copying its {@code json} and
+   * {@code rdf} fields off the transport buffers. The caller must close the returned handle; see
+   * {@link RetainedResponse}.
+   *
+   * @param request a Request protocol buffer object.
+   * @return a handle of the response, which the caller must close
+   */
+  public RetainedResponse doRequestRetained(Request request) {
+    return Exceptions.withExceptionUnwrapped(
+        () -> asyncTransaction.doRequestRetained(request).join());
+  }
+
   /**
    * Allows performing a query on dgraph instances. It could perform just query or a mutation or an
    * upsert involving a query and a mutation.
@@ -0,0 +1,215 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out uids leased from the cluster with {@link DgraphAsyncClient#allocateUIDs}, so that
+ * mutations can name new nodes by uid instead of by blank node. The alpha then has no blank nodes
+ * to resolve, and no uid map to return per mutation. Create instances via {@link
+ * #builder(DgraphAsyncClient)}; one pool can serve every thread of the application.
+ *
+ * <p>Uids are taken from the current lease with one atomic increment. Once half of it is used, the
+ * next lease is requested in the background, so that callers wait for the cluster only if they
+ * use up a lease faster than the next one arrives. Lease sizes adapt to the rate of use: the next
+ * lease is sized to last {@code refillInterval} at the rate at which the first half of the current
+ * one was handed out, within the configured bounds.
+ *
+ * <p>Uids that are leased but never handed out are not returned to the cluster; they are simply
+ * never used, like the uids of a failed transaction.
+ *
+ * <pre>{@code
+ * UidLeasePool uids = UidLeasePool.builder(client).build();
+ * long alice = uids.next();
+ * txn.mutate(new NQuadBatch().subject(alice).set("name", "Alice").build());
+ * }</pre>
+ */
+public final class UidLeasePool {
+  private final DgraphAsyncClient client;
+  private final long minLeaseSize;
+  private final long maxLeaseSize;
+  private final long refillIntervalNanos;
+
+  private volatile Lease current = new Lease(1, 0, 0);
+  // guarded by this
+  private CompletableFuture<Lease> pending;
+  private long leaseSize;
+
+  /** A range of uids, of which {@code next} is the first that was not handed out yet. */
+  private static final class Lease {
+    final long start;
+    final long end;
+    final long size;
+    // the uid whose hand-out requests the next lease
+    final long refillAt;
+    final AtomicLong next;
+    // when the lease became current; published by the write of current
+    long startNanos = System.nanoTime();
+
+    Lease(long start, long end, long size) {
+      this.start = start;
+      this.end = end;
+      this.size = size;
+      this.refillAt = start + size / 2;
+      this.next = new AtomicLong(start);
+    }
+  }
+
+  private UidLeasePool(Builder builder) {
+    this.client = builder.client;
+    this.minLeaseSize = builder.minLeaseSize;
+    this.maxLeaseSize = builder.maxLeaseSize;
+    this.refillIntervalNanos = builder.refillInterval.toNanos();
+    this.leaseSize = builder.minLeaseSize;
+    prefetch(null);
+  }
+
+  public static Builder builder(DgraphAsyncClient client) {
+    return new Builder(client);
+  }
+
+  /**
+   * Returns a uid that no other caller of any pool of the cluster gets. Blocks only while the next
+   * lease is requested.
+   *
+   * @throws DgraphException if leasing uids failed; a later call tries again
+   */
+  public long next() {
+    while (true) {
+      Lease lease = current;
+      long uid = lease.next.getAndIncrement();
+      if (uid <= lease.end) {
+        if (uid == lease.refillAt) {
+          prefetch(lease);
+        }
+        return uid;
+      }
+      advance(lease);
+    }
+  }
+
+  /** Returns {@link #next()} formatted as in N-Quads, e.g. {@code 0x2a}. */
+  public String nextUid() {
+    return format(next());
+  }
+
+  static String format(long uid) {
+    return "0x" + Long.toHexString(uid);
+  }
+
+  /**
+   * Requests the next lease, unless it is already requested. If {@code lease} is given, the next
+   * one is sized by the rate at which it was used so far.
+   */
+  private synchronized void prefetch(Lease lease) {
+    if (pending != null) {
+      return;
+    }
+    if (lease != null && lease.size > 0) {
+      long used = lease.refillAt - lease.start;
+      long elapsedNanos = Math.max(1, System.nanoTime() - lease.startNanos);
+      double size = (double) used * refillIntervalNanos / elapsedNanos;
+      leaseSize = (long) Math.max(minLeaseSize, Math.min(maxLeaseSize, size));
+    }
+    long size = leaseSize;
+    pending =
+        client
+            .allocateUIDs(size)
+            .thenApply(response -> new Lease(response.getStart(), response.getEnd(), size));
+  }
+
+  /**
+   * Replaces the exhausted lease by the next one, waiting for it if needed. The wait is outside
+   * the lock, so that the threads waiting for the lease do not also queue up for the monitor.
+   */
+  private void advance(Lease exhausted) {
+    CompletableFuture<Lease> next;
+    synchronized (this) {
+      if (current != exhausted) {
+        // another thread already advanced
+        return;
+      }
+      // requested here if the last request failed
+      prefetch(null);
+      next = pending;
+    }
+    Lease lease;
+    try {
+      lease = Exceptions.withExceptionUnwrapped(() -> next.join());
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        // a failed lease is requested again by the next call
+        if (pending == next) {
+          pending = null;
+        }
+      }
+      throw e;
+    }
+    synchronized (this) {
+      if (current == exhausted && pending == next) {
+        pending = null;
+        lease.startNanos = System.nanoTime();
+        current = lease;
+      }
+    }
+  }
+
+  /** Returns the size of the next lease. */
+  synchronized long getLeaseSize() {
+    return leaseSize;
+  }
+
+  public static final class Builder {
+    private final DgraphAsyncClient client;
+    private long minLeaseSize = 1_000;
+    private long maxLeaseSize = 1_000_000;
+    private Duration refillInterval = Duration.ofSeconds(1);
+
+    private Builder(DgraphAsyncClient client) {
+      if (client == null) {
+        throw new IllegalArgumentException("client must not be null");
+      }
+      this.client = client;
+    }
+
+    /** Sets the size of the first and of the smallest lease. Defaults to 1000. */
+    public Builder minLeaseSize(long minLeaseSize) {
+      if (minLeaseSize < 1) {
+        throw new IllegalArgumentException("minLeaseSize must be >= 1");
+      }
+      this.minLeaseSize = minLeaseSize;
+      return this;
+    }
+
+    /** Sets the size of the largest lease. Defaults to 1000000. */
+    public Builder maxLeaseSize(long maxLeaseSize) {
+      if (maxLeaseSize < 1) {
+        throw new IllegalArgumentException("maxLeaseSize must be >= 1");
+      }
+      this.maxLeaseSize = maxLeaseSize;
+      return this;
+    }
+
+    /** Sets how long a lease should last at the current rate of use. Defaults to 1 second. */
+    public Builder refillInterval(Duration refillInterval) {
+      if (refillInterval.isNegative() || refillInterval.isZero()) {
+        throw new IllegalArgumentException("refillInterval must be > 0");
+      }
+      this.refillInterval = refillInterval;
+      return this;
+    }
+
+    public UidLeasePool build() {
+      if (maxLeaseSize < minLeaseSize) {
+        throw new IllegalArgumentException("maxLeaseSize must be >= minLeaseSize");
+      }
+      return new UidLeasePool(this);
+    }
+  }
+}
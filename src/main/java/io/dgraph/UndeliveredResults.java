@@ -0,0 +1,57 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Releases the results of a request that never reach its caller. A result can be received and
+ * still be dropped: the future returned to the caller is cancelled or times out via {@link
+ * CompletableFuture#orTimeout} after the response arrived, or a later stage fails. Every result
+ * that the returned future does not complete with is released, whichever of the two happens last.
+ *
+ * @param <T> the result type
+ */
+final class UndeliveredResults<T> {
+  private final Consumer<T> release;
+  private final Queue<T> received = new ConcurrentLinkedQueue<>();
+  private volatile CompletableFuture<T> returned;
+
+  UndeliveredResults(Consumer<T> release) {
+    this.release = release;
+  }
+
+  /** Records a result as it is received, before any stage that may drop it runs. */
+  T received(T result) {
+    received.add(result);
+    settle();
+    return result;
+  }
+
+  /** Watches the future that is returned to the caller, and returns it. */
+  CompletableFuture<T> returning(CompletableFuture<T> future) {
+    returned = future;
+    future.whenComplete((result, throwable) -> settle());
+    return future;
+  }
+
+  private void settle() {
+    CompletableFuture<T> future = returned;
+    if (future == null || !future.isDone()) {
+      return;
+    }
+    T delivered = future.isCompletedExceptionally() ? null : future.join();
+    // each result is polled once, so it is released at most once
+    for (T result = received.poll(); result != null; result = received.poll()) {
+      if (result != delivered) {
+        release.accept(result);
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Encodes values into the binary forms the alpha expects in the {@code bytes} fields of {@link
+ * DgraphProto.Value} and {@link DgraphProto.Facet}, so that they need not be formatted as text and
+ * parsed again by the server. Each method allocates only the returned bytes.
+ */
+public final class Values {
+  // seconds from 0001-01-01T00:00:00Z, where Go's time.Time counts from, to the Unix epoch
+  private static final long UNIX_TO_INTERNAL = 62135596800L;
+  private static final int WKB_POINT = 1;
+  private static final int WKB_POLYGON = 3;
+
+  private Values() {}
+
+  /** Encodes an instant for {@code datetime_val}, in UTC. */
+  public static ByteString datetime(Instant instant) {
+    return datetime(instant.getEpochSecond(), instant.getNano(), -1);
+  }
+
+  /**
+   * Encodes a date-time for {@code datetime_val}, keeping its offset.
+   *
+   * @throws IllegalArgumentException if the offset is not a whole number of minutes
+   */
+  public static ByteString datetime(OffsetDateTime dateTime) {
+    int offsetSeconds = dateTime.getOffset().getTotalSeconds();
+    if (offsetSeconds % 60 != 0) {
+      throw new IllegalArgumentException("offset must be whole minutes, but was " + offsetSeconds);
+    }
+    Instant instant = dateTime.toInstant();
+    return datetime(instant.getEpochSecond(), instant.getNano(), offsetSeconds / 60);
+  }
+
+  /** Writes the format of Go's {@code time.Time.MarshalBinary}; offset -1 means UTC. */
+  private static ByteString datetime(long epochSecond, int nanos, int offsetMinutes) {
+    ByteBuffer buffer = ByteBuffer.allocate(15);
+    buffer.put((byte) 1).putLong(epochSecond + UNIX_TO_INTERNAL).putInt(nanos);
+    buffer.putShort((short) offsetMinutes);
+    return UnsafeByteOperations.unsafeWrap(buffer.array());
+  }
+
+  /** Encodes a point for {@code geo_val}, as WKB. */
+  public static ByteString geoPoint(double longitude, double latitude) {
+    ByteBuffer buffer = wkb(WKB_POINT, 16);
+    buffer.putDouble(longitude).putDouble(latitude);
+    return UnsafeByteOperations.unsafeWrap(buffer.array());
+  }
+
+  /**
+   * Encodes a polygon for {@code geo_val}, as WKB.
+   *
+   * @param rings the outer ring followed by the holes, each as longitude, latitude pairs whose last
+   *     point repeats the first
+   */
+  public static ByteString geoPolygon(double[]... rings) {
+    int size = 4;
+    for (double[] ring : rings) {
+      if (ring.length < 8 || ring.length % 2 != 0) {
+        throw new IllegalArgumentException("a ring needs at least four longitude, latitude pairs");
+      }
+      size += 4 + ring.length * 8;
+    }
+    ByteBuffer buffer = wkb(WKB_POLYGON, size);
+    buffer.putInt(rings.length);
+    for (double[] ring : rings) {
+      buffer.putInt(ring.length / 2);
+      for (double coordinate : ring) {
+        buffer.putDouble(coordinate);
+      }
+    }
+    return UnsafeByteOperations.unsafeWrap(buffer.array());
+  }
+
+  private static ByteBuffer wkb(int geometryType, int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(5 + size).order(ByteOrder.LITTLE_ENDIAN);
+    // 1 marks the little-endian byte order
+    return buffer.put((byte) 1).putInt(geometryType);
+  }
+
+  /** Encodes a vector for {@code vfloat32_val}, as little-endian floats; see {@link Vectors}. */
+  public static ByteString vfloat32(float[] vector) {
+    return Vectors.encode(vector);
+  }
+
+  static ByteString facet(String value) {
+    return ByteString.copyFrom(value, StandardCharsets.UTF_8);
+  }
+
+  static ByteString facet(long value) {
+    ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value);
+    return UnsafeByteOperations.unsafeWrap(buffer.array());
+  }
+
+  static ByteString facet(double value) {
+    return facet(Double.doubleToLongBits(value));
+  }
+
+  static ByteString facet(boolean value) {
+    return UnsafeByteOperations.unsafeWrap(new byte[] {(byte) (value ? 1 : 0)});
+  }
+}
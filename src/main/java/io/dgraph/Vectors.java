@@ -0,0 +1,136 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Value;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts {@code float32vector} values between {@code float} arrays and the little-endian bytes
+ * of {@code vfloat32_val}, and into the text form that query variables take. Nothing is boxed, and
+ * encoding allocates only the returned bytes.
+ *
+ * <p>To load many embeddings, add the quads of {@link #nquad} to an {@link
+ * io.dgraph.ingest.IngestPipeline}, which shards and commits them in parallel:
+ *
+ * <pre>{@code
+ * FloatBuffer embeddings = ...; // e.g. a memory-mapped file of count * 768 floats
+ * for (int i = 0; i < count; i++) {
+ *   FloatBuffer vector = embeddings.duplicate().position(i * 768).limit((i + 1) * 768);
+ *   pipeline.add(Vectors.nquad(uids[i], "embedding", vector));
+ * }
+ * }</pre>
+ *
+ * <p>To search them, see {@link SimilarToQuery}.
+ */
+public final class Vectors {
+  private Vectors() {}
+
+  /**
+   * Encodes a vector as the bytes of {@code vfloat32_val}.
+   *
+   * @throws IllegalArgumentException if a component is NaN or infinite
+   */
+  public static ByteString encode(float[] vector) {
+    for (int i = 0; i < vector.length; i++) {
+      checkFinite(vector[i], i);
+    }
+    ByteBuffer bytes =
+        ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    bytes.asFloatBuffer().put(vector);
+    return UnsafeByteOperations.unsafeWrap(bytes.array());
+  }
+
+  /**
+   * Encodes the remaining floats of {@code vector} as the bytes of {@code vfloat32_val}, without
+   * changing its position.
+   *
+   * @throws IllegalArgumentException if a component is NaN or infinite
+   */
+  public static ByteString encode(FloatBuffer vector) {
+    for (int i = vector.position(); i < vector.limit(); i++) {
+      checkFinite(vector.get(i), i - vector.position());
+    }
+    ByteBuffer bytes =
+        ByteBuffer.allocate(vector.remaining() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    bytes.asFloatBuffer().put(vector.duplicate());
+    return UnsafeByteOperations.unsafeWrap(bytes.array());
+  }
+
+  /**
+   * Decodes the bytes of a {@code vfloat32_val}.
+   *
+   * @throws IllegalArgumentException if the number of bytes is not a multiple of four
+   */
+  public static float[] decode(ByteString bytes) {
+    if (bytes.size() % Float.BYTES != 0) {
+      throw new IllegalArgumentException("vector of " + bytes.size() + " bytes is not float32");
+    }
+    float[] vector = new float[bytes.size() / Float.BYTES];
+    bytes.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+    return vector;
+  }
+
+  /**
+   * Returns a quad that sets {@code predicate} of {@code subject} to {@code vector}.
+   *
+   * @throws IllegalArgumentException if a component is NaN or infinite
+   */
+  public static NQuad nquad(String subject, String predicate, FloatBuffer vector) {
+    return NQuad.newBuilder()
+        .setSubject(subject)
+        .setPredicate(predicate)
+        .setObjectValue(Value.newBuilder().setVfloat32Val(encode(vector)))
+        .build();
+  }
+
+  /**
+   * Returns a quad that sets {@code predicate} of {@code subject} to {@code vector}.
+   *
+   * @throws IllegalArgumentException if a component is NaN or infinite
+   */
+  public static NQuad nquad(String subject, String predicate, float[] vector) {
+    return NQuad.newBuilder()
+        .setSubject(subject)
+        .setPredicate(predicate)
+        .setObjectValue(Value.newBuilder().setVfloat32Val(encode(vector)))
+        .build();
+  }
+
+  /**
+   * Formats a vector as the value of a {@code float32vector} query variable, e.g. {@code
+   * [0.1,0.2]}. Each float is written as by {@link Float#toString(float)}, which reads back as the
+   * same float but, before JDK 19, not always with the fewest digits that do.
+   *
+   * @throws IllegalArgumentException if a component is NaN or infinite
+   */
+  public static String format(float[] vector) {
+    // most embedding components need 10 to 12 characters
+    StringBuilder text = new StringBuilder(2 + vector.length * 12);
+    text.append('[');
+    for (int i = 0; i < vector.length; i++) {
+      checkFinite(vector[i], i);
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(vector[i]);
+    }
+    return text.append(']').toString();
+  }
+
+  /** Rejects the components that Dgraph can neither store nor parse. */
+  private static void checkFinite(float component, int index) {
+    if (!Float.isFinite(component)) {
+      throw new IllegalArgumentException(
+          "vector component " + index + " is " + component + ", which is not finite");
+    }
+  }
+}
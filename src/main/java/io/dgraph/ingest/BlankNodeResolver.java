@@ -0,0 +1,37 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.ingest;
+
+import io.dgraph.UidLeasePool;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps blank node labels to uids leased from the cluster, like the xidmap of the bulk loader. This
+ * lets the pipeline shard by uid and keeps a label that appears in several transactions pointing at
+ * the same node. Every distinct label is kept until the pipeline is dropped.
+ */
+final class BlankNodeResolver {
+  private final UidLeasePool pool;
+  private final Map<String, String> uids = new ConcurrentHashMap<>();
+
+  BlankNodeResolver(UidLeasePool pool) {
+    this.pool = pool;
+  }
+
+  /** Returns the uid for a blank node label, without the {@code _:} prefix. */
+  String resolve(String label) {
+    String uid = uids.get(label);
+    if (uid != null) {
+      return uid;
+    }
+    // leased outside the map, as nextUid may block on a lease; a label that loses the race to
+    // another thread wastes a uid
+    uid = pool.nextUid();
+    String raced = uids.putIfAbsent(label, uid);
+    return raced != null ? raced : uid;
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.ingest;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphAsyncClient;
+import io.dgraph.DgraphException;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.Exceptions;
+import io.dgraph.RetryPolicy;
+import io.dgraph.UidLeasePool;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a stream of N-Quads or JSON objects with many concurrent {@code commit_now} transactions.
+ * Create instances via {@link #builder(DgraphAsyncClient)}.
+ *
+ * <p>Records are sharded by subject uid, so that transactions of different shards write disjoint
+ * subjects and rarely conflict. Each shard fills batches of {@code batchSize} records and keeps up
+ * to {@code maxInflightPerShard} of them in flight. Conflicts and other retryable errors are
+ * retried with the configured {@link RetryPolicy}; a batch that still fails stops the pipeline.
+ *
+ * <p>Memory is bounded by {@code shards * (maxInflightPerShard + 1) * batchSize} records, plus one
+ * batch per producer thread: {@link #add} blocks when it fills a batch whose shard has no free
+ * slot. The only state that grows with the input is the map from blank node labels to leased uids,
+ * which keeps every distinct label for the life of the pipeline. Feed uids instead of blank nodes
+ * to avoid it, e.g. from the same {@link UidLeasePool}, or use one pipeline per set of records
+ * whose blank nodes refer to each other.
+ *
+ * <pre>{@code
+ * try (IngestPipeline pipeline = IngestPipeline.builder(client).shards(16).build()) {
+ *   for (NQuad nquad : nquads) {
+ *     pipeline.add(nquad);
+ *   }
+ *   IngestStats stats = pipeline.finish();
+ * }
+ * }</pre>
+ */
+public final class IngestPipeline implements AutoCloseable {
+  private final DgraphAsyncClient client;
+  private final int batchSize;
+  private final RetryPolicy retryPolicy;
+  private final BlankNodeResolver blankNodes;
+  private final Shard[] shards;
+
+  private final long startNanos = System.nanoTime();
+  private final LongAdder records = new LongAdder();
+  private final LongAdder transactions = new LongAdder();
+  private final LongAdder attempts = new LongAdder();
+  private final Set<CompletableFuture<Void>> inflight = ConcurrentHashMap.newKeySet();
+  private final AtomicReference<DgraphException> failure = new AtomicReference<>();
+
+  private IngestPipeline(Builder builder) {
+    this.client = builder.client;
+    this.batchSize = builder.batchSize;
+    this.retryPolicy = builder.retryPolicy;
+    UidLeasePool uidLeasePool = builder.uidLeasePool;
+    if (uidLeasePool == null) {
+      uidLeasePool =
+          UidLeasePool.builder(client)
+              .minLeaseSize(builder.uidLeaseSize)
+              .maxLeaseSize(Math.max(builder.uidLeaseSize, 1_000_000))
+              .build();
+    }
+    this.blankNodes = new BlankNodeResolver(uidLeasePool);
+    this.shards = new Shard[builder.shards];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new Shard(builder.maxInflightPerShard);
+    }
+  }
+
+  public static Builder builder(DgraphAsyncClient client) {
+    return new Builder(client);
+  }
+
+  /**
+   * Adds an N-Quad. Blank node subjects and objects are replaced by uids leased from the cluster,
+   * so the same label refers to the same node across transactions.
+   *
+   * @throws DgraphException if an earlier batch failed after exhausting its retries
+   * @throws InterruptedException if interrupted while waiting for a free shard slot; the record
+   *     stays added and is sent with a later batch of its shard
+   */
+  public void add(NQuad nquad) throws InterruptedException {
+    checkFailure();
+    NQuad resolved = resolveBlankNodes(nquad);
+    Shard shard = shards[shardOf(resolved.getSubject())];
+    Batch full;
+    synchronized (shard) {
+      shard.batch.nquads.add(resolved);
+      full = shard.takeIfFull(batchSize);
+    }
+    if (full != null) {
+      send(shard, full);
+    }
+  }
+
+  /**
+   * Adds a JSON object. Objects are sent as elements of a JSON array, so blank nodes inside them
+   * are only shared with objects of the same transaction.
+   *
+   * @param shardKey the uid, or another stable key, of the node the object writes; objects with
+   *     the same key go to the same shard
+   * @param json a single JSON object
+   * @throws DgraphException if an earlier batch failed after exhausting its retries
+   * @throws InterruptedException if interrupted while waiting for a free shard slot; the object
+   *     stays added and is sent with a later batch of its shard
+   */
+  public void addJson(String shardKey, ByteString json) throws InterruptedException {
+    checkFailure();
+    Shard shard = shards[shardOf(shardKey)];
+    Batch full;
+    synchronized (shard) {
+      shard.batch.json.add(json);
+      full = shard.takeIfFull(batchSize);
+    }
+    if (full != null) {
+      send(shard, full);
+    }
+  }
+
+  /** Returns the progress so far. */
+  public IngestStats getStats() {
+    return new IngestStats(
+        records.sum(),
+        transactions.sum(),
+        attempts.sum(),
+        Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+
+  /**
+   * Sends the partially filled batches and waits until every batch has been committed. Calling it
+   * again, or adding more records afterwards, is allowed.
+   *
+   * @return the final statistics
+   * @throws DgraphException if a batch failed after exhausting its retries
+   * @throws InterruptedException if interrupted while waiting for a free shard slot
+   */
+  public IngestStats finish() throws InterruptedException {
+    for (Shard shard : shards) {
+      Batch rest;
+      synchronized (shard) {
+        rest = shard.take();
+      }
+      if (!rest.isEmpty()) {
+        send(shard, rest);
+      }
+    }
+    return awaitInflight();
+  }
+
+  /**
+   * Like {@link #finish()}, but waits for free shard slots without giving up when interrupted, so
+   * that no added record is dropped. The interrupt status is kept.
+   */
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      Batch rest;
+      synchronized (shard) {
+        rest = shard.take();
+      }
+      if (!rest.isEmpty()) {
+        shard.slots.acquireUninterruptibly();
+        commit(shard, rest);
+      }
+    }
+    awaitInflight();
+  }
+
+  private IngestStats awaitInflight() {
+    CompletableFuture.allOf(inflight.toArray(new CompletableFuture[0])).join();
+    checkFailure();
+    return getStats();
+  }
+
+  private void checkFailure() {
+    DgraphException ex = failure.get();
+    if (ex != null) {
+      throw ex;
+    }
+  }
+
+  private void send(Shard shard, Batch batch) throws InterruptedException {
+    try {
+      shard.slots.acquire();
+    } catch (InterruptedException e) {
+      synchronized (shard) {
+        shard.putBack(batch);
+      }
+      throw e;
+    }
+    commit(shard, batch);
+  }
+
+  /** Commits a batch in a slot of its shard, which the caller has acquired. */
+  private void commit(Shard shard, Batch batch) {
+    Mutation.Builder mutation = Mutation.newBuilder().addAllSet(batch.nquads).setCommitNow(true);
+    if (!batch.json.isEmpty()) {
+      mutation.setSetJson(jsonArray(batch.json));
+    }
+    Mutation request = mutation.build();
+    int size = batch.size();
+
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    inflight.add(done);
+    client
+        .withRetry(
+            retryPolicy,
+            txn -> {
+              attempts.increment();
+              return txn.mutate(request);
+            })
+        .whenComplete(
+            (response, throwable) -> {
+              shard.slots.release();
+              if (throwable != null) {
+                failure.compareAndSet(null, Exceptions.translate(throwable));
+              } else {
+                transactions.increment();
+                records.add(size);
+              }
+              inflight.remove(done);
+              done.complete(null);
+            });
+  }
+
+  private NQuad resolveBlankNodes(NQuad nquad) {
+    boolean subject = nquad.getSubject().startsWith("_:");
+    boolean object = nquad.getObjectId().startsWith("_:");
+    if (!subject && !object) {
+      return nquad;
+    }
+    NQuad.Builder builder = nquad.toBuilder();
+    if (subject) {
+      builder.setSubject(blankNodes.resolve(nquad.getSubject().substring(2)));
+    }
+    if (object) {
+      builder.setObjectId(blankNodes.resolve(nquad.getObjectId().substring(2)));
+    }
+    return builder.build();
+  }
+
+  private int shardOf(String key) {
+    long hash;
+    if (key.startsWith("0x")) {
+      try {
+        // spread consecutive uids, which leases hand out, evenly across shards
+        hash = Long.parseUnsignedLong(key.substring(2), 16) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+      } catch (NumberFormatException e) {
+        hash = key.hashCode();
+      }
+    } else {
+      hash = key.hashCode();
+    }
+    return Math.floorMod((int) hash, shards.length);
+  }
+
+  private static ByteString jsonArray(List<ByteString> objects) {
+    ByteString.Output out = ByteString.newOutput();
+    out.write('[');
+    for (int i = 0; i < objects.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      try {
+        objects.get(i).writeTo(out);
+      } catch (IOException e) {
+        // ByteString.Output does not throw
+        throw new IllegalStateException(e);
+      }
+    }
+    out.write(']');
+    return out.toByteString();
+  }
+
+  private static final class Batch {
+    final List<NQuad> nquads = new ArrayList<>();
+    final List<ByteString> json = new ArrayList<>();
+
+    int size() {
+      return nquads.size() + json.size();
+    }
+
+    boolean isEmpty() {
+      return size() == 0;
+    }
+  }
+
+  private static final class Shard {
+    final Semaphore slots;
+    // guarded by this
+    Batch batch = new Batch();
+
+    Shard(int maxInflight) {
+      this.slots = new Semaphore(maxInflight);
+    }
+
+    Batch take() {
+      Batch current = batch;
+      batch = new Batch();
+      return current;
+    }
+
+    Batch takeIfFull(int batchSize) {
+      return batch.size() >= batchSize ? take() : null;
+    }
+
+    /** Returns a taken batch that could not be sent, ahead of the records added since. */
+    void putBack(Batch taken) {
+      taken.nquads.addAll(batch.nquads);
+      taken.json.addAll(batch.json);
+      batch = taken;
+    }
+  }
+
+  /**
+   * Configures an {@link IngestPipeline}. The pipeline keeps the uid of every distinct blank node
+   * label it sees, see {@link IngestPipeline}.
+   */
+  public static final class Builder {
+    private final DgraphAsyncClient client;
+    private int shards = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1000;
+    private int maxInflightPerShard = 2;
+    private long uidLeaseSize = 10_000;
+    private UidLeasePool uidLeasePool;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    private Builder(DgraphAsyncClient client) {
+      if (client == null) {
+        throw new IllegalArgumentException("client must not be null");
+      }
+      this.client = client;
+    }
+
+    /** Sets the number of shards. Defaults to the number of available processors. */
+    public Builder shards(int shards) {
+      if (shards < 1) {
+        throw new IllegalArgumentException("shards must be >= 1");
+      }
+      this.shards = shards;
+      return this;
+    }
+
+    /** Sets the number of records per transaction. Defaults to 1000. */
+    public Builder batchSize(int batchSize) {
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize must be >= 1");
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /** Sets how many transactions each shard keeps in flight. Defaults to 2. */
+    public Builder maxInflightPerShard(int maxInflightPerShard) {
+      if (maxInflightPerShard < 1) {
+        throw new IllegalArgumentException("maxInflightPerShard must be >= 1");
+      }
+      this.maxInflightPerShard = maxInflightPerShard;
+      return this;
+    }
+
+    /**
+     * Sets how many uids are leased at a time for blank nodes, at least. Later leases grow with the
+     * rate of new blank nodes. Defaults to 10000.
+     */
+    public Builder uidLeaseSize(long uidLeaseSize) {
+      if (uidLeaseSize < 1) {
+        throw new IllegalArgumentException("uidLeaseSize must be >= 1");
+      }
+      this.uidLeaseSize = uidLeaseSize;
+      return this;
+    }
+
+    /**
+     * Sets the pool that blank nodes take their uids from, so that it can be shared with code that
+     * assigns uids itself. Overrides {@link #uidLeaseSize}.
+     */
+    public Builder uidLeasePool(UidLeasePool uidLeasePool) {
+      this.uidLeasePool = uidLeasePool;
+      return this;
+    }
+
+    /** Sets the retry policy for each transaction. Defaults to {@link RetryPolicy#DEFAULT}. */
+    public Builder retryPolicy(RetryPolicy retryPolicy) {
+      if (retryPolicy.isReadOnly()) {
+        throw new IllegalArgumentException("retryPolicy must not be read-only");
+      }
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    public IngestPipeline build() {
+      return new IngestPipeline(this);
+    }
+  }
+}
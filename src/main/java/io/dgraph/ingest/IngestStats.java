@@ -0,0 +1,56 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.ingest;
+
+import java.time.Duration;
+
+/** A snapshot of the progress of an {@link IngestPipeline}. */
+public final class IngestStats {
+  private final long records;
+  private final long transactions;
+  private final long attempts;
+  private final Duration elapsed;
+
+  IngestStats(long records, long transactions, long attempts, Duration elapsed) {
+    this.records = records;
+    this.transactions = transactions;
+    this.attempts = attempts;
+    this.elapsed = elapsed;
+  }
+
+  /** Returns the number of N-Quads and JSON objects committed so far. */
+  public long getRecords() {
+    return records;
+  }
+
+  /** Returns the number of committed transactions. */
+  public long getTransactions() {
+    return transactions;
+  }
+
+  /** Returns the number of transaction attempts that were retried, e.g. after a conflict. */
+  public long getRetries() {
+    return attempts - transactions;
+  }
+
+  /** Returns the time since the pipeline was created. */
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  /** Returns the committed records per second since the pipeline was created. */
+  public double getRecordsPerSecond() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : records * 1e9 / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "IngestStats{records=%d, transactions=%d, retries=%d, elapsed=%s, records/s=%.1f}",
+        records, transactions, getRetries(), elapsed, getRecordsPerSecond());
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Creates the {@link JsonTokenReader} a {@link JsonResultReader} decodes a response with. The
+ * {@link #DEFAULT} reader has no dependencies; to use the JSON library of the application instead,
+ * adapt its streaming reader, e.g. for Gson:
+ *
+ * <pre>{@code
+ * JsonReaderFactory gson =
+ *     in -> {
+ *       JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+ *       return new JsonTokenReader() {
+ *         // delegate each method to reader, mapping JsonReader.peek() to JsonToken
+ *       };
+ *     };
+ * }</pre>
+ */
+@FunctionalInterface
+public interface JsonReaderFactory {
+  /** Decodes UTF-8 JSON incrementally, with a fixed 8 KiB buffer. */
+  JsonReaderFactory DEFAULT = StreamingJsonTokenReader::new;
+
+  JsonTokenReader create(InputStream in) throws IOException;
+}
@@ -0,0 +1,200 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Response;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterates the blocks and nodes of a JSON query result lazily, decoding straight from the bytes of
+ * the response instead of copying them into a {@code String} and then into a tree. For a result of
+ * N bytes, {@code response.getJson().toStringUtf8()} followed by a tree parser holds about 2N bytes
+ * for the string plus the whole tree; this reader holds one node at a time.
+ *
+ * <pre>{@code
+ * try (JsonResultReader result = txn.queryResults(query, vars).get()) {
+ *   while (result.nextBlock()) {
+ *     if (result.getBlockName().equals("people")) {
+ *       while (result.hasNextNode()) {
+ *         Map<String, Object> person = result.nextNode();
+ *         ...
+ *       }
+ *     }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Properties and nodes the caller does not read are skipped without being decoded. Blocks whose
+ * value is not an array are skipped as well. Errors in the JSON are thrown as {@link
+ * UncheckedIOException}. Instances are not thread safe.
+ */
+public final class JsonResultReader implements AutoCloseable {
+  private final JsonTokenReader reader;
+  private boolean started;
+  private boolean inBlock;
+  private String blockName;
+
+  private JsonResultReader(JsonTokenReader reader) {
+    this.reader = reader;
+  }
+
+  /** Returns a reader of the JSON of the response using {@link JsonReaderFactory#DEFAULT}. */
+  public static JsonResultReader of(Response response) {
+    return of(response.getJson(), JsonReaderFactory.DEFAULT);
+  }
+
+  /** Returns a reader of the given JSON using the token reader created by {@code factory}. */
+  public static JsonResultReader of(ByteString json, JsonReaderFactory factory) {
+    try {
+      return new JsonResultReader(factory.create(json.newInput()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Advances to the next block of the result, skipping what is left of the current one.
+   *
+   * @return false if there are no more blocks
+   */
+  public boolean nextBlock() {
+    try {
+      if (!started) {
+        started = true;
+        // mutations without a query return no JSON at all
+        if (reader.peek() == JsonToken.END_DOCUMENT) {
+          return false;
+        }
+        reader.beginObject();
+      } else if (inBlock) {
+        while (reader.hasNext()) {
+          reader.skipValue();
+        }
+        reader.endArray();
+      } else if (blockName == null) {
+        return false;
+      }
+      inBlock = false;
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+          reader.beginArray();
+          blockName = name;
+          inBlock = true;
+          return true;
+        }
+        reader.skipValue();
+      }
+      reader.endObject();
+      blockName = null;
+      return false;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Returns the name of the current block, e.g. {@code me} for {@code { me(func: ...) {...} }}. */
+  public String getBlockName() {
+    if (!inBlock) {
+      throw new IllegalStateException("not positioned on a block; call nextBlock() first");
+    }
+    return blockName;
+  }
+
+  /** Returns whether the current block has another node. */
+  public boolean hasNextNode() {
+    try {
+      return inBlock && reader.hasNext();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Decodes the next node of the current block into a map. Values are {@code String}, {@code
+   * Long}, {@code Double}, {@code Boolean}, {@code null}, {@code List} or {@code Map}.
+   */
+  public Map<String, Object> nextNode() {
+    Object value = nextNode(JsonResultReader::readValue);
+    if (!(value instanceof Map)) {
+      throw new IllegalStateException("expected a node object but was " + value);
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, Object> node = (Map<String, Object>) value;
+    return node;
+  }
+
+  /** Decodes the next node of the current block with the given decoder. */
+  public <T> T nextNode(NodeDecoder<T> decoder) {
+    if (!hasNextNode()) {
+      throw new IllegalStateException("no more nodes in the current block");
+    }
+    try {
+      return decoder.decode(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Object readValue(JsonTokenReader reader) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        Map<String, Object> object = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          object.put(name, readValue(reader));
+        }
+        reader.endObject();
+        return object;
+      case BEGIN_ARRAY:
+        List<Object> array = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          array.add(readValue(reader));
+        }
+        reader.endArray();
+        return array;
+      case STRING:
+        return reader.nextString();
+      case NUMBER:
+        return parseNumber(reader.nextNumber());
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NULL:
+        reader.nextNull();
+        return null;
+      default:
+        throw new IllegalStateException("expected a value but was " + reader.peek());
+    }
+  }
+
+  private static Object parseNumber(String number) {
+    if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+      try {
+        return Long.parseLong(number);
+      } catch (NumberFormatException e) {
+        // too large for a long
+      }
+    }
+    return Double.parseDouble(number);
+  }
+}
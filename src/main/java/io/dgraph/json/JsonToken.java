@@ -0,0 +1,20 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+/** The kinds of tokens a {@link JsonTokenReader} returns. */
+public enum JsonToken {
+  BEGIN_ARRAY,
+  END_ARRAY,
+  BEGIN_OBJECT,
+  END_OBJECT,
+  NAME,
+  STRING,
+  NUMBER,
+  BOOLEAN,
+  NULL,
+  END_DOCUMENT
+}
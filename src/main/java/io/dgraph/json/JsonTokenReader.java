@@ -0,0 +1,52 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A pull parser over a JSON document, one token at a time. The methods mirror those of the
+ * streaming readers of common JSON libraries, such as Gson's {@code JsonReader} and Jackson's
+ * {@code JsonParser}, so that either can back a {@link JsonResultReader} through a small adapter;
+ * see {@link JsonReaderFactory}.
+ *
+ * <p>Each method that consumes a token throws {@link IllegalStateException} if the next token is
+ * of a different kind, and {@link IOException} if the document is malformed.
+ */
+public interface JsonTokenReader extends Closeable {
+  /**
+   * Returns the kind of the next token without consuming it; {@link JsonToken#END_DOCUMENT} for an
+   * empty document.
+   */
+  JsonToken peek() throws IOException;
+
+  /** Returns whether the current array or object has another element. */
+  boolean hasNext() throws IOException;
+
+  void beginArray() throws IOException;
+
+  void endArray() throws IOException;
+
+  void beginObject() throws IOException;
+
+  void endObject() throws IOException;
+
+  /** Consumes the name of the next property of the current object. */
+  String nextName() throws IOException;
+
+  String nextString() throws IOException;
+
+  /** Consumes a number and returns it as written in the document. */
+  String nextNumber() throws IOException;
+
+  boolean nextBoolean() throws IOException;
+
+  void nextNull() throws IOException;
+
+  /** Consumes the next value, including all nested arrays and objects. */
+  void skipValue() throws IOException;
+}
@@ -0,0 +1,23 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import java.io.IOException;
+
+/**
+ * Decodes one node of a query result straight from the token stream, without an intermediate tree.
+ *
+ * @param <T> the type the node is decoded into
+ */
+@FunctionalInterface
+public interface NodeDecoder<T> {
+  /**
+   * Decodes the next value of {@code reader}, which is positioned before the {@link
+   * JsonToken#BEGIN_OBJECT} of the node. The decoder must consume the node entirely, e.g. by
+   * calling {@link JsonTokenReader#skipValue()} for properties it is not interested in.
+   */
+  T decode(JsonTokenReader reader) throws IOException;
+}
@@ -0,0 +1,437 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The default {@link JsonTokenReader}: a dependency-free pull parser that reads UTF-8 JSON through
+ * a fixed buffer. Only the current string or number is held in memory, in a scratch buffer that
+ * grows to the longest one in the document.
+ */
+final class StreamingJsonTokenReader implements JsonTokenReader {
+  private static final int EMPTY_DOCUMENT = 0;
+  private static final int NONEMPTY_DOCUMENT = 1;
+  private static final int EMPTY_ARRAY = 2;
+  private static final int NONEMPTY_ARRAY = 3;
+  private static final int EMPTY_OBJECT = 4;
+  private static final int DANGLING_NAME = 5;
+  private static final int NONEMPTY_OBJECT = 6;
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[8192];
+  private int pos;
+  private int limit;
+  private long offset;
+
+  private int[] stack = new int[32];
+  private int depth = 1;
+
+  private JsonToken peeked;
+  private boolean peekedBoolean;
+  private byte[] scratch = new byte[256];
+  private int scratchLength;
+
+  StreamingJsonTokenReader(InputStream in) {
+    this.in = in;
+    stack[0] = EMPTY_DOCUMENT;
+  }
+
+  @Override
+  public JsonToken peek() throws IOException {
+    if (peeked != null) {
+      return peeked;
+    }
+    int c;
+    switch (stack[depth - 1]) {
+      case EMPTY_DOCUMENT:
+        stack[depth - 1] = NONEMPTY_DOCUMENT;
+        c = nextNonWhitespace();
+        // a response without a query block carries no JSON at all
+        if (c == -1) {
+          return peeked = JsonToken.END_DOCUMENT;
+        }
+        return peeked = readValueStart(c);
+      case NONEMPTY_DOCUMENT:
+        c = nextNonWhitespace();
+        if (c != -1) {
+          throw syntaxError("expected the end of the document");
+        }
+        return peeked = JsonToken.END_DOCUMENT;
+      case EMPTY_ARRAY:
+        stack[depth - 1] = NONEMPTY_ARRAY;
+        c = nextNonWhitespace();
+        if (c == ']') {
+          return peeked = JsonToken.END_ARRAY;
+        }
+        return peeked = readValueStart(c);
+      case NONEMPTY_ARRAY:
+        c = nextNonWhitespace();
+        if (c == ']') {
+          return peeked = JsonToken.END_ARRAY;
+        }
+        if (c != ',') {
+          throw syntaxError("expected ',' or ']'");
+        }
+        return peeked = readValueStart(nextNonWhitespace());
+      case EMPTY_OBJECT:
+      case NONEMPTY_OBJECT:
+        c = nextNonWhitespace();
+        if (c == '}') {
+          return peeked = JsonToken.END_OBJECT;
+        }
+        if (stack[depth - 1] == NONEMPTY_OBJECT) {
+          if (c != ',') {
+            throw syntaxError("expected ',' or '}'");
+          }
+          c = nextNonWhitespace();
+        }
+        if (c != '"') {
+          throw syntaxError("expected a property name");
+        }
+        stack[depth - 1] = DANGLING_NAME;
+        return peeked = JsonToken.NAME;
+      case DANGLING_NAME:
+        if (nextNonWhitespace() != ':') {
+          throw syntaxError("expected ':'");
+        }
+        stack[depth - 1] = NONEMPTY_OBJECT;
+        return peeked = readValueStart(nextNonWhitespace());
+      default:
+        throw new IllegalStateException("corrupt parser state");
+    }
+  }
+
+  /** Classifies a value by its first character, consuming what cannot be read lazily. */
+  private JsonToken readValueStart(int c) throws IOException {
+    switch (c) {
+      case '{':
+        return JsonToken.BEGIN_OBJECT;
+      case '[':
+        return JsonToken.BEGIN_ARRAY;
+      case '"':
+        return JsonToken.STRING;
+      case 't':
+        expectLiteral("rue");
+        peekedBoolean = true;
+        return JsonToken.BOOLEAN;
+      case 'f':
+        expectLiteral("alse");
+        peekedBoolean = false;
+        return JsonToken.BOOLEAN;
+      case 'n':
+        expectLiteral("ull");
+        return JsonToken.NULL;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          pos--; // the number is read by nextNumber
+          return JsonToken.NUMBER;
+        }
+        throw syntaxError(c == -1 ? "unexpected end of the document" : "expected a value");
+    }
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    JsonToken token = peek();
+    return token != JsonToken.END_ARRAY
+        && token != JsonToken.END_OBJECT
+        && token != JsonToken.END_DOCUMENT;
+  }
+
+  @Override
+  public void beginArray() throws IOException {
+    expect(JsonToken.BEGIN_ARRAY);
+    push(EMPTY_ARRAY);
+  }
+
+  @Override
+  public void endArray() throws IOException {
+    expect(JsonToken.END_ARRAY);
+    depth--;
+  }
+
+  @Override
+  public void beginObject() throws IOException {
+    expect(JsonToken.BEGIN_OBJECT);
+    push(EMPTY_OBJECT);
+  }
+
+  @Override
+  public void endObject() throws IOException {
+    expect(JsonToken.END_OBJECT);
+    depth--;
+  }
+
+  @Override
+  public String nextName() throws IOException {
+    expect(JsonToken.NAME);
+    readString();
+    return scratchString();
+  }
+
+  @Override
+  public String nextString() throws IOException {
+    expect(JsonToken.STRING);
+    readString();
+    return scratchString();
+  }
+
+  @Override
+  public String nextNumber() throws IOException {
+    expect(JsonToken.NUMBER);
+    scratchLength = 0;
+    int c;
+    while ((c = read()) != -1) {
+      if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+        append(c);
+      } else {
+        pos--;
+        break;
+      }
+    }
+    return scratchString();
+  }
+
+  @Override
+  public boolean nextBoolean() throws IOException {
+    expect(JsonToken.BOOLEAN);
+    return peekedBoolean;
+  }
+
+  @Override
+  public void nextNull() throws IOException {
+    expect(JsonToken.NULL);
+  }
+
+  @Override
+  public void skipValue() throws IOException {
+    int nesting = 0;
+    do {
+      switch (peek()) {
+        case BEGIN_ARRAY:
+          beginArray();
+          nesting++;
+          break;
+        case BEGIN_OBJECT:
+          beginObject();
+          nesting++;
+          break;
+        case END_ARRAY:
+          endArray();
+          nesting--;
+          break;
+        case END_OBJECT:
+          endObject();
+          nesting--;
+          break;
+        case NAME:
+          expect(JsonToken.NAME);
+          skipString();
+          break;
+        case STRING:
+          expect(JsonToken.STRING);
+          skipString();
+          break;
+        case NUMBER:
+          nextNumber();
+          break;
+        case BOOLEAN:
+        case NULL:
+          peeked = null;
+          break;
+        default:
+          throw new IllegalStateException("no value to skip at byte " + position());
+      }
+    } while (nesting > 0);
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private void expect(JsonToken token) throws IOException {
+    JsonToken actual = peek();
+    if (actual != token) {
+      throw new IllegalStateException(
+          "expected " + token + " but was " + actual + " at byte " + position());
+    }
+    peeked = null;
+  }
+
+  private void push(int state) {
+    if (depth == stack.length) {
+      stack = Arrays.copyOf(stack, depth * 2);
+    }
+    stack[depth++] = state;
+  }
+
+  /** Reads the rest of a string whose opening quote was consumed into the scratch buffer. */
+  private void readString() throws IOException {
+    scratchLength = 0;
+    while (true) {
+      int c = read();
+      if (c == '"') {
+        return;
+      }
+      if (c == -1) {
+        throw syntaxError("unterminated string");
+      }
+      if (c == '\\') {
+        readEscape();
+      } else {
+        append(c);
+      }
+    }
+  }
+
+  private void skipString() throws IOException {
+    while (true) {
+      int c = read();
+      if (c == '"') {
+        return;
+      }
+      if (c == -1) {
+        throw syntaxError("unterminated string");
+      }
+      if (c == '\\') {
+        // the escaped character can be a quote; \\u escapes contain no quotes
+        read();
+      }
+    }
+  }
+
+  private void readEscape() throws IOException {
+    int c = read();
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        append(c);
+        return;
+      case 'b':
+        append('\b');
+        return;
+      case 'f':
+        append('\f');
+        return;
+      case 'n':
+        append('\n');
+        return;
+      case 'r':
+        append('\r');
+        return;
+      case 't':
+        append('\t');
+        return;
+      case 'u':
+        int codePoint = readHex4();
+        if (Character.isHighSurrogate((char) codePoint)) {
+          if (read() != '\\' || read() != 'u') {
+            throw syntaxError("unpaired surrogate");
+          }
+          int low = readHex4();
+          codePoint = Character.toCodePoint((char) codePoint, (char) low);
+        }
+        appendCodePoint(codePoint);
+        return;
+      default:
+        throw syntaxError("invalid escape");
+    }
+  }
+
+  private int readHex4() throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int digit = Character.digit(read(), 16);
+      if (digit < 0) {
+        throw syntaxError("invalid \\u escape");
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+
+  private void appendCodePoint(int codePoint) {
+    if (codePoint < 0x80) {
+      append(codePoint);
+    } else if (codePoint < 0x800) {
+      append(0xC0 | codePoint >> 6);
+      append(0x80 | codePoint & 0x3F);
+    } else if (codePoint < 0x10000) {
+      append(0xE0 | codePoint >> 12);
+      append(0x80 | codePoint >> 6 & 0x3F);
+      append(0x80 | codePoint & 0x3F);
+    } else {
+      append(0xF0 | codePoint >> 18);
+      append(0x80 | codePoint >> 12 & 0x3F);
+      append(0x80 | codePoint >> 6 & 0x3F);
+      append(0x80 | codePoint & 0x3F);
+    }
+  }
+
+  private void append(int b) {
+    if (scratchLength == scratch.length) {
+      scratch = Arrays.copyOf(scratch, scratchLength * 2);
+    }
+    scratch[scratchLength++] = (byte) b;
+  }
+
+  private String scratchString() {
+    return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+  }
+
+  private void expectLiteral(String rest) throws IOException {
+    for (int i = 0; i < rest.length(); i++) {
+      if (read() != rest.charAt(i)) {
+        throw syntaxError("invalid literal");
+      }
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    while (true) {
+      int c = read();
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c;
+      }
+    }
+  }
+
+  /** Returns the next byte, or -1 at the end of the input. Only the last byte can be unread. */
+  private int read() throws IOException {
+    if (pos == limit) {
+      offset += limit;
+      // keep the last byte so that pos-- can unread it
+      if (limit > 0) {
+        buffer[0] = buffer[limit - 1];
+        pos = 1;
+        offset--;
+      } else {
+        pos = 0;
+      }
+      int n = in.read(buffer, pos, buffer.length - pos);
+      if (n <= 0) {
+        limit = pos;
+        return -1;
+      }
+      limit = pos + n;
+    }
+    return buffer[pos++] & 0xFF;
+  }
+
+  private long position() {
+    return offset + pos;
+  }
+
+  private IOException syntaxError(String message) {
+    return new IOException("malformed JSON at byte " + position() + ": " + message);
+  }
+}
@@ -0,0 +1,18 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import io.dgraph.json.NodeDecoder;
+
+/**
+ * Reads values of a type from a {@link io.dgraph.json.JsonTokenReader} and writes them to a {@link
+ * JsonWriter}. Codecs of {@link DgraphType} classes are generated; {@link Codecs} has those of
+ * scalars. Implementations are stateless and thread safe.
+ */
+public interface Codec<T> extends NodeDecoder<T> {
+  /** Writes {@code value}, which is not null, as the next value of {@code writer}. */
+  void encode(T value, JsonWriter writer);
+}
@@ -0,0 +1,179 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import io.dgraph.json.JsonToken;
+import io.dgraph.json.JsonTokenReader;
+import io.dgraph.json.NodeDecoder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The codecs of scalar values, and the helpers that generated codecs call. Dgraph returns a single
+ * edge either as an object or as an array of one object, depending on the schema, so {@link
+ * #readOne} and {@link #readList} accept both.
+ */
+public final class Codecs {
+  public static final Codec<String> STRING =
+      new Codec<String>() {
+        @Override
+        public String decode(JsonTokenReader reader) throws IOException {
+          return readString(reader);
+        }
+
+        @Override
+        public void encode(String value, JsonWriter writer) {
+          writer.value(value);
+        }
+      };
+
+  public static final Codec<Long> LONG =
+      new Codec<Long>() {
+        @Override
+        public Long decode(JsonTokenReader reader) throws IOException {
+          return readLong(reader);
+        }
+
+        @Override
+        public void encode(Long value, JsonWriter writer) {
+          writer.value(value.longValue());
+        }
+      };
+
+  public static final Codec<Integer> INTEGER =
+      new Codec<Integer>() {
+        @Override
+        public Integer decode(JsonTokenReader reader) throws IOException {
+          return readInt(reader);
+        }
+
+        @Override
+        public void encode(Integer value, JsonWriter writer) {
+          writer.value(value.longValue());
+        }
+      };
+
+  public static final Codec<Double> DOUBLE =
+      new Codec<Double>() {
+        @Override
+        public Double decode(JsonTokenReader reader) throws IOException {
+          return readDouble(reader);
+        }
+
+        @Override
+        public void encode(Double value, JsonWriter writer) {
+          writer.value(value.doubleValue());
+        }
+      };
+
+  public static final Codec<Float> FLOAT =
+      new Codec<Float>() {
+        @Override
+        public Float decode(JsonTokenReader reader) throws IOException {
+          return readFloat(reader);
+        }
+
+        @Override
+        public void encode(Float value, JsonWriter writer) {
+          writer.value(value.floatValue());
+        }
+      };
+
+  public static final Codec<Boolean> BOOLEAN =
+      new Codec<Boolean>() {
+        @Override
+        public Boolean decode(JsonTokenReader reader) throws IOException {
+          return readBoolean(reader);
+        }
+
+        @Override
+        public void encode(Boolean value, JsonWriter writer) {
+          writer.value(value.booleanValue());
+        }
+      };
+
+  private Codecs() {}
+
+  public static String readString(JsonTokenReader reader) throws IOException {
+    return reader.nextString();
+  }
+
+  public static long readLong(JsonTokenReader reader) throws IOException {
+    return Long.parseLong(reader.nextNumber());
+  }
+
+  public static int readInt(JsonTokenReader reader) throws IOException {
+    return Integer.parseInt(reader.nextNumber());
+  }
+
+  public static double readDouble(JsonTokenReader reader) throws IOException {
+    return Double.parseDouble(reader.nextNumber());
+  }
+
+  public static float readFloat(JsonTokenReader reader) throws IOException {
+    return Float.parseFloat(reader.nextNumber());
+  }
+
+  public static boolean readBoolean(JsonTokenReader reader) throws IOException {
+    return reader.nextBoolean();
+  }
+
+  /** Returns whether the next value is null, consuming it if so. */
+  public static boolean skipNull(JsonTokenReader reader) throws IOException {
+    if (reader.peek() != JsonToken.NULL) {
+      return false;
+    }
+    reader.nextNull();
+    return true;
+  }
+
+  /** Reads an array of values, or a single value as a list of one. */
+  public static <E> List<E> readList(JsonTokenReader reader, NodeDecoder<E> decoder)
+      throws IOException {
+    List<E> list = new ArrayList<>();
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      list.add(decoder.decode(reader));
+      return list;
+    }
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (!skipNull(reader)) {
+        list.add(decoder.decode(reader));
+      }
+    }
+    reader.endArray();
+    return list;
+  }
+
+  /** Reads a single value, or the first value of an array; null if the array is empty. */
+  public static <E> E readOne(JsonTokenReader reader, NodeDecoder<E> decoder) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      return decoder.decode(reader);
+    }
+    reader.beginArray();
+    E value = null;
+    if (reader.hasNext() && !skipNull(reader)) {
+      value = decoder.decode(reader);
+    }
+    while (reader.hasNext()) {
+      reader.skipValue();
+    }
+    reader.endArray();
+    return value;
+  }
+
+  /** Writes {@code list} as an array, skipping null elements. */
+  public static <E> void writeList(JsonWriter writer, List<E> list, Codec<E> codec) {
+    writer.beginArray();
+    for (E element : list) {
+      if (element != null) {
+        codec.encode(element, writer);
+      }
+    }
+    writer.endArray();
+  }
+}
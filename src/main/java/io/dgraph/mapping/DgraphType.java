@@ -0,0 +1,33 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose instances are read from query results and written as JSON mutations by a
+ * {@link Codec} that the {@code dgraph4j-mapping-processor} annotation processor generates at
+ * compile time; see {@link Mapper}.
+ *
+ * <p>Every non-static, non-transient field the class declares or inherits is mapped to the
+ * predicate of its name, or of its {@link Predicate} annotation, and the field annotated with
+ * {@link Uid} to the uid of the node. Fields must not be private or final, must be public if they
+ * are inherited from another package, and must not hide an inherited field. They may be a {@code
+ * String}, a primitive or boxed {@code boolean}, {@code int}, {@code long}, {@code float} or {@code
+ * double}, another {@code DgraphType} class, or a {@code List} of those. The class needs a
+ * constructor without parameters that is not private.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DgraphType {
+  /** The name written to {@code dgraph.type} in mutations; none is written if empty. */
+  String value() default "";
+}
@@ -0,0 +1,263 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a JSON document as UTF-8 straight into a byte array, which {@link #toByteString()} hands
+ * over without a copy, e.g. as the {@code set_json} of a mutation. Strings are encoded char by char
+ * and numbers digit by digit, so no intermediate {@code String} of the document is built.
+ *
+ * <p>The writer only separates values with commas; it does not check that the calls form a valid
+ * document. Instances are not thread safe, and must not be written to after {@link
+ * #toByteString()}.
+ */
+public final class JsonWriter {
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+  private static final byte[] MIN_LONG =
+      Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+  private byte[] buffer;
+  private int size;
+  // whether the next value or name follows another one in the same array or object
+  private boolean separate;
+
+  public JsonWriter() {
+    this(256);
+  }
+
+  /** Creates a writer whose buffer starts at {@code capacity} bytes. */
+  public JsonWriter(int capacity) {
+    this.buffer = new byte[Math.max(16, capacity)];
+  }
+
+  public JsonWriter beginObject() {
+    beforeValue();
+    write('{');
+    separate = false;
+    return this;
+  }
+
+  public JsonWriter endObject() {
+    write('}');
+    separate = true;
+    return this;
+  }
+
+  public JsonWriter beginArray() {
+    beforeValue();
+    write('[');
+    separate = false;
+    return this;
+  }
+
+  public JsonWriter endArray() {
+    write(']');
+    separate = true;
+    return this;
+  }
+
+  /** Writes the name of the next property of the current object. */
+  public JsonWriter name(String name) {
+    beforeValue();
+    writeString(name);
+    write(':');
+    separate = false;
+    return this;
+  }
+
+  /** Writes a string, or {@code null} if it is null. */
+  public JsonWriter value(String value) {
+    if (value == null) {
+      return nullValue();
+    }
+    beforeValue();
+    writeString(value);
+    separate = true;
+    return this;
+  }
+
+  public JsonWriter value(boolean value) {
+    beforeValue();
+    write(value ? TRUE : FALSE);
+    separate = true;
+    return this;
+  }
+
+  public JsonWriter value(long value) {
+    beforeValue();
+    if (value == Long.MIN_VALUE) {
+      write(MIN_LONG);
+    } else {
+      writeLong(value);
+    }
+    separate = true;
+    return this;
+  }
+
+  /** Writes a finite number; JSON has no representation of NaN and the infinities. */
+  public JsonWriter value(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException("JSON numbers must be finite, but was " + value);
+    }
+    if (value == (long) value && Math.abs(value) < 1e15) {
+      return value((long) value);
+    }
+    beforeValue();
+    writeAscii(Double.toString(value));
+    separate = true;
+    return this;
+  }
+
+  /** Writes a finite number with the digits of a {@code float}, e.g. 0.1 not 0.100000001. */
+  public JsonWriter value(float value) {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      throw new IllegalArgumentException("JSON numbers must be finite, but was " + value);
+    }
+    if (value == (long) value && Math.abs(value) < 1e7) {
+      return value((long) value);
+    }
+    beforeValue();
+    writeAscii(Float.toString(value));
+    separate = true;
+    return this;
+  }
+
+  public JsonWriter nullValue() {
+    beforeValue();
+    write(NULL);
+    separate = true;
+    return this;
+  }
+
+  /** Returns the number of bytes written so far. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the document without copying it. */
+  public ByteString toByteString() {
+    return UnsafeByteOperations.unsafeWrap(buffer, 0, size);
+  }
+
+  private void beforeValue() {
+    if (separate) {
+      write(',');
+    }
+  }
+
+  private void writeString(String s) {
+    ensure(s.length() + 2);
+    buffer[size++] = '"';
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+        ensure(1);
+        buffer[size++] = (byte) c;
+      } else if (c < 0x80) {
+        writeEscape(c);
+      } else if (c < 0x800) {
+        ensure(2);
+        buffer[size++] = (byte) (0xc0 | (c >> 6));
+        buffer[size++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < s.length()
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        ensure(4);
+        buffer[size++] = (byte) (0xf0 | (codePoint >> 18));
+        buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        buffer[size++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        // a lone surrogate cannot be encoded as UTF-8
+        writeEscape(c);
+      } else {
+        ensure(3);
+        buffer[size++] = (byte) (0xe0 | (c >> 12));
+        buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        buffer[size++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    write('"');
+  }
+
+  private void writeEscape(char c) {
+    ensure(6);
+    buffer[size++] = '\\';
+    switch (c) {
+      case '"':
+        buffer[size++] = '"';
+        return;
+      case '\\':
+        buffer[size++] = '\\';
+        return;
+      case '\n':
+        buffer[size++] = 'n';
+        return;
+      case '\r':
+        buffer[size++] = 'r';
+        return;
+      case '\t':
+        buffer[size++] = 't';
+        return;
+      default:
+        buffer[size++] = 'u';
+        buffer[size++] = HEX[(c >> 12) & 0xf];
+        buffer[size++] = HEX[(c >> 8) & 0xf];
+        buffer[size++] = HEX[(c >> 4) & 0xf];
+        buffer[size++] = HEX[c & 0xf];
+    }
+  }
+
+  private void writeLong(long value) {
+    ensure(20);
+    if (value < 0) {
+      buffer[size++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long v = value; v >= 10; v /= 10) {
+      digits++;
+    }
+    for (int i = size + digits - 1; i >= size; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    size += digits;
+  }
+
+  private void writeAscii(String s) {
+    ensure(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      buffer[size++] = (byte) s.charAt(i);
+    }
+  }
+
+  private void write(int b) {
+    ensure(1);
+    buffer[size++] = (byte) b;
+  }
+
+  private void write(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  private void ensure(int extra) {
+    if (size + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.json.JsonResultReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maps query results to {@link DgraphType} classes and those classes to JSON mutations, using the
+ * codecs generated at compile time. Results are decoded straight from the bytes of {@link
+ * Response#getJson()}, and mutations are encoded straight into the bytes of {@link
+ * Mutation#getSetJson()}; neither goes through a {@code String} of the document or reflection.
+ *
+ * <pre>
+ * &#64;DgraphType("Person")
+ * public class Person {
+ *   &#64;Uid String uid;
+ *   String name;
+ *   &#64;Predicate("friend") List&lt;Person&gt; friends;
+ * }
+ *
+ * List&lt;Person&gt; people = Mapper.decode(txn.query(query), "people", Person.class);
+ * txn.mutate(Mapper.setJson(person));
+ * </pre>
+ *
+ * <p>The codec of a class {@code com.example.Outer.Person} is the generated class {@code
+ * com.example.Outer_Person_DgraphCodec}, which is looked up once per class. The annotation
+ * processor in {@code dgraph4j-mapping-processor} must be on the annotation processor path of the
+ * compilation of the annotated classes.
+ */
+public final class Mapper {
+  private static final ClassValue<Codec<?>> CODECS =
+      new ClassValue<Codec<?>>() {
+        @Override
+        protected Codec<?> computeValue(Class<?> type) {
+          return load(type);
+        }
+      };
+
+  private Mapper() {}
+
+  /**
+   * Returns the generated codec of {@code type}.
+   *
+   * @throws IllegalArgumentException if {@code type} has no generated codec
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Codec<T> codec(Class<T> type) {
+    return (Codec<T>) CODECS.get(type);
+  }
+
+  /** Decodes the nodes of the block named {@code block} of the response; empty if it is missing. */
+  public static <T> List<T> decode(Response response, String block, Class<T> type) {
+    Codec<T> codec = codec(type);
+    List<T> nodes = new ArrayList<>();
+    try (JsonResultReader result = JsonResultReader.of(response)) {
+      while (result.nextBlock()) {
+        if (result.getBlockName().equals(block)) {
+          while (result.hasNextNode()) {
+            nodes.add(result.nextNode(codec));
+          }
+          break;
+        }
+      }
+    }
+    return nodes;
+  }
+
+  /** Encodes {@code value} as a JSON object. */
+  public static ByteString encode(Object value) {
+    JsonWriter writer = new JsonWriter();
+    encode(value, writer);
+    return writer.toByteString();
+  }
+
+  /** Encodes {@code values} as a JSON array of objects, e.g. to set many nodes in one mutation. */
+  public static <T> ByteString encodeAll(Collection<? extends T> values, Class<T> type) {
+    Codec<T> codec = codec(type);
+    JsonWriter writer = new JsonWriter(Math.max(256, values.size() * 64));
+    writer.beginArray();
+    for (T value : values) {
+      codec.encode(value, writer);
+    }
+    writer.endArray();
+    return writer.toByteString();
+  }
+
+  /** Returns a mutation that sets the predicates of {@code value}. */
+  public static Mutation setJson(Object value) {
+    return Mutation.newBuilder().setSetJson(encode(value)).build();
+  }
+
+  /** Returns a mutation that deletes the predicates of {@code value} that are not null. */
+  public static Mutation deleteJson(Object value) {
+    return Mutation.newBuilder().setDeleteJson(encode(value)).build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void encode(T value, JsonWriter writer) {
+    Codec<T> codec = (Codec<T>) codec(value.getClass());
+    codec.encode(value, writer);
+  }
+
+  private static Codec<?> load(Class<?> type) {
+    String name = codecName(type);
+    try {
+      Class<?> codecClass = Class.forName(name, true, type.getClassLoader());
+      return (Codec<?>) codecClass.getField("INSTANCE").get(null);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException(
+          "no codec " + name + " was generated for " + type.getName() + "; is it a @DgraphType?",
+          e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("cannot load codec " + name, e);
+    }
+  }
+
+  /** Returns the name of the generated codec of {@code type}, e.g. {@code a.b.Outer_Inner_...}. */
+  static String codecName(Class<?> type) {
+    String packageName = type.getPackageName();
+    if (packageName.isEmpty()) {
+      return type.getName().replace('$', '_') + "_DgraphCodec";
+    }
+    String nestedName = type.getName().substring(packageName.length() + 1);
+    return packageName + "." + nestedName.replace('$', '_') + "_DgraphCodec";
+  }
+}
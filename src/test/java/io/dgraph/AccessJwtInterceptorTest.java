@@ -0,0 +1,116 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Jwt;
+import io.dgraph.DgraphProto.LoginRequest;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class AccessJwtInterceptorTest {
+
+  /** Records the accessJwt header values seen on each call. */
+  private static class RecordingAlpha extends DgraphGrpc.DgraphImplBase {
+    private int logins;
+
+    @Override
+    public void login(LoginRequest request, StreamObserver<Response> responseObserver) {
+      logins++;
+      Jwt jwt =
+          Jwt.newBuilder().setAccessJwt("access-" + logins).setRefreshJwt("refresh").build();
+      responseObserver.onNext(Response.newBuilder().setJson(jwt.toByteString()).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(
+          Response.newBuilder()
+              .setJson(ByteString.copyFromUtf8("{}"))
+              .setTxn(TxnContext.newBuilder().setStartTs(1))
+              .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void commitOrAbort(TxnContext request, StreamObserver<TxnContext> responseObserver) {
+      responseObserver.onNext(request);
+      responseObserver.onCompleted();
+    }
+  }
+
+  /** Captures the values of one header from the most recent call. */
+  private static class HeaderCapture implements ServerInterceptor {
+    private final Metadata.Key<String> key;
+    private volatile Iterable<String> last;
+
+    HeaderCapture(Metadata.Key<String> key) {
+      this.key = key;
+    }
+
+    Iterable<String> last() {
+      return last;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      last = headers.getAll(key);
+      return next.startCall(call, headers);
+    }
+  }
+
+  private static List<String> values(Iterable<String> headers) {
+    List<String> values = new ArrayList<>();
+    if (headers != null) {
+      headers.forEach(values::add);
+    }
+    return values;
+  }
+
+  @Test
+  public void testHeaderAttachedOncePerCall() throws Exception {
+    RecordingAlpha service = new RecordingAlpha();
+    HeaderCapture capture = new HeaderCapture(AccessJwtInterceptor.ACCESS_JWT_KEY);
+    try (FakeDgraphServer alpha =
+        FakeDgraphServer.builder().service(service).interceptors(capture).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+
+      client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+      assertNull(capture.last());
+
+      client.login("groot", "password").get(5, TimeUnit.SECONDS);
+      AsyncTransaction txn = client.newTransaction();
+      txn.mutate(Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8("<0x1> <a> \"b\" .")))
+          .get(5, TimeUnit.SECONDS);
+      assertEquals(values(capture.last()), List.of("access-1"));
+      txn.commit().get(5, TimeUnit.SECONDS);
+      assertEquals(values(capture.last()), List.of("access-1"));
+
+      // a fresh login swaps the token attached by the already-built stubs, and carries none itself
+      client.login("groot", "password").get(5, TimeUnit.SECONDS);
+      assertNull(capture.last());
+      client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+      assertEquals(values(capture.last()), List.of("access-2"));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.RunDQLRequest;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CancellationTest {
+  private final Semaphore cancelled = new Semaphore(0);
+  private final AtomicInteger started = new AtomicInteger();
+  private FakeDgraphServer alpha;
+  private DgraphAsyncClient client;
+
+  /** Answers no query, and counts the calls the client cancelled. */
+  private final class HangingAlpha extends DgraphGrpc.DgraphImplBase {
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      hang(responseObserver);
+    }
+
+    @Override
+    public void runDQL(RunDQLRequest request, StreamObserver<Response> responseObserver) {
+      hang(responseObserver);
+    }
+
+    private void hang(StreamObserver<Response> responseObserver) {
+      started.incrementAndGet();
+      ((ServerCallStreamObserver<Response>) responseObserver)
+          .setOnCancelHandler(cancelled::release);
+    }
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    alpha = FakeDgraphServer.builder().service(new HangingAlpha()).build();
+    client = new DgraphAsyncClient(alpha.stub());
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    alpha.close();
+  }
+
+  @Test
+  public void testCancelledQueryIsCancelledOnServer() throws Exception {
+    CompletableFuture<Response> future = client.newReadOnlyTransaction().query("{ q() }");
+    assertEquals(started.get(), 1);
+
+    assertTrue(future.cancel(true));
+    assertTrue(cancelled.tryAcquire(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testTimedOutQueryIsCancelledOnServer() throws Exception {
+    CompletableFuture<Response> future =
+        client.newTransaction().query("{ q() }").orTimeout(50, TimeUnit.MILLISECONDS);
+
+    Throwable error = future.handle((response, t) -> t).join();
+    assertTrue(error instanceof TimeoutException, "" + error);
+    assertTrue(cancelled.tryAcquire(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCancelledRunDQLIsCancelledOnServer() throws Exception {
+    CompletableFuture<Response> future = client.runDQL("{ q() }");
+    assertEquals(started.get(), 1);
+
+    future.cancel(true);
+    assertTrue(cancelled.tryAcquire(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCancellingOneQueryLeavesOthersRunning() throws Exception {
+    AsyncTransaction txn = client.newReadOnlyTransaction();
+    CompletableFuture<Response> abandoned = txn.query("{ a() }");
+    CompletableFuture<Response> kept = txn.query("{ b() }");
+    assertEquals(started.get(), 2);
+
+    abandoned.cancel(true);
+    assertTrue(cancelled.tryAcquire(5, TimeUnit.SECONDS));
+    assertFalse(cancelled.tryAcquire(100, TimeUnit.MILLISECONDS));
+    assertFalse(kept.isDone());
+  }
+}
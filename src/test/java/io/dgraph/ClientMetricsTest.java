@@ -0,0 +1,85 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.testing.FakeDgraphServer;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ClientMetricsTest {
+  private static final Mutation MUTATION =
+      Mutation.newBuilder()
+          .setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"A\" ."))
+          .setCommitNow(true)
+          .build();
+
+  private FakeDgraphServer server;
+  private InMemoryClientMetrics metrics;
+  private DgraphAsyncClient client;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    server = FakeDgraphServer.builder().build();
+    metrics = new InMemoryClientMetrics();
+    client = DgraphAsyncClient.builder(server.stub()).metrics(metrics).build();
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  @Test
+  public void testOperationsAreMeasured() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+    }
+    client.newTransaction().mutate(MUTATION).get(5, TimeUnit.SECONDS);
+    client.allocateUIDs(10).get(5, TimeUnit.SECONDS);
+
+    assertEquals(metrics.getOperation("query").getLatency().getCount(), 10);
+    assertEquals(metrics.getOperation("mutate").getLatency().getCount(), 1);
+    assertEquals(metrics.getOperation("allocateIDs").getLatency().getCount(), 1);
+    for (InMemoryClientMetrics.Operation operation : metrics.getOperations().values()) {
+      assertEquals(operation.getInFlight(), 0);
+      assertEquals(operation.getErrorCount(), 0);
+    }
+  }
+
+  @Test
+  public void testRetriesAndErrorsAreCounted() throws Exception {
+    server.failNext(1, FakeDgraphServer.ABORTED);
+    client.withRetry(txn -> txn.mutate(MUTATION)).get(5, TimeUnit.SECONDS);
+
+    InMemoryClientMetrics.Operation mutate = metrics.getOperation("mutate");
+    assertEquals(mutate.getLatency().getCount(), 2);
+    assertEquals(mutate.getErrorCounts().get("TxnConflictException").longValue(), 1);
+    // the failed mutation discards its transaction
+    assertEquals(metrics.getOperation("discard").getLatency().getCount(), 1);
+    assertEquals(metrics.getRetryCount(), 1);
+    assertEquals(metrics.getRetryCounts().get("TxnConflictException").longValue(), 1);
+  }
+
+  @Test
+  public void testJwtRefreshesAreCounted() throws Exception {
+    client.login("groot", "password").get(5, TimeUnit.SECONDS);
+    server.expireTokens();
+    client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+
+    assertEquals(metrics.getJwtRefreshCount(), 1);
+    assertEquals(metrics.getOperation("login").getLatency().getCount(), 2);
+    // the query repeated with the refreshed token is measured once
+    assertEquals(metrics.getOperation("query").getLatency().getCount(), 1);
+    assertTrue(metrics.getOperation("query").getErrorCounts().isEmpty());
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class ConcurrencyLimitTest {
+
+  /** Holds every query until the test answers or fails it. */
+  private static class HoldingAlpha extends DgraphGrpc.DgraphImplBase {
+    final List<StreamObserver<Response>> held = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      held.add(responseObserver);
+    }
+
+    void answer(int index) {
+      held.get(index).onNext(Response.getDefaultInstance());
+      held.get(index).onCompleted();
+    }
+
+    void overload(int index) {
+      held.get(index).onError(Status.RESOURCE_EXHAUSTED.asRuntimeException());
+    }
+  }
+
+  private static CompletableFuture<Response> query(DgraphAsyncClient client) {
+    return client.newReadOnlyTransaction().query("{ q(func: uid(1)) { uid } }");
+  }
+
+  @Test
+  public void testLimitGrowsWhileSaturatedAndBacksOffOnOverload() {
+    ConcurrencyLimiter limiter =
+        new ConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(4).build());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(limiter.acquire(() -> {}), ConcurrencyLimiter.Admission.ACQUIRED);
+    }
+    // four saturated successes add 1/4 each
+    for (int i = 0; i < 4; i++) {
+      limiter.release(4, false);
+      limiter.acquire(() -> {});
+    }
+    assertEquals(limiter.getLimit(), 4);
+    limiter.release(4, false);
+    limiter.acquire(() -> {});
+    assertEquals(limiter.getLimit(), 5);
+
+    // successes while mostly idle do not grow the limit
+    limiter.release(1, false);
+    limiter.acquire(() -> {});
+    assertEquals(limiter.getLimit(), 5);
+
+    limiter.release(4, true);
+    assertEquals(limiter.getLimit(), 4);
+    for (int i = 0; i < 50; i++) {
+      limiter.acquire(() -> {});
+      limiter.release(1, true);
+    }
+    assertEquals(limiter.getLimit(), 1);
+  }
+
+  @Test
+  public void testCallsOverTheLimitAreQueued() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(alpha.stub())
+              .concurrencyLimit(ConcurrencyLimit.builder().initialLimit(2).maxQueued(1).build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      CompletableFuture<Response> first = query(client);
+      CompletableFuture<Response> second = query(client);
+      CompletableFuture<Response> queued = query(client);
+      assertEquals(service.held.size(), 2);
+      assertEquals(stats.getQueued(), 1);
+      assertEquals(stats.getOutstanding(), 2);
+
+      CompletionException rejected =
+          expectThrows(CompletionException.class, () -> query(client).join());
+      assertTrue(rejected.getCause() instanceof ResourceExhaustedException);
+
+      service.answer(0);
+      first.join();
+      assertEquals(service.held.size(), 3);
+      assertEquals(stats.getQueued(), 0);
+
+      service.answer(1);
+      service.answer(2);
+      second.join();
+      queued.join();
+      assertEquals(stats.getOutstanding(), 0);
+    }
+  }
+
+  @Test
+  public void testOverloadShrinksTheLimit() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(alpha.stub())
+              .concurrencyLimit(ConcurrencyLimit.builder().initialLimit(10).build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      CompletableFuture<Response> future = query(client);
+      service.overload(0);
+      assertTrue(future.isCompletedExceptionally());
+      assertEquals(stats.getConcurrencyLimit(), 9);
+      assertFalse(stats.isEjected());
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testQueuedCallFailsAtItsDeadline() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(alpha.stub())
+              .concurrencyLimit(ConcurrencyLimit.builder().initialLimit(2).build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      CompletableFuture<Response> first = query(client);
+      CompletableFuture<Response> second = query(client);
+      CompletableFuture<Response> queued =
+          client
+              .newReadOnlyTransaction()
+              .doRequest(
+                  Request.newBuilder().setQuery("{ q(func: uid(1)) { uid } }").build(),
+                  100,
+                  TimeUnit.MILLISECONDS);
+      CompletionException expired = expectThrows(CompletionException.class, queued::join);
+      assertTrue(expired.getCause() instanceof DeadlineExceededException);
+      assertEquals(stats.getQueued(), 0);
+      // the alpha never saw the call, so it does not count as overload
+      assertEquals(stats.getConcurrencyLimit(), 2);
+      assertEquals(service.held.size(), 2);
+
+      service.answer(0);
+      service.answer(1);
+      first.join();
+      second.join();
+      assertEquals(service.held.size(), 2);
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testQueuedCallFailsWhenItsContextIsCancelled() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(alpha.stub())
+              .concurrencyLimit(ConcurrencyLimit.builder().initialLimit(2).build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      CompletableFuture<Response> first = query(client);
+      CompletableFuture<Response> second = query(client);
+      Context.CancellableContext context = Context.current().withCancellation();
+      CompletableFuture<Response> queued = context.call(() -> query(client));
+      assertEquals(stats.getQueued(), 1);
+
+      context.cancel(null);
+      expectThrows(CompletionException.class, queued::join);
+      assertEquals(stats.getQueued(), 0);
+      assertEquals(stats.getConcurrencyLimit(), 2);
+
+      // the slot released by the first call is not handed to the cancelled one
+      service.answer(0);
+      first.join();
+      assertEquals(service.held.size(), 2);
+      service.answer(1);
+      second.join();
+      assertEquals(stats.getOutstanding(), 0);
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testDeadlineInFlightShrinksTheLimit() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(alpha.stub())
+              .concurrencyLimit(ConcurrencyLimit.builder().initialLimit(10).build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      CompletableFuture<Response> future =
+          client
+              .newReadOnlyTransaction()
+              .doRequest(
+                  Request.newBuilder().setQuery("{ q(func: uid(1)) { uid } }").build(),
+                  100,
+                  TimeUnit.MILLISECONDS);
+      CompletionException expired = expectThrows(CompletionException.class, future::join);
+      assertTrue(expired.getCause() instanceof DeadlineExceededException);
+      assertEquals(stats.getConcurrencyLimit(), 9);
+    }
+  }
+
+  @Test
+  public void testNoLimitByDefault() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(new HoldingAlpha()).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      assertEquals(client.getStubStats().get(0).getConcurrencyLimit(), Integer.MAX_VALUE);
+    }
+  }
+}
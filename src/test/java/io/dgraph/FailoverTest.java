@@ -0,0 +1,122 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Runs against one healthy and one draining in-process alpha, with ejection disabled and random
+ * selection, so that only the failover logic keeps requests away from the draining alpha.
+ */
+public class FailoverTest {
+  private static final int NUM_OPS = 200;
+  private static final Mutation MUTATION =
+      Mutation.newBuilder()
+          .setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"Alice\" ."))
+          .setCommitNow(true)
+          .build();
+
+  private static class HealthyAlpha extends DgraphGrpc.DgraphImplBase {
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(
+          Response.newBuilder()
+              .setJson(ByteString.copyFromUtf8("{}"))
+              .setTxn(TxnContext.newBuilder().setStartTs(1))
+              .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void commitOrAbort(TxnContext request, StreamObserver<TxnContext> responseObserver) {
+      responseObserver.onNext(request);
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class DrainingAlpha extends DgraphGrpc.DgraphImplBase {
+    final AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      queries.incrementAndGet();
+      responseObserver.onError(
+          Status.UNKNOWN.withDescription("the server is in draining mode").asRuntimeException());
+    }
+  }
+
+  private DrainingAlpha draining;
+  private FakeDgraphServer drainingAlpha;
+  private FakeDgraphServer healthyAlpha;
+  private DgraphAsyncClient client;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    draining = new DrainingAlpha();
+    drainingAlpha = FakeDgraphServer.builder().service(draining).build();
+    healthyAlpha = FakeDgraphServer.builder().service(new HealthyAlpha()).build();
+    client =
+        DgraphAsyncClient.builder(drainingAlpha.stub(), healthyAlpha.stub())
+            .stubSelector(StubSelector.random())
+            .ejectionTime(Duration.ZERO)
+            .build();
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    client.shutdown();
+    drainingAlpha.close();
+    healthyAlpha.close();
+  }
+
+  @Test
+  public void testReadOnlyQueryMovesToAnotherAlpha() throws Exception {
+    for (int i = 0; i < NUM_OPS; i++) {
+      client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+    }
+    assertTrue(draining.queries.get() > 0);
+  }
+
+  @Test
+  public void testAsyncWithRetryExcludesDrainingAlpha() throws Exception {
+    RetryPolicy policy = RetryPolicy.builder().maxRetries(1).baseDelay(Duration.ZERO).build();
+    for (int i = 0; i < NUM_OPS; i++) {
+      client.withRetry(policy, txn -> txn.mutate(MUTATION)).get(5, TimeUnit.SECONDS);
+    }
+    // each operation hits the draining alpha at most once
+    assertTrue(draining.queries.get() > 0);
+    assertTrue(draining.queries.get() <= NUM_OPS);
+  }
+
+  @Test
+  public void testSyncWithRetryExcludesDrainingAlpha() {
+    DgraphClient syncClient = new DgraphClient(client);
+    RetryPolicy policy = RetryPolicy.builder().maxRetries(1).baseDelay(Duration.ZERO).build();
+    int succeeded = 0;
+    for (int i = 0; i < NUM_OPS; i++) {
+      syncClient.withRetry(policy, txn -> txn.mutate(MUTATION));
+      succeeded++;
+    }
+    assertEquals(succeeded, NUM_OPS);
+    assertTrue(draining.queries.get() > 0);
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HedgingTest {
+  private FakeDgraphServer slow;
+  private FakeDgraphServer fast;
+  private InMemoryClientMetrics metrics;
+  private BlockingQueue<Status.Code> slowCloses;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    slow = FakeDgraphServer.builder().build();
+    fast = FakeDgraphServer.builder().build();
+    metrics = new InMemoryClientMetrics();
+    slowCloses = new LinkedBlockingQueue<>();
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    slow.close();
+    fast.close();
+  }
+
+  /** Returns a client that sends every transaction to the slow server. */
+  private DgraphAsyncClient client(HedgingPolicy hedging) {
+    return DgraphAsyncClient.builder(slow.stub().withInterceptors(new CloseRecorder()), fast.stub())
+        .stubSelector(stubs -> stubs.get(0))
+        .metrics(metrics)
+        .hedging(hedging)
+        .build();
+  }
+
+  @Test
+  public void testSlowQueryIsHedgedAndLoserCancelled() throws Exception {
+    DgraphAsyncClient client =
+        client(HedgingPolicy.builder().minSamples(5).maxHedgeRatio(1).percentile(50).build());
+    for (int i = 0; i < 5; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    assertEquals(metrics.getHedgeCount(), 0);
+    slowCloses.clear();
+
+    slow.setLatency(Duration.ofSeconds(5));
+    long start = System.nanoTime();
+    client.newReadOnlyTransaction().query("{}").join();
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    assertEquals(metrics.getHedgeCount(), 1);
+    assertEquals(fast.getRequestCount(), 1);
+    assertEquals(slowCloses.poll(1, TimeUnit.SECONDS), Status.Code.CANCELLED);
+
+    // queries of read-write transactions are never hedged
+    slow.setLatency(Duration.ofMillis(100));
+    client.newTransaction().query("{}").join();
+    assertEquals(metrics.getHedgeCount(), 1);
+  }
+
+  @Test
+  public void testHedgesAreLimitedToRatio() throws Exception {
+    DgraphAsyncClient client =
+        client(HedgingPolicy.builder().minSamples(1).maxHedgeRatio(0.1).build());
+    client.newReadOnlyTransaction().query("{}").join();
+
+    slow.setLatency(Duration.ofMillis(100));
+    for (int i = 0; i < 8; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    assertEquals(metrics.getHedgeCount(), 0);
+    assertEquals(fast.getRequestCount(), 0);
+
+    // the tenth query keeps hedges within 10% of the queries
+    client.newReadOnlyTransaction().query("{}").join();
+    assertEquals(metrics.getHedgeCount(), 1);
+    assertEquals(fast.getRequestCount(), 1);
+  }
+
+  @Test
+  public void testQueryFailsOnlyOnceEveryCallFailed() throws Exception {
+    DgraphAsyncClient client =
+        client(
+            HedgingPolicy.builder()
+                .minSamples(1)
+                .maxHedgeRatio(1)
+                .minDelay(Duration.ofMillis(50))
+                .build());
+    client.newReadOnlyTransaction().query("{}").join();
+
+    // the hedge fails, but the slow call still answers
+    slow.setLatency(Duration.ofMillis(200));
+    fast.failNext(1, FakeDgraphServer.OVERLOADED);
+    client.newReadOnlyTransaction().query("{}").join();
+    assertEquals(metrics.getHedgeCount(), 1);
+    assertEquals(fast.getRequestCount(), 1);
+
+    // an error that arrives before the hedge delay is not hedged
+    slow.failNext(1, FakeDgraphServer.OVERLOADED);
+    Throwable error = client.newReadOnlyTransaction().query("{}").handle((r, t) -> t).join();
+    assertTrue(error.getCause() instanceof AlphaOverloadedException, "" + error);
+    assertEquals(metrics.getHedgeCount(), 1);
+  }
+
+  @Test
+  public void testHedgesAreNotSavedUpByPastQueries() throws Exception {
+    DgraphAsyncClient client =
+        client(
+            HedgingPolicy.builder()
+                .minSamples(1)
+                .maxHedgeRatio(0.1)
+                .minDelay(Duration.ofMillis(50))
+                .build());
+    // all-time counters would allow 20 hedges after these
+    for (int i = 0; i < 200; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    assertEquals(metrics.getHedgeCount(), 0);
+
+    // the saved-up burst of 10 and the single token earned by the slow queries themselves
+    slow.setLatency(Duration.ofMillis(200));
+    for (int i = 0; i < 15; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    assertEquals(metrics.getHedgeCount(), 11);
+  }
+
+  @Test
+  public void testHedgeDelayFollowsRecentLatencies() {
+    Hedger hedger =
+        new Hedger(
+            client(HedgingPolicy.DEFAULT),
+            HedgingPolicy.builder().minSamples(10).percentile(50).minDelay(Duration.ZERO).build());
+    assertEquals(hedger.hedgeDelayNanos(), -1);
+    long slowNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    for (int i = 0; i < 2048; i++) {
+      hedger.record(slowNanos);
+      hedger.hedgeDelayNanos();
+    }
+    assertTrue(hedger.hedgeDelayNanos() >= slowNanos, "" + hedger.hedgeDelayNanos());
+
+    long fastNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    for (int i = 0; i < 2048; i++) {
+      hedger.record(fastNanos);
+      hedger.hedgeDelayNanos();
+    }
+    assertTrue(hedger.hedgeDelayNanos() < 2 * fastNanos, "" + hedger.hedgeDelayNanos());
+  }
+
+  @Test
+  public void testCancelledLoserKeepsTheLatencyOfItsStub() throws Exception {
+    DgraphAsyncClient client =
+        client(
+            HedgingPolicy.builder()
+                .minSamples(3)
+                .maxHedgeRatio(1)
+                .minDelay(Duration.ofMillis(20))
+                .build());
+    for (int i = 0; i < 3; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    // read-write queries are never hedged, so they measure the slow alpha
+    slow.setLatency(Duration.ofMillis(300));
+    for (int i = 0; i < 2; i++) {
+      client.newTransaction().query("{}").join();
+    }
+    StubStats stats = client.getStubStats().get(0);
+    long slowEwma = stats.getLatencyEwmaNanos();
+    assertTrue(slowEwma >= TimeUnit.MILLISECONDS.toNanos(50), "" + slowEwma);
+    slowCloses.clear();
+
+    for (int i = 0; i < 5; i++) {
+      client.newReadOnlyTransaction().query("{}").join();
+    }
+    assertEquals(metrics.getHedgeCount(), 5);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(slowCloses.poll(1, TimeUnit.SECONDS), Status.Code.CANCELLED);
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (stats.getOutstanding() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(stats.getOutstanding(), 0);
+    assertEquals(stats.getLatencyEwmaNanos(), slowEwma);
+  }
+
+  /** Records the status of every call to the slow server. */
+  private final class CloseRecorder implements ClientInterceptor {
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          super.start(
+              new SimpleForwardingClientCallListener<RespT>(responseListener) {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                  slowCloses.add(status.getCode());
+                  super.onClose(status, trailers);
+                }
+              },
+              headers);
+        }
+      };
+    }
+  }
+}
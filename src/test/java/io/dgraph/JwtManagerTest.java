@@ -0,0 +1,102 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import io.dgraph.DgraphProto.Jwt;
+import io.dgraph.DgraphProto.LoginRequest;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.testing.FakeDgraphServer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class JwtManagerTest {
+
+  static String token(long expEpochSeconds) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String header = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+    String payload =
+        encoder.encodeToString(
+            ("{\"exp\":" + expEpochSeconds + ",\"namespace\":0,\"userid\":\"groot\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    return header + "." + payload + ".c2lnbmF0dXJl";
+  }
+
+  @Test
+  public void testExpiryMillis() {
+    assertEquals(JwtManager.expiryMillis(token(1_700_000_000L)), 1_700_000_000_000L);
+    assertEquals(JwtManager.expiryMillis("not-a-jwt"), 0);
+    assertEquals(JwtManager.expiryMillis("a.%%%.c"), 0);
+    assertEquals(JwtManager.expiryMillis(null), 0);
+  }
+
+  @Test
+  public void testConcurrentRefreshesAreCoalesced() throws Exception {
+    AtomicInteger loginCalls = new AtomicInteger();
+    JwtManager manager =
+        new JwtManager(
+            new AccessJwtInterceptor(),
+            request -> {
+              loginCalls.incrementAndGet();
+              // answer later, so that all refreshes below overlap with the first one
+              CompletableFuture<Response> pending = new CompletableFuture<>();
+              CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)
+                  .execute(() -> pending.complete(loginResponse()));
+              return pending;
+            },
+            Runnable::run);
+    manager.login(LoginRequest.getDefaultInstance()).get(5, TimeUnit.SECONDS);
+
+    List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      refreshes.add(manager.refresh());
+    }
+    CompletableFuture.allOf(refreshes.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    // one login plus a single shared refresh
+    assertEquals(loginCalls.get(), 2);
+    manager.close();
+  }
+
+  private static Response loginResponse() {
+    long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600;
+    Jwt jwt = Jwt.newBuilder().setAccessJwt(token(exp)).setRefreshJwt("refresh").build();
+    return Response.newBuilder().setJson(jwt.toByteString()).build();
+  }
+
+  @Test(timeOut = 30_000)
+  public void testTokenIsRefreshedBeforeExpiry() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      alpha.setTokenTtl(Duration.ofSeconds(3));
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      client.login("groot", "password").get(5, TimeUnit.SECONDS);
+
+      long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(7);
+      int requests = 0;
+      while (System.currentTimeMillis() < end) {
+        client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+        requests++;
+        Thread.sleep(5);
+      }
+
+      // every login after the first is a refresh
+      long refreshes = alpha.getLoginCount() - 1;
+      assertEquals(alpha.getRejectedCount(), 0);
+      assertTrue(refreshes >= 2, "refreshes: " + refreshes);
+      assertTrue(refreshes < requests / 10, "refreshes: " + refreshes);
+      client.shutdown();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.testng.annotations.Test;
+
+public class MutationBatcherTest {
+  private static final Pattern BLANK_NODE = Pattern.compile("_:([A-Za-z0-9_]+)");
+
+  /** Assigns a fresh uid to every blank node of a request and counts the requests. */
+  private static class UidAssigningAlpha extends DgraphGrpc.DgraphImplBase {
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger maxMutations = new AtomicInteger();
+    private final AtomicLong nextUid = new AtomicLong(0x100);
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      requests.incrementAndGet();
+      maxMutations.accumulateAndGet(request.getMutationsCount(), Math::max);
+      Response.Builder response =
+          Response.newBuilder().setTxn(TxnContext.newBuilder().setStartTs(1).setCommitTs(2));
+      for (Mutation mutation : request.getMutationsList()) {
+        Matcher matcher = BLANK_NODE.matcher(mutation.getSetNquads().toStringUtf8());
+        while (matcher.find()) {
+          assign(response, matcher.group(1));
+        }
+        for (NQuad nquad : mutation.getSetList()) {
+          assign(response, nquad.getSubject().substring(2));
+        }
+      }
+      responseObserver.onNext(response.build());
+      responseObserver.onCompleted();
+    }
+
+    private synchronized void assign(Response.Builder response, String name) {
+      if (!response.containsUids(name)) {
+        response.putUids(name, "0x" + Long.toHexString(nextUid.getAndIncrement()));
+      }
+    }
+  }
+
+  private static Mutation person(String name) {
+    String rdf = "_:person <name> \"" + name + "\" .\n_:person <friend> _:friend .";
+    return Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8(rdf)).build();
+  }
+
+  @Test
+  public void testMutationsAreCoalesced() throws Exception {
+    UidAssigningAlpha service = new UidAssigningAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      List<CompletableFuture<Map<String, String>>> results = new ArrayList<>();
+      try (MutationBatcher batcher =
+          MutationBatcher.builder(client)
+              .maxBatchMutations(100)
+              .linger(Duration.ofMillis(50))
+              .build()) {
+        for (int i = 0; i < 1000; i++) {
+          results.add(batcher.add(person("p" + i)));
+        }
+      }
+
+      assertTrue(service.requests.get() <= 20, "requests: " + service.requests.get());
+      assertEquals(service.maxMutations.get(), 100);
+
+      // every caller gets its own blank nodes back, under their original names
+      String previous = null;
+      for (CompletableFuture<Map<String, String>> result : results) {
+        Map<String, String> uids = result.get(5, TimeUnit.SECONDS);
+        assertEquals(uids.keySet(), Set.of("person", "friend"));
+        assertNotEquals(uids.get("person"), previous);
+        previous = uids.get("person");
+      }
+      client.shutdown();
+    }
+  }
+
+  @Test
+  public void testLingerSendsPartialBatch() throws Exception {
+    UidAssigningAlpha service = new UidAssigningAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      MutationBatcher batcher =
+          MutationBatcher.builder(client).linger(Duration.ofMillis(20)).build();
+
+      Map<String, String> uids = batcher.add(person("alice")).get(5, TimeUnit.SECONDS);
+      assertEquals(uids.size(), 2);
+      assertEquals(service.requests.get(), 1);
+      batcher.close();
+      client.shutdown();
+    }
+  }
+
+  @Test
+  public void testRenameBlankNodes() {
+    String rdf =
+        "_:a <name> \"_:not a node\" .\n"
+            + "<_:iri> <knows> _:b . # _:comment\n"
+            + "_:a <knows> _:b .";
+    String renamed =
+        MutationBatcher.renameBlankNodes(ByteString.copyFromUtf8(rdf), "m7_").toStringUtf8();
+    assertEquals(
+        renamed,
+        "_:m7_a <name> \"_:not a node\" .\n"
+            + "<_:iri> <knows> _:m7_b . # _:comment\n"
+            + "_:m7_a <knows> _:m7_b .");
+
+    Mutation mutation =
+        Mutation.newBuilder()
+            .addSet(NQuad.newBuilder().setSubject("_:x").setPredicate("p").setObjectId("0x1"))
+            .setCommitNow(true)
+            .build();
+    Mutation renamedMutation = MutationBatcher.renameBlankNodes(mutation, "m8_");
+    assertEquals(renamedMutation.getSet(0).getSubject(), "_:m8_x");
+    assertEquals(renamedMutation.getSet(0).getObjectId(), "0x1");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testJsonMutationIsRejected() throws Exception {
+    try (FakeDgraphServer alpha =
+        FakeDgraphServer.builder().service(new UidAssigningAlpha()).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      MutationBatcher batcher = MutationBatcher.builder(client).build();
+      batcher.add(Mutation.newBuilder().setSetJson(ByteString.copyFromUtf8("{}")).build());
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Facet;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Value;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.testng.annotations.Test;
+
+public class NQuadBatchTest {
+
+  private static ByteString bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return ByteString.copyFrom(bytes);
+  }
+
+  @Test
+  public void testSetAndDelete() {
+    NQuadBatch batch = new NQuadBatch();
+    Mutation mutation =
+        batch
+            .subject("_:alice")
+            .type("Person")
+            .set("name", "Alice")
+            .set("name", "Alicia", "es")
+            .set("age", 29)
+            .set("score", 1.5)
+            .set("admin", true)
+            .link("friend", "0x2")
+            .facet("close", true)
+            .facet("since", 2010)
+            .subject("0x3")
+            .delete("nickname")
+            .unlink("friend", "0x4")
+            .deleteNode()
+            .cond("@if(eq(len(v), 0))")
+            .build();
+
+    assertEquals(batch.size(), 10);
+    assertEquals(mutation.getSetCount(), 7);
+    assertEquals(
+        mutation.getSet(0),
+        NQuad.newBuilder()
+            .setSubject("_:alice")
+            .setPredicate("dgraph.type")
+            .setObjectValue(Value.newBuilder().setStrVal("Person"))
+            .build());
+    assertEquals(mutation.getSet(2).getLang(), "es");
+    assertEquals(mutation.getSet(3).getObjectValue().getIntVal(), 29);
+    assertEquals(mutation.getSet(4).getObjectValue().getDoubleVal(), 1.5);
+    assertEquals(mutation.getSet(5).getObjectValue().getBoolVal(), true);
+
+    NQuad friend = mutation.getSet(6);
+    assertEquals(friend.getObjectId(), "0x2");
+    assertEquals(friend.getFacetsCount(), 2);
+    assertEquals(friend.getFacets(0).getValType(), Facet.ValType.BOOL);
+    assertEquals(friend.getFacets(0).getValue(), bytes(1));
+    assertEquals(friend.getFacets(1).getValType(), Facet.ValType.INT);
+    assertEquals(friend.getFacets(1).getValue(), bytes(0xda, 0x07, 0, 0, 0, 0, 0, 0));
+
+    assertEquals(mutation.getDelCount(), 3);
+    assertEquals(mutation.getDel(0).getSubject(), "0x3");
+    assertEquals(mutation.getDel(0).getObjectValue().getDefaultVal(), "_STAR_ALL");
+    assertEquals(mutation.getDel(1).getObjectId(), "0x4");
+    assertEquals(mutation.getDel(2).getPredicate(), "_STAR_ALL");
+    assertEquals(mutation.getCond(), "@if(eq(len(v), 0))");
+
+    // the subject outlives clear()
+    assertEquals(batch.clear().size(), 0);
+    assertEquals(batch.set("name", "Carol").build().getSet(0).getSubject(), "0x3");
+    assertEquals(batch.build().getCond(), "");
+  }
+
+  @Test
+  public void testMisuse() {
+    NQuadBatch batch = new NQuadBatch();
+    expectThrows(IllegalStateException.class, () -> batch.set("name", "Alice"));
+    expectThrows(IllegalStateException.class, () -> batch.subject("0x1").facet("since", 2010));
+  }
+
+  @Test
+  public void testDatetime() {
+    // the layout of Go's time.Time.MarshalBinary, which the alpha decodes
+    assertEquals(
+        Values.datetime(Instant.EPOCH),
+        bytes(1, 0, 0, 0, 0x0e, 0x77, 0x91, 0xf7, 0, 0, 0, 0, 0, 0xff, 0xff));
+    assertEquals(
+        Values.datetime(OffsetDateTime.of(1970, 1, 1, 2, 0, 0, 5, ZoneOffset.ofHours(2))),
+        bytes(1, 0, 0, 0, 0x0e, 0x77, 0x91, 0xf7, 0, 0, 0, 0, 5, 0, 120));
+    ZoneOffset seconds = ZoneOffset.ofTotalSeconds(30);
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> Values.datetime(OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, seconds)));
+
+    Mutation mutation = new NQuadBatch().subject("0x1").set("born", Instant.EPOCH).build();
+    assertEquals(
+        mutation.getSet(0).getObjectValue().getDatetimeVal(), Values.datetime(Instant.EPOCH));
+  }
+
+  @Test
+  public void testGeoAndVectors() {
+    ByteBuffer point =
+        Values.geoPoint(1.5, -2).asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(point.get(), 1);
+    assertEquals(point.getInt(), 1);
+    assertEquals(point.getDouble(), 1.5);
+    assertEquals(point.getDouble(), -2.0);
+    assertEquals(point.remaining(), 0);
+
+    ByteString polygon = Values.geoPolygon(new double[] {0, 0, 1, 0, 1, 1, 0, 0});
+    assertEquals(polygon.size(), 1 + 4 + 4 + 4 + 4 * 16);
+    expectThrows(IllegalArgumentException.class, () -> Values.geoPolygon(new double[] {0, 0, 1}));
+
+    float[] vector = {0.5f, -1f};
+    Mutation mutation = new NQuadBatch().subject("0x1").set("embedding", vector).build();
+    ByteBuffer bytes =
+        mutation
+            .getSet(0)
+            .getObjectValue()
+            .getVfloat32Val()
+            .asReadOnlyByteBuffer()
+            .order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(bytes.getFloat(), 0.5f);
+    assertEquals(bytes.getFloat(), -1f);
+    assertEquals(bytes.remaining(), 0);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that in-flight requests do not occupy executor threads: the fake alpha below withholds
+ * every response until all requests have arrived, which can only happen if the client issues them
+ * without parking a thread per request.
+ */
+public class NonBlockingRetryTest {
+  private static final int NUM_REQUESTS = 10_000;
+  private static final String QUERY = "{ q(func: uid(0x1)) { uid } }";
+
+  private static Response okResponse() {
+    return Response.newBuilder()
+        .setJson(ByteString.copyFromUtf8("{\"q\":[{\"uid\":\"0x1\"}]}"))
+        .setTxn(TxnContext.newBuilder().setStartTs(1))
+        .build();
+  }
+
+  /** Holds all query responses until {@code expected} queries are pending, then releases them. */
+  private static class GatedAlpha extends DgraphGrpc.DgraphImplBase {
+    private final int expected;
+    private final Queue<StreamObserver<Response>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger arrived = new AtomicInteger();
+
+    GatedAlpha(int expected) {
+      this.expected = expected;
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      pending.add(responseObserver);
+      if (arrived.incrementAndGet() == expected) {
+        new Thread(this::releaseAll).start();
+      }
+    }
+
+    private void releaseAll() {
+      StreamObserver<Response> observer;
+      while ((observer = pending.poll()) != null) {
+        observer.onNext(okResponse());
+        observer.onCompleted();
+      }
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testConcurrentRequestsDoNotPinExecutorThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (FakeDgraphServer alpha =
+        FakeDgraphServer.builder().service(new GatedAlpha(NUM_REQUESTS)).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(executor, alpha.stub());
+
+      List<CompletableFuture<Response>> futures = new ArrayList<>(NUM_REQUESTS);
+      for (int i = 0; i < NUM_REQUESTS; i++) {
+        futures.add(client.newReadOnlyTransaction().query(QUERY));
+      }
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+          .get(30, TimeUnit.SECONDS);
+      for (CompletableFuture<Response> future : futures) {
+        assertEquals(future.join().getTxn().getStartTs(), 1);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testJwtRefreshRetryIsComposed() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(executor, alpha.stub());
+      client.login("groot", "password").get(5, TimeUnit.SECONDS);
+      alpha.expireTokens();
+
+      Response response = client.newReadOnlyTransaction().query(QUERY).get(5, TimeUnit.SECONDS);
+
+      assertEquals(response.getTxn().getStartTs(), 1);
+      assertEquals(alpha.getRejectedCount(), 1);
+      assertEquals(alpha.getLoginCount(), 2);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
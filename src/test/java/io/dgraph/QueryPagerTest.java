@@ -0,0 +1,208 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class QueryPagerTest {
+  private static final String QUERY =
+      "query people($first: int, $after: string) {\n"
+          + "  people(func: has(name), first: $first, after: $after) { uid name }\n"
+          + "}";
+
+  /** Serves nodes 0x1 to 0xN page by page, like {@code first} and {@code after} would. */
+  private static class PagingAlpha extends DgraphGrpc.DgraphImplBase {
+    final AtomicInteger requests = new AtomicInteger();
+    final Set<Long> startTs = ConcurrentHashMap.newKeySet();
+    private final int nodes;
+    private volatile int failAtRequest = -1;
+
+    PagingAlpha(int nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      int n = requests.incrementAndGet();
+      assertTrue(request.getReadOnly());
+      startTs.add(request.getStartTs() == 0 ? 42 : request.getStartTs());
+      if (n == failAtRequest) {
+        responseObserver.onError(Status.UNAVAILABLE.withDescription("gone").asRuntimeException());
+        return;
+      }
+      int first = Integer.parseInt(request.getVarsOrThrow("$first"));
+      long after = Long.decode(request.getVarsOrThrow("$after"));
+      StringBuilder json = new StringBuilder("{\"people\":[");
+      for (long uid = after + 1; uid <= nodes && uid <= after + first; uid++) {
+        if (uid > after + 1) {
+          json.append(',');
+        }
+        json.append("{\"uid\":\"0x").append(Long.toHexString(uid)).append("\",");
+        json.append("\"name\":\"p").append(uid).append("\"}");
+      }
+      json.append("]}");
+      responseObserver.onNext(
+          Response.newBuilder()
+              .setJson(ByteString.copyFromUtf8(json.toString()))
+              .setTxn(TxnContext.newBuilder().setStartTs(42))
+              .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static List<String> names(int from, int to) {
+    List<String> names = new ArrayList<>();
+    for (int i = from; i <= to; i++) {
+      names.add("p" + i);
+    }
+    return names;
+  }
+
+  @Test
+  public void testStreamReadsEveryPageInOneSnapshot() throws Exception {
+    PagingAlpha service = new PagingAlpha(25);
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (QueryPager pager = QueryPager.builder(client, QUERY).pageSize(10).build()) {
+        List<String> names =
+            pager.stream().map(node -> (String) node.get("name")).collect(Collectors.toList());
+        assertEquals(names, names(1, 25));
+      }
+      // pages of 10, 10 and 5 nodes
+      assertEquals(service.requests.get(), 3);
+      assertEquals(service.startTs, Collections.singleton(42L));
+    }
+  }
+
+  @Test
+  public void testEmptyPageEndsExactMultiple() throws Exception {
+    PagingAlpha service = new PagingAlpha(20);
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (QueryPager pager = QueryPager.builder(client, QUERY).pageSize(10).build()) {
+        assertEquals(pager.stream().count(), 20);
+      }
+      assertEquals(service.requests.get(), 3);
+    }
+  }
+
+  @Test
+  public void testPrefetchIsBounded() throws Exception {
+    PagingAlpha service = new PagingAlpha(100);
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (QueryPager pager =
+          QueryPager.builder(client, QUERY).pageSize(10).prefetch(2).build()) {
+        Iterator<Map<String, Object>> nodes = pager.iterator();
+        assertEquals(nodes.next().get("uid"), "0x1");
+        // the first page is being consumed, two more are buffered
+        assertEquals(service.requests.get(), 3);
+      }
+      assertEquals(service.requests.get(), 3);
+    }
+  }
+
+  @Test
+  public void testIteratorThrowsErrorAfterEarlierPages() throws Exception {
+    PagingAlpha service = new PagingAlpha(100);
+    service.failAtRequest = 2;
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (QueryPager pager = QueryPager.builder(client, QUERY).pageSize(10).build()) {
+        Iterator<Map<String, Object>> nodes = pager.iterator();
+        for (int i = 0; i < 10; i++) {
+          nodes.next();
+        }
+        expectThrows(ConnectionException.class, nodes::hasNext);
+      }
+    }
+  }
+
+  @Test
+  public void testNodesCanBeConsumedOnce() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(new PagingAlpha(5)).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (QueryPager pager = QueryPager.builder(client, QUERY).build()) {
+        pager.iterator();
+        expectThrows(IllegalStateException.class, pager::stream);
+      }
+    }
+  }
+
+  @Test
+  public void testPublisherHonoursDemand() throws Exception {
+    PagingAlpha service = new PagingAlpha(35);
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      List<Object> received = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch completed = new CountDownLatch(1);
+      Flow.Subscription[] subscription = new Flow.Subscription[1];
+      Throwable[] error = new Throwable[1];
+      try (QueryPager pager = QueryPager.builder(client, QUERY).pageSize(10).build()) {
+        pager.subscribe(
+            new Flow.Subscriber<Map<String, Object>>() {
+              @Override
+              public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+              }
+
+              @Override
+              public void onNext(Map<String, Object> node) {
+                received.add(node.get("name"));
+              }
+
+              @Override
+              public void onError(Throwable t) {
+                error[0] = t;
+                completed.countDown();
+              }
+
+              @Override
+              public void onComplete() {
+                completed.countDown();
+              }
+            });
+
+        subscription[0].request(3);
+        assertEquals(received, names(1, 3));
+        subscription[0].request(20);
+        assertEquals(received, names(1, 23));
+        assertFalse(completed.await(100, TimeUnit.MILLISECONDS));
+
+        subscription[0].request(Long.MAX_VALUE);
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertNull(error[0]);
+        assertEquals(received, names(1, 35));
+      }
+      assertEquals(service.requests.get(), 4);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.expectThrows;
+
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReadStalenessTest {
+  private FakeDgraphServer server;
+  // the start_ts of each query as sent, 0 if the server assigned one
+  private List<Long> sentStartTs;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    server = FakeDgraphServer.builder().build();
+    sentStartTs = new CopyOnWriteArrayList<>();
+    server.setQueryHandler(
+        request -> {
+          sentStartTs.add(request.getStartTs());
+          return "{}";
+        });
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  private long query(DgraphAsyncClient client) {
+    AsyncTransaction txn = client.newReadOnlyTransaction();
+    return txn.query("{ q(func: has(name)) { uid } }").join().getTxn().getStartTs();
+  }
+
+  @Test
+  public void testReadOnlyTransactionsShareStartTs() {
+    DgraphAsyncClient client =
+        DgraphAsyncClient.builder(server.stub()).maxReadStaleness(Duration.ofHours(1)).build();
+    long first = query(client);
+    assertEquals(query(client), first);
+    assertEquals(query(client), first);
+    assertEquals(sentStartTs, List.of(0L, first, first));
+  }
+
+  @Test
+  public void testStartTsIsAssignedByDefault() {
+    DgraphAsyncClient client = DgraphAsyncClient.builder(server.stub()).build();
+    assertNotEquals(query(client), query(client));
+    assertEquals(sentStartTs, List.of(0L, 0L));
+  }
+
+  @Test
+  public void testBestEffortStartTsIsNotShared() {
+    DgraphAsyncClient client =
+        DgraphAsyncClient.builder(server.stub()).maxReadStaleness(Duration.ofHours(1)).build();
+    AsyncTransaction txn = client.newReadOnlyTransaction();
+    txn.setBestEffort(true);
+    txn.query("{ q(func: has(name)) { uid } }").join();
+    query(client);
+    assertEquals(sentStartTs, List.of(0L, 0L));
+  }
+
+  @Test
+  public void testSharedStartTsIsRefreshedWithinWindow() {
+    ReadTimestamps timestamps = new ReadTimestamps(100);
+    assertNull(timestamps.take(0));
+    TxnContext first = TxnContext.newBuilder().setStartTs(7).setHash("h7").build();
+    timestamps.offer(first, 0);
+    assertEquals(timestamps.take(50), first);
+
+    // past half the window, one transaction fetches the next start_ts and the others keep reading
+    assertNull(timestamps.take(60));
+    assertEquals(timestamps.take(61), first);
+
+    // a start_ts assigned to an older transaction does not replace a newer one
+    TxnContext second = TxnContext.newBuilder().setStartTs(9).setHash("h9").build();
+    timestamps.offer(second, 60);
+    timestamps.offer(TxnContext.newBuilder().setStartTs(8).build(), 40);
+    assertEquals(timestamps.take(110), second);
+
+    // past the window, every transaction is assigned a start_ts until one is offered
+    assertNull(timestamps.take(161));
+    assertNull(timestamps.take(162));
+    timestamps.clear();
+    assertNull(timestamps.take(60));
+  }
+
+  @Test
+  public void testAbandonedRefreshIsTakenOver() {
+    ReadTimestamps timestamps = new ReadTimestamps(100);
+    TxnContext first = TxnContext.newBuilder().setStartTs(7).setHash("h7").build();
+    timestamps.offer(first, 0);
+
+    // the refreshing transaction is discarded, so the next one refreshes
+    assertNull(timestamps.take(60));
+    assertEquals(timestamps.take(61), first);
+    timestamps.abandon(60);
+    assertNull(timestamps.take(62));
+
+    // one that is not the refreshing transaction does not end the refresh
+    timestamps.abandon(61);
+    assertEquals(timestamps.take(63), first);
+
+    // nor does one that never reports back hold it for more than a quarter of the window
+    assertEquals(timestamps.take(87), first);
+    assertNull(timestamps.take(88));
+  }
+
+  @Test
+  public void testFailedRefreshIsTakenOver() throws Exception {
+    DgraphAsyncClient client =
+        DgraphAsyncClient.builder(server.stub()).maxReadStaleness(Duration.ofMillis(200)).build();
+    long first = query(client);
+    Thread.sleep(120);
+
+    server.failNext(1, FakeDgraphServer.OVERLOADED);
+    expectThrows(
+        CompletionException.class,
+        () -> client.newReadOnlyTransaction().query("{ q(func: has(name)) { uid } }").join());
+    long refreshed = query(client);
+    assertNotEquals(refreshed, first);
+    assertEquals(query(client), refreshed);
+  }
+
+  @Test
+  public void testBuilderRejectsNonPositiveStaleness() {
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> DgraphAsyncClient.builder(server.stub()).maxReadStaleness(Duration.ZERO));
+  }
+}
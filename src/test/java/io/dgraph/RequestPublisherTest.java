@@ -0,0 +1,263 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.testng.annotations.Test;
+
+public class RequestPublisherTest {
+
+  /** Holds every query until the test answers it, echoing the query as the JSON of the response. */
+  private static class HoldingAlpha extends DgraphGrpc.DgraphImplBase {
+    final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    final List<StreamObserver<Response>> held = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      requests.add(request);
+      held.add(responseObserver);
+    }
+
+    void answer(int index) {
+      StreamObserver<Response> observer = held.get(index);
+      String query = requests.get(index).getQuery();
+      observer.onNext(Response.newBuilder().setJson(ByteString.copyFromUtf8(query)).build());
+      observer.onCompleted();
+    }
+
+    void fail(int index) {
+      held.get(index).onError(Status.UNAVAILABLE.withDescription("gone").asRuntimeException());
+    }
+
+    boolean cancelled(int index) {
+      return ((ServerCallStreamObserver<Response>) held.get(index)).isCancelled();
+    }
+  }
+
+  /** Publishes queries q0 to q(n-1) as they are requested, on the requesting thread. */
+  private static class QueryPublisher implements Flow.Publisher<Request> {
+    private final int count;
+    volatile long requested;
+    volatile boolean cancelled;
+
+    QueryPublisher(int count) {
+      this.count = count;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Request> subscriber) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            private int next;
+            private boolean emitting;
+            private long demand;
+
+            @Override
+            public void request(long n) {
+              requested += n;
+              demand += n;
+              if (emitting) {
+                return;
+              }
+              emitting = true;
+              while (demand > 0 && next < count && !cancelled) {
+                demand--;
+                subscriber.onNext(query(next++));
+              }
+              emitting = false;
+              if (next == count && !cancelled) {
+                cancelled = true;
+                subscriber.onComplete();
+              }
+            }
+
+            @Override
+            public void cancel() {
+              cancelled = true;
+            }
+          });
+    }
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<Response> {
+    final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    volatile Flow.Subscription subscription;
+    volatile Throwable error;
+    volatile boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Response response) {
+      received.add(response.getJson().toStringUtf8());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  private static Request query(int i) {
+    return Request.newBuilder().setQuery("q" + i).setReadOnly(true).build();
+  }
+
+  @Test
+  public void testDemandBoundsRequestsInFlight() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      QueryPublisher requests = new QueryPublisher(5);
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      client.doRequests(requests).subscribe(subscriber);
+
+      assertEquals(service.requests.size(), 0);
+      subscriber.subscription.request(2);
+      assertEquals(service.requests.size(), 2);
+
+      // responses are published in request order
+      service.answer(1);
+      assertEquals(subscriber.received, Collections.emptyList());
+      service.answer(0);
+      assertEquals(subscriber.received, List.of("q0", "q1"));
+      assertEquals(service.requests.size(), 2);
+
+      subscriber.subscription.request(10);
+      assertEquals(service.requests.size(), 5);
+      for (int i = 2; i < 5; i++) {
+        service.answer(i);
+      }
+      assertEquals(subscriber.received, List.of("q0", "q1", "q2", "q3", "q4"));
+      assertTrue(subscriber.completed);
+      assertNull(subscriber.error);
+      assertEquals(requests.requested, 12);
+    }
+  }
+
+  @Test
+  public void testMaxInFlightCapsUnboundedDemand() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      client.doRequests(new QueryPublisher(100), 4).subscribe(subscriber);
+
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertEquals(service.requests.size(), 4);
+      service.answer(0);
+      assertEquals(service.requests.size(), 5);
+      assertEquals(subscriber.received, List.of("q0"));
+    }
+  }
+
+  @Test
+  public void testMutationsAreCommittedNow() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      Request mutation =
+          Request.newBuilder()
+              .addMutations(
+                  Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8("_:a <n> \"x\" .")))
+              .build();
+      Flow.Publisher<Request> requests =
+          subscriber ->
+              subscriber.onSubscribe(
+                  new Flow.Subscription() {
+                    private boolean sent;
+
+                    @Override
+                    public void request(long n) {
+                      if (!sent) {
+                        sent = true;
+                        subscriber.onNext(mutation);
+                        subscriber.onComplete();
+                      }
+                    }
+
+                    @Override
+                    public void cancel() {}
+                  });
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      client.doRequests(requests).subscribe(subscriber);
+      subscriber.subscription.request(1);
+
+      assertTrue(service.requests.get(0).getCommitNow());
+      service.answer(0);
+      assertEquals(subscriber.received.size(), 1);
+      assertTrue(subscriber.completed);
+    }
+  }
+
+  @Test
+  public void testFailedRequestCancelsUpstream() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      QueryPublisher requests = new QueryPublisher(10);
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      client.doRequests(requests).subscribe(subscriber);
+      subscriber.subscription.request(3);
+
+      service.answer(0);
+      service.fail(1);
+      assertEquals(subscriber.received, List.of("q0"));
+      assertTrue(subscriber.error instanceof ConnectionException, "" + subscriber.error);
+      assertTrue(requests.cancelled);
+      assertFalse(subscriber.completed);
+
+      // the request still in flight is cancelled
+      assertTrue(service.cancelled(2));
+      assertEquals(subscriber.received, List.of("q0"));
+      assertEquals(service.requests.size(), 3);
+    }
+  }
+
+  @Test
+  public void testCancelCancelsRequestsInFlight() throws Exception {
+    HoldingAlpha service = new HoldingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      QueryPublisher requests = new QueryPublisher(10);
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      client.doRequests(requests).subscribe(subscriber);
+      subscriber.subscription.request(3);
+
+      service.answer(0);
+      subscriber.subscription.cancel();
+      assertEquals(subscriber.received, List.of("q0"));
+      assertTrue(requests.cancelled);
+      assertTrue(service.cancelled(1));
+      assertTrue(service.cancelled(2));
+      assertNull(subscriber.error);
+      assertFalse(subscriber.completed);
+    }
+  }
+}
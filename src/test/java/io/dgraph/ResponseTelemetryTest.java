@@ -0,0 +1,75 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.testing.FakeDgraphServer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class ResponseTelemetryTest {
+  private static final String QUERY = "{ q(func: has(name)) { name } }";
+
+  @Test
+  public void testOverheadSeparatesWireFromServerTime() throws Exception {
+    ResponseTelemetryHistograms telemetry = new ResponseTelemetryHistograms();
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub()).responseListener(telemetry).build();
+      // the fake alpha reports only its own processing time, so the injected delay shows up as
+      // time spent outside the server
+      server.setLatency(Duration.ofMillis(20));
+      for (int i = 0; i < 5; i++) {
+        client.newReadOnlyTransaction().query(QUERY).get(5, TimeUnit.SECONDS);
+      }
+      Mutation mutation =
+          Mutation.newBuilder()
+              .setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"A\" .\n<0x2> <name> \"B\" ."))
+              .setCommitNow(true)
+              .build();
+      client.newTransaction().mutate(mutation).get(5, TimeUnit.SECONDS);
+    }
+
+    ResponseTelemetryHistograms.Operation query = telemetry.getOperation("query");
+    long twentyMillis = TimeUnit.MILLISECONDS.toNanos(20);
+    assertEquals(query.getRoundTrip().getCount(), 5);
+    assertTrue(query.getRoundTrip().getValueAtPercentile(50) >= twentyMillis);
+    assertTrue(query.getOverhead().getValueAtPercentile(50) >= twentyMillis * 0.9);
+    assertTrue(query.getServerTotal().getMaxNanos() < twentyMillis);
+    assertTrue(query.getRequestBytes() > 5 * QUERY.length());
+    assertTrue(query.getResponseBytes() > 0);
+
+    ResponseTelemetryHistograms.Operation mutate = telemetry.getOperation("mutate");
+    assertEquals(mutate.getRoundTrip().getCount(), 1);
+    assertEquals(mutate.getNumUids().get("name").longValue(), 2);
+  }
+
+  @Test
+  public void testFailingListenerDoesNotFailAppliedMutation() throws Exception {
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub())
+              .responseListener(
+                  telemetry -> {
+                    throw new IllegalStateException("listener failed");
+                  })
+              .build();
+      AsyncTransaction txn = client.newTransaction();
+      Mutation mutation =
+          Mutation.newBuilder()
+              .setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"A\" ."))
+              .build();
+      txn.mutate(mutation).get(5, TimeUnit.SECONDS);
+      txn.commit().get(5, TimeUnit.SECONDS);
+      assertEquals(server.getCommitCount(), 1);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.RunDQLRequest;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.Test;
+
+public class RetainedResponseTest {
+  private static final ByteString JSON = largeJson(2 << 20);
+
+  private static class LargeResponseAlpha extends DgraphGrpc.DgraphImplBase {
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      Response.Builder response = Response.newBuilder().setJson(JSON);
+      responseObserver.onNext(response.setTxn(TxnContext.newBuilder().setStartTs(1)).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void runDQL(RunDQLRequest request, StreamObserver<Response> responseObserver) {
+      responseObserver.onNext(Response.newBuilder().setJson(JSON).build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static ByteString largeJson(int size) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) 'x');
+    bytes[0] = '"';
+    bytes[size - 1] = '"';
+    return ByteString.copyFrom(bytes);
+  }
+
+  @Test
+  public void testNettyResponsesAreNotCopied() throws Exception {
+    Server server =
+        NettyServerBuilder.forAddress(new InetSocketAddress("localhost", 0))
+            .addService(new LargeResponseAlpha())
+            .build()
+            .start();
+    ManagedChannel channel =
+        NettyChannelBuilder.forAddress("localhost", server.getPort())
+            .usePlaintext()
+            .maxInboundMessageSize(64 << 20)
+            .build();
+    try {
+      AtomicReference<ResponseTelemetry> telemetry = new AtomicReference<>();
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(DgraphGrpc.newStub(channel))
+              .responseListener(telemetry::set)
+              .build();
+      RetainedResponse retained =
+          client
+              .newReadOnlyTransaction()
+              .doRequestRetained(Request.newBuilder().setQuery("{}").build())
+              .get(10, TimeUnit.SECONDS);
+      try {
+        assertTrue(retained.isZeroCopy());
+        assertEquals(retained.getResponse().getJson(), JSON);
+      } finally {
+        retained.close();
+        retained.close();
+      }
+      expectThrows(IllegalStateException.class, retained::getResponse);
+      // the telemetry copies what it reports, so it outlives the released buffers
+      assertTrue(telemetry.get().getResponseBytes() > JSON.size());
+      assertTrue(telemetry.get().getNumUids().isEmpty());
+
+      try (RetainedResponse dql =
+          client.runDQLRetained(RunDQLRequest.getDefaultInstance()).get(10, TimeUnit.SECONDS)) {
+        assertTrue(dql.isZeroCopy());
+        assertEquals(dql.getResponse().getJson().size(), JSON.size());
+      }
+    } finally {
+      channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+      server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void testOtherTransportsFallBackToCopying() throws Exception {
+    try (FakeDgraphServer alpha =
+        FakeDgraphServer.builder().service(new LargeResponseAlpha()).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (RetainedResponse retained =
+          client
+              .newReadOnlyTransaction()
+              .doRequestRetained(Request.newBuilder().setQuery("{}").build())
+              .get(10, TimeUnit.SECONDS)) {
+        assertFalse(retained.isZeroCopy());
+        assertEquals(retained.getResponse().getJson(), JSON);
+      }
+    }
+  }
+
+  @Test
+  public void testResultOfCancelledRequestIsReleased() {
+    AtomicInteger released = new AtomicInteger();
+    RetainedResponse retained =
+        new RetainedResponse(Response.getDefaultInstance(), released::incrementAndGet);
+    UndeliveredResults<RetainedResponse> results =
+        new UndeliveredResults<>(RetainedResponse::close);
+    CompletableFuture<RetainedResponse> received = new CompletableFuture<>();
+    CompletableFuture<RetainedResponse> returned =
+        results.returning(received.thenApply(results::received));
+
+    returned.cancel(false);
+    // the response arrives after the caller gave up on it
+    received.complete(retained);
+    assertEquals(released.get(), 1);
+    expectThrows(IllegalStateException.class, retained::getResponse);
+  }
+
+  @Test
+  public void testResultOfTimedOutRequestIsReleased() {
+    AtomicInteger released = new AtomicInteger();
+    RetainedResponse retained =
+        new RetainedResponse(Response.getDefaultInstance(), released::incrementAndGet);
+    UndeliveredResults<RetainedResponse> results =
+        new UndeliveredResults<>(RetainedResponse::close);
+    CompletableFuture<RetainedResponse> received = new CompletableFuture<>();
+    CompletableFuture<RetainedResponse> returned =
+        results.returning(received.thenApply(results::received));
+
+    returned.orTimeout(10, TimeUnit.MILLISECONDS);
+    expectThrows(ExecutionException.class, returned::get);
+    received.complete(retained);
+    assertEquals(released.get(), 1);
+  }
+
+  @Test
+  public void testResultOfFailedStageIsReleased() {
+    AtomicInteger released = new AtomicInteger();
+    RetainedResponse retained =
+        new RetainedResponse(Response.getDefaultInstance(), released::incrementAndGet);
+    UndeliveredResults<RetainedResponse> results =
+        new UndeliveredResults<>(RetainedResponse::close);
+    CompletableFuture<RetainedResponse> returned =
+        results.returning(
+            CompletableFuture.completedFuture(retained)
+                .thenApply(results::received)
+                .thenApply(
+                    result -> {
+                      throw new DgraphException("startTs mismatch");
+                    }));
+
+    assertTrue(returned.isCompletedExceptionally());
+    assertEquals(released.get(), 1);
+  }
+
+  @Test
+  public void testDeliveredResultIsNotReleased() throws Exception {
+    AtomicInteger released = new AtomicInteger();
+    RetainedResponse retained =
+        new RetainedResponse(Response.getDefaultInstance(), released::incrementAndGet);
+    UndeliveredResults<RetainedResponse> results =
+        new UndeliveredResults<>(RetainedResponse::close);
+    CompletableFuture<RetainedResponse> received = new CompletableFuture<>();
+    CompletableFuture<RetainedResponse> returned =
+        results.returning(received.thenApply(results::received));
+
+    received.complete(retained);
+    assertSame(returned.get(), retained);
+    returned.cancel(false);
+    assertEquals(released.get(), 0);
+    retained.close();
+    assertEquals(released.get(), 1);
+  }
+}
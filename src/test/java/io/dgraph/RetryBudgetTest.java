@@ -0,0 +1,229 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.testng.annotations.Test;
+
+public class RetryBudgetTest {
+  private static final RetryPolicy FAST =
+      RetryPolicy.builder().readOnly().baseDelay(Duration.ofMillis(1)).build();
+
+  @Test
+  public void testRetriesAreEarnedBySuccesses() {
+    RetryBudget budget = RetryBudget.builder().maxTokens(2).tokenRatio(0.5).build();
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+
+    budget.onSuccess();
+    assertFalse(budget.tryWithdraw());
+    budget.onSuccess();
+    assertTrue(budget.tryWithdraw());
+
+    for (int i = 0; i < 10; i++) {
+      budget.onSuccess();
+    }
+    assertEquals(budget.getTokens(), 2.0);
+  }
+
+  @Test
+  public void testExhaustedBudgetStopsRetries() throws Exception {
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      InMemoryClientMetrics metrics = new InMemoryClientMetrics();
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub())
+              .metrics(metrics)
+              .retryBudget(RetryBudget.builder().maxTokens(1).build())
+              .build();
+
+      server.failNext(2, FakeDgraphServer.OVERLOADED);
+      CompletionException e =
+          expectThrows(
+              CompletionException.class,
+              () -> client.withRetry(FAST, txn -> txn.query("{}")).join());
+      assertTrue(e.getCause() instanceof ResourceExhaustedException, "" + e.getCause());
+      assertEquals(server.getRequestCount(), 2);
+      assertEquals(metrics.getRetryCount(), 1);
+      assertEquals(metrics.getRetryBudgetExhaustedCount(), 1);
+
+      // the sync client draws from the same budget
+      server.failNext(1, FakeDgraphServer.OVERLOADED);
+      DgraphClient syncClient = new DgraphClient(client);
+      expectThrows(
+          ResourceExhaustedException.class,
+          () -> syncClient.withRetry(FAST, txn -> txn.query("{}")));
+      assertEquals(metrics.getRetryBudgetExhaustedCount(), 2);
+    }
+  }
+
+  @Test
+  public void testOpenCircuitIsAvoidedAndProbed() throws Exception {
+    try (FakeDgraphServer draining = FakeDgraphServer.builder().build();
+        FakeDgraphServer healthy = FakeDgraphServer.builder().build()) {
+      draining.setDraining(true);
+      InMemoryClientMetrics metrics = new InMemoryClientMetrics();
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(draining.stub(), healthy.stub())
+              .metrics(metrics)
+              .stubSelector(stubs -> stubs.get(0))
+              .circuitBreaker(
+                  CircuitBreaker.builder()
+                      .failureThreshold(2)
+                      .openDuration(Duration.ofMillis(200))
+                      .build())
+              .build();
+      StubStats stats = client.getStubStats().get(0);
+
+      // each call fails on the draining alpha once and then moves to the other one
+      client.withRetry(FAST, txn -> txn.query("{}")).join();
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.CLOSED);
+      client.withRetry(FAST, txn -> txn.query("{}")).join();
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.OPEN);
+      assertEquals(metrics.getCircuitOpenedCount(), 1);
+
+      long rejected = draining.getRequestCount();
+      client.withRetry(FAST, txn -> txn.query("{}")).join();
+      assertEquals(draining.getRequestCount(), rejected);
+
+      Thread.sleep(300);
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.HALF_OPEN);
+      draining.setDraining(false);
+      client.withRetry(FAST, txn -> txn.query("{}")).join();
+      assertEquals(draining.getRequestCount(), rejected + 1);
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.CLOSED);
+    }
+  }
+
+  @Test
+  public void testAllCircuitsOpenFailsFast() throws Exception {
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      server.setDraining(true);
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub())
+              .circuitBreaker(CircuitBreaker.builder().failureThreshold(1).build())
+              .build();
+      RetryPolicy once = RetryPolicy.builder().readOnly().maxRetries(0).build();
+
+      CompletionException first =
+          expectThrows(
+              CompletionException.class,
+              () -> client.withRetry(once, txn -> txn.query("{}")).join());
+      assertTrue(first.getCause() instanceof AlphaShutdownException, "" + first.getCause());
+      long requests = server.getRequestCount();
+
+      CompletionException second =
+          expectThrows(
+              CompletionException.class,
+              () -> client.withRetry(once, txn -> txn.query("{}")).join());
+      assertTrue(second.getCause() instanceof CircuitOpenException, "" + second.getCause());
+      assertFalse(second.getCause().isRetryable());
+      assertEquals(server.getRequestCount(), requests);
+    }
+  }
+
+  @Test
+  public void testProbeFailingOutsideTheClientEndsTheProbe() throws Exception {
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      server.setDraining(true);
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub())
+              .circuitBreaker(
+                  CircuitBreaker.builder()
+                      .failureThreshold(1)
+                      .openDuration(Duration.ofMillis(100))
+                      .build())
+              .build();
+      DgraphClient syncClient = new DgraphClient(client);
+      RetryPolicy once = RetryPolicy.builder().readOnly().maxRetries(0).build();
+      StubStats stats = client.getStubStats().get(0);
+
+      expectThrows(
+          AlphaShutdownException.class, () -> syncClient.withRetry(once, txn -> txn.query("{}")));
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.OPEN);
+      server.setDraining(false);
+      Thread.sleep(200);
+
+      // the probe fails in the operation rather than at the alpha
+      expectThrows(
+          DgraphException.class,
+          () ->
+              syncClient.withRetry(
+                  once,
+                  txn -> {
+                    throw new IOException("not a Dgraph error");
+                  }));
+      assertEquals(stats.getCircuitState(), CircuitBreaker.State.CLOSED);
+      syncClient.withRetry(once, txn -> txn.query("{}"));
+    }
+  }
+
+  @Test
+  public void testProbeThatNeverEndsTimesOut() throws Exception {
+    try (FakeDgraphServer server = FakeDgraphServer.builder().build()) {
+      server.setDraining(true);
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(server.stub())
+              .circuitBreaker(
+                  CircuitBreaker.builder()
+                      .failureThreshold(1)
+                      .openDuration(Duration.ofMillis(100))
+                      .probeTimeout(Duration.ofMillis(100))
+                      .build())
+              .build();
+      RetryPolicy once = RetryPolicy.builder().readOnly().maxRetries(0).build();
+
+      expectThrows(
+          CompletionException.class, () -> client.withRetry(once, txn -> txn.query("{}")).join());
+      server.setDraining(false);
+      Thread.sleep(200);
+
+      CompletableFuture<Object> stuck = client.withRetry(once, txn -> new CompletableFuture<>());
+      CompletionException open =
+          expectThrows(
+              CompletionException.class,
+              () -> client.withRetry(once, txn -> txn.query("{}")).join());
+      assertTrue(open.getCause() instanceof CircuitOpenException, "" + open.getCause());
+
+      Thread.sleep(200);
+      client.withRetry(once, txn -> txn.query("{}")).join();
+      assertEquals(client.getStubStats().get(0).getCircuitState(), CircuitBreaker.State.CLOSED);
+      assertFalse(stuck.isDone());
+    }
+  }
+
+  @Test
+  public void testOnlyFailuresOfTheAlphaCountAgainstTheCircuit() {
+    assertTrue(
+        Exceptions.isAlphaFailure(
+            Exceptions.translate(Status.RESOURCE_EXHAUSTED.asRuntimeException())));
+    assertTrue(
+        Exceptions.isAlphaFailure(Exceptions.translate(Status.UNAVAILABLE.asRuntimeException())));
+    assertFalse(
+        Exceptions.isAlphaFailure(
+            Exceptions.translate(
+                Status.RESOURCE_EXHAUSTED
+                    .withDescription(
+                        ConcurrencyLimitInterceptor.REJECTED_DESCRIPTION + " of 1 reached")
+                    .asRuntimeException())));
+    assertFalse(
+        Exceptions.isAlphaFailure(
+            Exceptions.translate(Status.DEADLINE_EXCEEDED.asRuntimeException())));
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> CircuitBreaker.builder().probeTimeout(Duration.ZERO));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+/**
+ * Simulates a cluster of in-process alphas with differing latency and compares how many requests
+ * the random and the power-of-two-choices selectors send to the slow one.
+ */
+public class StubSelectorTest {
+  private static final int NUM_REQUESTS = 1000;
+  private static final int CONCURRENCY = 8;
+
+  /** Answers every query after a fixed delay, without holding a thread while waiting. */
+  private static class DelayedAlpha extends DgraphGrpc.DgraphImplBase {
+    final AtomicInteger queries = new AtomicInteger();
+    private final long delayMillis;
+
+    DelayedAlpha(long delayMillis) {
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      queries.incrementAndGet();
+      Response response =
+          Response.newBuilder()
+              .setJson(ByteString.copyFromUtf8("{}"))
+              .setTxn(TxnContext.newBuilder().setStartTs(1))
+              .build();
+      CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+          .execute(
+              () -> {
+                responseObserver.onNext(response);
+                responseObserver.onCompleted();
+              });
+    }
+  }
+
+  /** Fails every query as an alpha that is shutting down. */
+  private static class DrainingAlpha extends DgraphGrpc.DgraphImplBase {
+    final AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      queries.incrementAndGet();
+      responseObserver.onError(
+          Status.UNKNOWN.withDescription("the server is in draining mode").asRuntimeException());
+    }
+  }
+
+  /** The outcome of sending {@link #NUM_REQUESTS} queries to two fast alphas and a slow one. */
+  private static final class Run {
+    final double slowShare;
+    final long p99Nanos;
+
+    Run(double slowShare, long p99Nanos) {
+      this.slowShare = slowShare;
+      this.p99Nanos = p99Nanos;
+    }
+
+    @Override
+    public String toString() {
+      return "slow share " + slowShare + ", p99 " + p99Nanos + "ns";
+    }
+  }
+
+  private static Run run(StubSelector selector) throws Exception {
+    List<FakeDgraphServer> alphas = new ArrayList<>();
+    ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+    DelayedAlpha slow = new DelayedAlpha(30);
+    try {
+      for (DelayedAlpha alpha :
+          new DelayedAlpha[] {new DelayedAlpha(1), new DelayedAlpha(1), slow}) {
+        alphas.add(FakeDgraphServer.builder().service(alpha).build());
+      }
+      DgraphAsyncClient client =
+          DgraphAsyncClient.builder(
+                  alphas.stream().map(FakeDgraphServer::stub).toArray(DgraphGrpc.DgraphStub[]::new))
+              .stubSelector(selector)
+              .build();
+
+      List<Future<long[]>> results = new ArrayList<>();
+      for (int w = 0; w < CONCURRENCY; w++) {
+        results.add(
+            workers.submit(
+                () -> {
+                  long[] latencies = new long[NUM_REQUESTS / CONCURRENCY];
+                  for (int i = 0; i < latencies.length; i++) {
+                    long start = System.nanoTime();
+                    client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+                    latencies[i] = System.nanoTime() - start;
+                  }
+                  return latencies;
+                }));
+      }
+
+      long[] all = new long[NUM_REQUESTS];
+      int n = 0;
+      for (Future<long[]> result : results) {
+        for (long latency : result.get(60, TimeUnit.SECONDS)) {
+          all[n++] = latency;
+        }
+      }
+      Arrays.sort(all, 0, n);
+      client.shutdown();
+      return new Run((double) slow.queries.get() / n, all[(int) (n * 0.99) - 1]);
+    } finally {
+      workers.shutdownNow();
+      for (FakeDgraphServer alpha : alphas) {
+        alpha.close();
+      }
+    }
+  }
+
+  @Test(timeOut = 120_000)
+  public void testPowerOfTwoChoicesAvoidsTheSlowAlpha() throws Exception {
+    Run random = run(StubSelector.random());
+    Run p2c = run(StubSelector.powerOfTwoChoices());
+
+    // the latencies are only reported: on a loaded machine they measure the scheduler as well
+    String runs = "random: " + random + "; p2c: " + p2c;
+    assertTrue(random.slowShare > 0.25, runs);
+    // p2c only sends to the slow alpha before its latency is known, or when the fast alpha it is
+    // paired with has many more requests outstanding
+    assertTrue(p2c.slowShare < 0.1, runs);
+  }
+
+  @Test
+  public void testDrainingAlphaIsEjected() throws Exception {
+    DrainingAlpha draining = new DrainingAlpha();
+    DelayedAlpha healthy = new DelayedAlpha(0);
+    try (FakeDgraphServer a = FakeDgraphServer.builder().service(draining).build();
+        FakeDgraphServer b = FakeDgraphServer.builder().service(healthy).build()) {
+      DgraphAsyncClient client = DgraphAsyncClient.builder(a.stub(), b.stub()).build();
+
+      // run queries until the draining alpha has been hit once
+      while (draining.queries.get() == 0) {
+        client.newReadOnlyTransaction().query("{}").handle((r, t) -> null).get(5, TimeUnit.SECONDS);
+      }
+      assertTrue(client.getStubStats().get(0).isEjected());
+
+      for (int i = 0; i < 100; i++) {
+        client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+      }
+      assertEquals(draining.queries.get(), 1);
+      client.shutdown();
+    }
+  }
+
+  @Test
+  public void testSelectorsIgnoreEmptyStats() {
+    List<StubStats> stats = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      stats.add(new StubStats(i, TimeUnit.SECONDS.toNanos(5)));
+    }
+    int[] counts = new int[3];
+    for (int i = 0; i < 3000; i++) {
+      counts[StubSelector.powerOfTwoChoices().select(stats).getIndex()]++;
+    }
+    // without any samples all stubs cost the same, so the first random pick wins
+    for (int count : counts) {
+      assertTrue(count > 800, Arrays.toString(counts));
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Operation;
+import io.dgraph.DgraphProto.Payload;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TimeoutsTest {
+  private static final Mutation MUTATION =
+      Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8("_:a <name> \"a\" .")).build();
+
+  private FakeDgraphServer alpha;
+
+  /** Answers mutations, and never answers queries, commits or alters. */
+  private final class HangingAlpha extends DgraphGrpc.DgraphImplBase {
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      if (request.getMutationsCount() == 0) {
+        return;
+      }
+      responseObserver.onNext(
+          Response.newBuilder().setTxn(TxnContext.newBuilder().setStartTs(1)).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void commitOrAbort(TxnContext request, StreamObserver<TxnContext> responseObserver) {}
+
+    @Override
+    public void alter(Operation request, StreamObserver<Payload> responseObserver) {}
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    alpha = FakeDgraphServer.builder().service(new HangingAlpha()).build();
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    alpha.close();
+  }
+
+  private DgraphAsyncClient client(Timeouts timeouts) {
+    return DgraphAsyncClient.builder(alpha.stub()).timeouts(timeouts).build();
+  }
+
+  private static void assertDeadlineExceeded(CompletableFuture<?> future) {
+    Throwable error = CompletableFutures.unwrap(future.handle((result, t) -> t).join());
+    assertTrue(error instanceof DeadlineExceededException, "" + error);
+  }
+
+  @Test
+  public void testQueryTimeout() {
+    DgraphAsyncClient client = client(Timeouts.builder().query(Duration.ofMillis(100)).build());
+    assertDeadlineExceeded(client.newReadOnlyTransaction().query("{}"));
+  }
+
+  @Test
+  public void testDeadlineOfCallReplacesQueryTimeout() {
+    DgraphAsyncClient client = client(Timeouts.builder().query(Duration.ofMinutes(10)).build());
+    long start = System.nanoTime();
+    assertDeadlineExceeded(
+        client.newReadOnlyTransaction().query("{}", 100, TimeUnit.MILLISECONDS));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  public void testCommitAndAlterTimeouts() {
+    DgraphAsyncClient client = client(Timeouts.builder().all(Duration.ofMillis(100)).build());
+    AsyncTransaction txn = client.newTransaction();
+    txn.mutate(MUTATION).join();
+    assertDeadlineExceeded(txn.commit());
+
+    assertDeadlineExceeded(client.alter(Operation.newBuilder().setDropAll(true).build()));
+  }
+
+  @Test
+  public void testRetryTimeoutBoundsAllAttempts() {
+    DgraphAsyncClient client = client(Timeouts.builder().retry(Duration.ofMillis(300)).build());
+    RetryPolicy policy =
+        RetryPolicy.builder().readOnly().maxRetries(100).baseDelay(Duration.ofMillis(1)).build();
+
+    long start = System.nanoTime();
+    CompletableFuture<Response> future = client.withRetry(policy, txn -> txn.query("{}"));
+    assertDeadlineExceeded(future);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+    DgraphClient syncClient = new DgraphClient(client);
+    expectThrows(
+        DeadlineExceededException.class,
+        () -> syncClient.withRetry(policy, txn -> txn.query("{}")));
+  }
+
+  @Test
+  public void testParseDuration() {
+    assertEquals(DgraphClient.parseDuration("timeout", "250ms"), Duration.ofMillis(250));
+    assertEquals(DgraphClient.parseDuration("timeout", "30s"), Duration.ofSeconds(30));
+    assertEquals(DgraphClient.parseDuration("timeout", "5m"), Duration.ofMinutes(5));
+    assertEquals(DgraphClient.parseDuration("timeout", "1h"), Duration.ofHours(1));
+    expectThrows(IllegalArgumentException.class, () -> DgraphClient.parseDuration("timeout", "5"));
+    expectThrows(
+        IllegalArgumentException.class, () -> DgraphClient.parseDuration("timeout", "-1s"));
+  }
+}
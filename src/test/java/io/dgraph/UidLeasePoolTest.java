@@ -0,0 +1,123 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.annotations.Test;
+
+public class UidLeasePoolTest {
+
+  @Test(timeOut = 60_000)
+  public void testUidsAreUniqueAcrossThreads() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      UidLeasePool pool =
+          UidLeasePool.builder(new DgraphAsyncClient(alpha.stub()))
+              .minLeaseSize(100)
+              .maxLeaseSize(100)
+              .build();
+      Set<Long> uids = ConcurrentHashMap.newKeySet();
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    for (int j = 0; j < 5000; j++) {
+                      assertTrue(uids.add(pool.next()));
+                    }
+                  }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+      assertEquals(uids.size(), 40_000);
+      // every lease but the prefetched last one is used up
+      assertEquals(alpha.getRequestCount(), 401);
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testLeasesGrowWhenUsedUpQuickly() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      UidLeasePool pool =
+          UidLeasePool.builder(new DgraphAsyncClient(alpha.stub()))
+              .minLeaseSize(10)
+              .maxLeaseSize(80)
+              .refillInterval(Duration.ofHours(1))
+              .build();
+      assertEquals(pool.getLeaseSize(), 10);
+      for (int i = 0; i < 1000; i++) {
+        pool.next();
+      }
+      assertEquals(pool.getLeaseSize(), 80);
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testNextLeaseIsSizedByTheRateOfUse() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      UidLeasePool pool =
+          UidLeasePool.builder(new DgraphAsyncClient(alpha.stub()))
+              .minLeaseSize(10)
+              .refillInterval(Duration.ofHours(1))
+              .build();
+      // half of the first lease is used within far less than an hour
+      for (int i = 0; i < 6; i++) {
+        pool.next();
+      }
+      assertEquals(pool.getLeaseSize(), 1_000_000);
+      assertEquals(alpha.getRequestCount(), 2);
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testFailedLeaseIsRequestedAgain() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      alpha.failNext(1, Status.INVALID_ARGUMENT.withDescription("lease refused"));
+      UidLeasePool pool = UidLeasePool.builder(new DgraphAsyncClient(alpha.stub())).build();
+      expectThrows(DgraphException.class, pool::next);
+      assertEquals(pool.nextUid(), "0x1");
+      assertEquals(pool.next(), 2);
+    }
+  }
+
+  @Test
+  public void testUidsInNQuads() {
+    DgraphProto.Mutation mutation = new NQuadBatch().subject(42).link("friend", 255).build();
+    assertEquals(mutation.getSet(0).getSubject(), "0x2a");
+    assertEquals(mutation.getSet(0).getObjectId(), "0xff");
+  }
+
+  @Test
+  public void testBuilderRejectsInvalidBounds() throws Exception {
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      expectThrows(IllegalArgumentException.class, () -> UidLeasePool.builder(null));
+      expectThrows(
+          IllegalArgumentException.class, () -> UidLeasePool.builder(client).minLeaseSize(0));
+      expectThrows(
+          IllegalArgumentException.class,
+          () -> UidLeasePool.builder(client).minLeaseSize(10).maxLeaseSize(5).build());
+    }
+  }
+}
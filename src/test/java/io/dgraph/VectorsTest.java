@@ -0,0 +1,107 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Request;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import org.testng.annotations.Test;
+
+public class VectorsTest {
+
+  @Test
+  public void testEncodeIsLittleEndian() {
+    ByteString bytes = Vectors.encode(new float[] {1f, -0.5f});
+    assertEquals(bytes.size(), 8);
+    assertEquals(bytes.byteAt(0), 0);
+    assertEquals(bytes.byteAt(3), 0x3f);
+    assertEquals(bytes.byteAt(7), (byte) 0xbf);
+    assertEquals(Vectors.decode(bytes), new float[] {1f, -0.5f});
+    assertEquals(Values.vfloat32(new float[] {1f, -0.5f}), bytes);
+  }
+
+  @Test
+  public void testEncodeFloatBuffer() {
+    // a big-endian view of many vectors, as read from a file
+    FloatBuffer all =
+        ByteBuffer.allocate(6 * Float.BYTES).order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+    all.put(new float[] {1, 2, 3, 4, 5, 6}).flip();
+    FloatBuffer second = all.duplicate();
+    second.position(3).limit(6);
+
+    assertEquals(Vectors.decode(Vectors.encode(second)), new float[] {4, 5, 6});
+    assertEquals(second.position(), 3);
+
+    NQuad nquad = Vectors.nquad("0x1", "embedding", second);
+    assertEquals(nquad.getPredicate(), "embedding");
+    assertEquals(nquad.getObjectValue().getVfloat32Val(), Vectors.encode(new float[] {4, 5, 6}));
+    assertEquals(
+        new NQuadBatch().subject("0x1").set("embedding", second).build().getSet(0), nquad);
+  }
+
+  @Test
+  public void testDecodeRejectsPartialFloats() {
+    ByteString bytes = ByteString.copyFrom(new byte[3]);
+    expectThrows(IllegalArgumentException.class, () -> Vectors.decode(bytes));
+  }
+
+  @Test
+  public void testFormat() {
+    assertEquals(Vectors.format(new float[] {0.1f, -2f, 1e-8f}), "[0.1,-2.0,1.0E-8]");
+    assertEquals(Vectors.format(new float[0]), "[]");
+  }
+
+  @Test
+  public void testNonFiniteComponentsAreRejected() {
+    float[] components = {Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
+    for (float component : components) {
+      float[] vector = {0.5f, component};
+      FloatBuffer buffer = FloatBuffer.wrap(new float[] {component, 0.5f, 0.5f}, 1, 2);
+      expectThrows(IllegalArgumentException.class, () -> Vectors.encode(vector));
+      expectThrows(IllegalArgumentException.class, () -> Vectors.nquad("0x1", "embedding", vector));
+      expectThrows(IllegalArgumentException.class, () -> Vectors.format(vector));
+      // only the remaining floats of a buffer are checked
+      assertEquals(Vectors.encode(buffer).size(), 2 * Float.BYTES);
+      buffer.position(0);
+      expectThrows(IllegalArgumentException.class, () -> Vectors.encode(buffer));
+      expectThrows(IllegalArgumentException.class, () -> Vectors.nquad("0x1", "embedding", buffer));
+    }
+  }
+
+  @Test
+  public void testSimilarToQuery() {
+    SimilarToQuery nearest =
+        SimilarToQuery.builder("embedding", 3)
+            .block("nearest")
+            .select("uid title")
+            .filter("eq(lang, \"en\")")
+            .build();
+    assertEquals(
+        nearest.getQuery(),
+        "query similar($vector: float32vector) {\n"
+            + "  nearest(func: similar_to(embedding, 3, $vector)) @filter(eq(lang, \"en\")) {\n"
+            + "    uid title\n"
+            + "  }\n"
+            + "}");
+    assertEquals(
+        nearest.vars(new float[] {0.5f, 1f}), Collections.singletonMap("$vector", "[0.5,1.0]"));
+
+    Request request = nearest.request(new float[] {0.5f});
+    assertEquals(request.getQuery(), nearest.getQuery());
+    assertEquals(request.getVarsMap().get("$vector"), "[0.5]");
+    assertTrue(request.getReadOnly());
+
+    expectThrows(IllegalArgumentException.class, () -> SimilarToQuery.builder("embedding", 0));
+  }
+}
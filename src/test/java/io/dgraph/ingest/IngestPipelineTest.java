@@ -0,0 +1,188 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.ingest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphAsyncClient;
+import io.dgraph.DgraphGrpc;
+import io.dgraph.DgraphProto.AllocateIDsRequest;
+import io.dgraph.DgraphProto.AllocateIDsResponse;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.DgraphProto.Value;
+import io.dgraph.RetryPolicy;
+import io.dgraph.testing.FakeDgraphServer;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.annotations.Test;
+
+public class IngestPipelineTest {
+
+  /**
+   * Commits a mutation after a short delay, and aborts it if another in-flight transaction writes
+   * one of its subjects, like the conflict detection of a real alpha.
+   */
+  private static class ConflictingAlpha extends DgraphGrpc.DgraphImplBase {
+    final Map<String, Boolean> stored = new ConcurrentHashMap<>();
+    final AtomicInteger jsonObjects = new AtomicInteger();
+    final AtomicInteger aborts = new AtomicInteger();
+    private final Set<String> locked = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextUid = new AtomicLong(1);
+
+    @Override
+    public void allocateIDs(
+        AllocateIDsRequest request, StreamObserver<AllocateIDsResponse> responseObserver) {
+      long start = nextUid.getAndAdd(request.getHowMany());
+      responseObserver.onNext(
+          AllocateIDsResponse.newBuilder()
+              .setStart(start)
+              .setEnd(start + request.getHowMany() - 1)
+              .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      Mutation mutation = request.getMutations(0);
+      Set<String> subjects = new HashSet<>();
+      for (NQuad nquad : mutation.getSetList()) {
+        subjects.add(nquad.getSubject());
+      }
+      Set<String> acquired = new HashSet<>();
+      for (String subject : subjects) {
+        if (!locked.add(subject)) {
+          locked.removeAll(acquired);
+          aborts.incrementAndGet();
+          responseObserver.onError(
+              Status.ABORTED.withDescription("Transaction has been aborted").asRuntimeException());
+          return;
+        }
+        acquired.add(subject);
+      }
+
+      CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS)
+          .execute(
+              () -> {
+                for (NQuad nquad : mutation.getSetList()) {
+                  stored.put(nquad.getSubject() + " " + nquad.getPredicate(), true);
+                }
+                if (!mutation.getSetJson().isEmpty()) {
+                  jsonObjects.addAndGet(
+                      JsonParser.parseString(mutation.getSetJson().toStringUtf8())
+                          .getAsJsonArray()
+                          .size());
+                }
+                locked.removeAll(acquired);
+                responseObserver.onNext(
+                    Response.newBuilder()
+                        .setTxn(TxnContext.newBuilder().setStartTs(1).setCommitTs(2))
+                        .build());
+                responseObserver.onCompleted();
+              });
+    }
+  }
+
+  private static NQuad nquad(String subject, String predicate, String value) {
+    return NQuad.newBuilder()
+        .setSubject(subject)
+        .setPredicate(predicate)
+        .setObjectValue(Value.newBuilder().setStrVal(value))
+        .build();
+  }
+
+  @Test(timeOut = 60_000)
+  public void testShardedIngestCommitsEverything() throws Exception {
+    ConflictingAlpha service = new ConflictingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      IngestPipeline pipeline =
+          IngestPipeline.builder(client)
+              .shards(8)
+              .batchSize(100)
+              .uidLeaseSize(500)
+              .retryPolicy(
+                  RetryPolicy.builder().maxRetries(20).baseDelay(Duration.ofMillis(1)).build())
+              .build();
+
+      // every subject gets several predicates spread over the input, as in an RDF dump
+      int subjects = 2000;
+      for (String predicate : new String[] {"name", "age", "city"}) {
+        for (int i = 0; i < subjects; i++) {
+          pipeline.add(nquad("_:n" + i, predicate, predicate + i));
+        }
+      }
+      IngestStats stats = pipeline.finish();
+
+      assertEquals(stats.getRecords(), 3 * subjects);
+      assertEquals(service.stored.size(), 3 * subjects);
+      // a blank node maps to the same uid in every transaction
+      Set<String> uids = new HashSet<>();
+      for (String key : service.stored.keySet()) {
+        uids.add(key.substring(0, key.indexOf(' ')));
+      }
+      assertEquals(uids.size(), subjects);
+      assertEquals(stats.getRetries(), service.aborts.get());
+      assertTrue(stats.getRecordsPerSecond() > 0);
+      client.shutdown();
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testJsonObjects() throws Exception {
+    ConflictingAlpha service = new ConflictingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      try (IngestPipeline pipeline =
+          IngestPipeline.builder(client).shards(4).batchSize(50).build()) {
+        for (int i = 0; i < 1000; i++) {
+          String uid = "0x" + Integer.toHexString(i + 1);
+          String json = "{\"uid\":\"" + uid + "\",\"name\":\"n" + i + "\"}";
+          pipeline.addJson(uid, ByteString.copyFromUtf8(json));
+        }
+        assertEquals(pipeline.finish().getRecords(), 1000);
+      }
+      assertEquals(service.jsonObjects.get(), 1000);
+      client.shutdown();
+    }
+  }
+
+  @Test(timeOut = 60_000)
+  public void testInterruptedAddKeepsTheRecord() throws Exception {
+    ConflictingAlpha service = new ConflictingAlpha();
+    try (FakeDgraphServer alpha = FakeDgraphServer.builder().service(service).build()) {
+      DgraphAsyncClient client = new DgraphAsyncClient(alpha.stub());
+      IngestPipeline pipeline =
+          IngestPipeline.builder(client).shards(1).batchSize(1).maxInflightPerShard(1).build();
+      pipeline.add(nquad("0x1", "name", "a"));
+
+      Thread.currentThread().interrupt();
+      expectThrows(InterruptedException.class, () -> pipeline.add(nquad("0x2", "name", "b")));
+      assertFalse(Thread.currentThread().isInterrupted());
+
+      assertEquals(pipeline.finish().getRecords(), 2);
+      assertEquals(service.stored.keySet(), Set.of("0x1 name", "0x2 name"));
+      client.shutdown();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.json;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Response;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class JsonResultReaderTest {
+
+  private static JsonResultReader reader(String json) {
+    Response response = Response.newBuilder().setJson(ByteString.copyFromUtf8(json)).build();
+    return JsonResultReader.of(response);
+  }
+
+  @Test
+  public void testBlocksAndNodes() {
+    String json =
+        "{\"me\": [{\"uid\": \"0x1\", \"name\": \"Alice \\u00e9\\ud83d\\ude00\", \"age\": 29,"
+            + " \"score\": 1.5e2, \"admin\": true, \"nick\": null,"
+            + " \"friend\": [{\"name\": \"Bob\"}]}],"
+            + " \"count\": {\"n\": 1},"
+            + " \"empty\": [],"
+            + " \"others\": [{\"uid\": \"0x2\"}, {\"uid\": \"0x3\"}]}";
+    try (JsonResultReader result = reader(json)) {
+      assertTrue(result.nextBlock());
+      assertEquals(result.getBlockName(), "me");
+      Map<String, Object> alice = result.nextNode();
+      assertEquals(alice.get("name"), "Alice é😀");
+      assertEquals(alice.get("age"), 29L);
+      assertEquals(alice.get("score"), 150.0);
+      assertEquals(alice.get("admin"), true);
+      assertTrue(alice.containsKey("nick"));
+      assertNull(alice.get("nick"));
+      assertEquals(((List<?>) alice.get("friend")).size(), 1);
+      assertFalse(result.hasNextNode());
+
+      // "count" is not an array and is skipped
+      assertTrue(result.nextBlock());
+      assertEquals(result.getBlockName(), "empty");
+      assertFalse(result.hasNextNode());
+
+      assertTrue(result.nextBlock());
+      assertEquals(result.getBlockName(), "others");
+      assertTrue(result.hasNextNode());
+      assertFalse(result.nextBlock());
+      assertFalse(result.nextBlock());
+    }
+  }
+
+  @Test
+  public void testNodeDecoderSkipsUnreadProperties() {
+    String json =
+        "{\"q\": [{\"uid\": \"0x1\", \"deep\": {\"a\": [1, {\"b\": \"}\"}]}, \"n\": 1},"
+            + " {\"n\": 2, \"s\": \"x\\\"y\"}]}";
+    List<Long> values = new ArrayList<>();
+    try (JsonResultReader result = reader(json)) {
+      while (result.nextBlock()) {
+        while (result.hasNextNode()) {
+          values.add(
+              result.nextNode(
+                  reader -> {
+                    long n = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                      if (reader.nextName().equals("n")) {
+                        n = Long.parseLong(reader.nextNumber());
+                      } else {
+                        reader.skipValue();
+                      }
+                    }
+                    reader.endObject();
+                    return n;
+                  }));
+        }
+      }
+    }
+    assertEquals(values, Arrays.asList(1L, 2L));
+  }
+
+  @Test
+  public void testLargeResult() {
+    StringBuilder json = new StringBuilder("{\"q\": [");
+    int nodes = 50_000;
+    for (int i = 0; i < nodes; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"uid\": \"0x").append(Integer.toHexString(i));
+      json.append("\", \"name\": \"node ").append(i).append("\"}");
+    }
+    json.append("]}");
+    int count = 0;
+    try (JsonResultReader result = reader(json.toString())) {
+      assertTrue(result.nextBlock());
+      while (result.hasNextNode()) {
+        assertEquals(result.nextNode().get("name"), "node " + count);
+        count++;
+      }
+    }
+    assertEquals(count, nodes);
+  }
+
+  @Test
+  public void testResponseWithoutJson() {
+    try (JsonResultReader result =
+        JsonResultReader.of(ByteString.EMPTY, JsonReaderFactory.DEFAULT)) {
+      assertFalse(result.nextBlock());
+      assertFalse(result.nextBlock());
+    }
+    try (JsonResultReader result = JsonResultReader.of(Response.getDefaultInstance())) {
+      assertFalse(result.nextBlock());
+    }
+  }
+
+  @Test
+  public void testEmptyAndMalformedJson() {
+    try (JsonResultReader result = reader("")) {
+      assertFalse(result.nextBlock());
+    }
+    try (JsonResultReader result = reader("{}")) {
+      assertFalse(result.nextBlock());
+    }
+    try (JsonResultReader result = reader("{\"q\": [{\"a\" 1}]}")) {
+      assertTrue(result.nextBlock());
+      expectThrows(UncheckedIOException.class, result::nextNode);
+    }
+  }
+}
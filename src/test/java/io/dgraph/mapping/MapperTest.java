@@ -0,0 +1,175 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.mapping;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Response;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class MapperTest {
+
+  @DgraphType("Person")
+  static class Person {
+    @Uid String uid;
+    String name;
+    int age;
+    Double score;
+    boolean admin;
+    @Predicate("friend")
+    List<Person> friends;
+    Address address;
+    List<String> nicknames;
+    transient String cached;
+  }
+
+  @DgraphType
+  static class Address {
+    String city;
+  }
+
+  static class Unmapped {}
+
+  /** A superclass that is not mapped itself. */
+  static class Node {
+    @Uid String uid;
+    String createdBy;
+  }
+
+  @DgraphType("Employee")
+  static class Employee extends Node {
+    String name;
+  }
+
+  private static Response response(String json) {
+    return Response.newBuilder().setJson(ByteString.copyFromUtf8(json)).build();
+  }
+
+  @Test
+  public void testDecode() {
+    String json =
+        "{\"other\": [{\"uid\": \"0x9\"}],"
+            + " \"people\": [{\"uid\": \"0x1\", \"name\": \"Alice \\u00e9\\ud83d\\ude00\","
+            + " \"age\": 29, \"score\": 1.5e2, \"admin\": true, \"dgraph.type\": [\"Person\"],"
+            + " \"friend\": [{\"uid\": \"0x2\", \"name\": \"Bob\", \"age\": null}],"
+            + " \"address\": [{\"city\": \"Paris\"}], \"nicknames\": [\"Al\", \"Ali\"],"
+            + " \"unknown\": {\"nested\": [1, 2]}},"
+            + " {\"uid\": \"0x3\", \"address\": {\"city\": \"Rome\"},"
+            + " \"friend\": {\"uid\": \"0x1\"}}]}";
+    List<Person> people = Mapper.decode(response(json), "people", Person.class);
+    assertEquals(people.size(), 2);
+
+    Person alice = people.get(0);
+    assertEquals(alice.uid, "0x1");
+    assertEquals(alice.name, "Alice é😀");
+    assertEquals(alice.age, 29);
+    assertEquals(alice.score, 150.0);
+    assertTrue(alice.admin);
+    assertEquals(alice.friends.size(), 1);
+    assertEquals(alice.friends.get(0).name, "Bob");
+    assertEquals(alice.friends.get(0).age, 0);
+    assertEquals(alice.address.city, "Paris");
+    assertEquals(alice.nicknames, Arrays.asList("Al", "Ali"));
+
+    // a single edge may be an object rather than an array of one
+    Person third = people.get(1);
+    assertEquals(third.address.city, "Rome");
+    assertEquals(third.friends.get(0).uid, "0x1");
+    assertNull(third.name);
+    assertNull(third.score);
+
+    assertTrue(Mapper.decode(response("{\"people\": []}"), "people", Person.class).isEmpty());
+    assertTrue(Mapper.decode(response(""), "people", Person.class).isEmpty());
+  }
+
+  @Test
+  public void testEncode() {
+    Person bob = new Person();
+    bob.uid = "_:bob";
+    bob.name = "Bob";
+    Person alice = new Person();
+    alice.name = "Alice \"A\" \\ é\n😀";
+    alice.age = -7;
+    alice.score = 0.25;
+    alice.friends = Collections.singletonList(bob);
+    alice.address = new Address();
+    alice.address.city = "Paris";
+    alice.cached = "not written";
+
+    Mutation mutation = Mapper.setJson(alice);
+    assertEquals(
+        mutation.getSetJson().toStringUtf8(),
+        "{\"dgraph.type\":\"Person\",\"name\":\"Alice \\\"A\\\" \\\\ é\\n😀\",\"age\":-7,"
+            + "\"score\":0.25,\"admin\":false,"
+            + "\"friend\":[{\"dgraph.type\":\"Person\",\"uid\":\"_:bob\",\"name\":\"Bob\","
+            + "\"age\":0,\"admin\":false}],"
+            + "\"address\":{\"city\":\"Paris\"}}");
+
+    assertEquals(
+        Mapper.encodeAll(Arrays.asList(new Address(), alice.address), Address.class).toStringUtf8(),
+        "[{},{\"city\":\"Paris\"}]");
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Person alice = new Person();
+    alice.uid = "0x1";
+    alice.name = "Al\u0001ice";
+    alice.age = Integer.MIN_VALUE;
+    alice.score = 1e-9;
+    alice.nicknames = Arrays.asList("a", "b");
+
+    String json = "{\"q\": [" + Mapper.encode(alice).toStringUtf8() + "]}";
+    Person decoded = Mapper.decode(response(json), "q", Person.class).get(0);
+    assertEquals(decoded.uid, alice.uid);
+    assertEquals(decoded.name, alice.name);
+    assertEquals(decoded.age, alice.age);
+    assertEquals(decoded.score, alice.score);
+    assertFalse(decoded.admin);
+    assertEquals(decoded.nicknames, alice.nicknames);
+  }
+
+  @Test
+  public void testInheritedFields() {
+    Employee alice = new Employee();
+    alice.uid = "_:alice";
+    alice.createdBy = "import";
+    alice.name = "Alice";
+    assertEquals(
+        Mapper.encode(alice).toStringUtf8(),
+        "{\"dgraph.type\":\"Employee\",\"uid\":\"_:alice\",\"createdBy\":\"import\","
+            + "\"name\":\"Alice\"}");
+
+    String json = "{\"q\": [{\"uid\": \"0x1\", \"createdBy\": \"import\", \"name\": \"Alice\"}]}";
+    Employee decoded = Mapper.decode(response(json), "q", Employee.class).get(0);
+    assertEquals(decoded.uid, "0x1");
+    assertEquals(decoded.createdBy, "import");
+    assertEquals(decoded.name, "Alice");
+  }
+
+  @Test
+  public void testWriterRejectsNonFiniteNumbers() {
+    JsonWriter writer = new JsonWriter();
+    expectThrows(IllegalArgumentException.class, () -> writer.value(Double.NaN));
+    expectThrows(IllegalArgumentException.class, () -> writer.value(Float.POSITIVE_INFINITY));
+    assertEquals(writer.value(Long.MIN_VALUE).size(), 20);
+  }
+
+  @Test
+  public void testCodecOfUnmappedClass() {
+    assertEquals(Mapper.codecName(Person.class), "io.dgraph.mapping.MapperTest_Person_DgraphCodec");
+    expectThrows(IllegalArgumentException.class, () -> Mapper.codec(Unmapped.class));
+  }
+}
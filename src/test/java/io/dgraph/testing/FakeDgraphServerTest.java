@@ -0,0 +1,148 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.testing;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.AlphaShutdownException;
+import io.dgraph.AsyncTransaction;
+import io.dgraph.DgraphAsyncClient;
+import io.dgraph.DgraphException;
+import io.dgraph.DgraphProto.AllocateIDsResponse;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.ResourceExhaustedException;
+import io.dgraph.TxnConflictException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class FakeDgraphServerTest {
+  private static final Mutation SET_NAME =
+      Mutation.newBuilder().setSetNquads(ByteString.copyFromUtf8("<0x1> <name> \"A\" .")).build();
+
+  private FakeDgraphServer server;
+  private DgraphAsyncClient client;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    server = FakeDgraphServer.builder().seed(7).build();
+    client = new DgraphAsyncClient(server.stub());
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  private static DgraphException failure(CompletableFuture<?> future) throws Exception {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      Throwable cause = e;
+      while (cause != null && !(cause instanceof DgraphException)) {
+        cause = cause.getCause();
+      }
+      if (cause != null) {
+        return (DgraphException) cause;
+      }
+      throw e;
+    }
+    fail("expected the future to fail");
+    return null;
+  }
+
+  @Test
+  public void testConflictingCommitIsAborted() throws Exception {
+    AsyncTransaction first = client.newTransaction();
+    AsyncTransaction second = client.newTransaction();
+    first.mutate(SET_NAME).get(5, TimeUnit.SECONDS);
+    second.mutate(SET_NAME).get(5, TimeUnit.SECONDS);
+
+    first.commit().get(5, TimeUnit.SECONDS);
+    assertTrue(failure(second.commit()) instanceof TxnConflictException);
+    assertEquals(server.getCommitCount(), 1);
+    assertEquals(server.getAbortCount(), 1);
+  }
+
+  @Test
+  public void testConcurrentWritersSucceedWithRetry() throws Exception {
+    server.setLatency(Duration.ZERO, Duration.ofMillis(2));
+    Mutation commitNow = SET_NAME.toBuilder().setCommitNow(true).build();
+    List<CompletableFuture<Response>> writes = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      writes.add(client.withRetry(txn -> txn.mutate(commitNow)));
+    }
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+    assertEquals(server.getCommitCount(), 50);
+  }
+
+  @Test
+  public void testBlankNodesAndAllocateIds() throws Exception {
+    Response response =
+        client
+            .newTransaction()
+            .mutate(
+                Mutation.newBuilder()
+                    .setSetNquads(ByteString.copyFromUtf8("_:a <knows> _:b .\n_:b <name> \"B\" ."))
+                    .setCommitNow(true)
+                    .build())
+            .get(5, TimeUnit.SECONDS);
+    assertEquals(response.getUidsCount(), 2);
+
+    AllocateIDsResponse first = client.allocateUIDs(100).get(5, TimeUnit.SECONDS);
+    AllocateIDsResponse second = client.allocateUIDs(100).get(5, TimeUnit.SECONDS);
+    assertEquals(first.getEnd() - first.getStart(), 99);
+    assertEquals(second.getStart(), first.getEnd() + 1);
+  }
+
+  @Test
+  public void testDraining() throws Exception {
+    server.setDraining(true);
+    assertTrue(
+        failure(client.newReadOnlyTransaction().query("{}")) instanceof AlphaShutdownException);
+    server.setDraining(false);
+    client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testResourceExhausted() throws Exception {
+    server.setLatency(Duration.ofMillis(200));
+    server.setMaxConcurrentRequests(1);
+    CompletableFuture<Response> admitted = client.newReadOnlyTransaction().query("{}");
+    CompletableFuture<Response> rejected = client.newReadOnlyTransaction().query("{}");
+
+    assertTrue(failure(rejected) instanceof ResourceExhaustedException);
+    admitted.get(5, TimeUnit.SECONDS);
+    assertEquals(server.getRejectedCount(), 1);
+  }
+
+  @Test
+  public void testExpiredTokenIsRefreshed() throws Exception {
+    client.login("groot", "password").get(5, TimeUnit.SECONDS);
+    server.expireTokens();
+
+    client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+    assertEquals(server.getLoginCount(), 2);
+  }
+
+  @Test
+  public void testFailNext() throws Exception {
+    server.failNext(2, FakeDgraphServer.DRAINING);
+    failure(client.newReadOnlyTransaction().query("{}"));
+    failure(client.newReadOnlyTransaction().query("{}"));
+    client.newReadOnlyTransaction().query("{}").get(5, TimeUnit.SECONDS);
+    assertEquals(server.getRequestCount(), 3);
+  }
+}
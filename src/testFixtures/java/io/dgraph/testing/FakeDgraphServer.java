@@ -0,0 +1,670 @@
+/*
+ * SPDX-FileCopyrightText: © 2017-2026 Istari Digital, Inc.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.dgraph.testing;
+
+import com.google.protobuf.ByteString;
+import io.dgraph.DgraphGrpc;
+import io.dgraph.DgraphProto.AllocateIDsRequest;
+import io.dgraph.DgraphProto.AllocateIDsResponse;
+import io.dgraph.DgraphProto.Check;
+import io.dgraph.DgraphProto.Jwt;
+import io.dgraph.DgraphProto.Latency;
+import io.dgraph.DgraphProto.LoginRequest;
+import io.dgraph.DgraphProto.Metrics;
+import io.dgraph.DgraphProto.Mutation;
+import io.dgraph.DgraphProto.NQuad;
+import io.dgraph.DgraphProto.Operation;
+import io.dgraph.DgraphProto.Payload;
+import io.dgraph.DgraphProto.Request;
+import io.dgraph.DgraphProto.Response;
+import io.dgraph.DgraphProto.TxnContext;
+import io.dgraph.DgraphProto.Version;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory Dgraph alpha served over the in-process gRPC transport, for measuring the
+ * throughput, tail latency and retry behaviour of the client without a cluster.
+ *
+ * <p>The server hands out start and commit timestamps from a single oracle, detects write
+ * conflicts on the keys {@code <subject>|<predicate>} of N-Quad mutations when a transaction
+ * commits, and allocates uids for blank nodes and {@code AllocateIDs}. It does not evaluate
+ * queries: their JSON is produced by {@link #setQueryHandler}. JSON mutations are accepted but
+ * contribute no conflict keys.
+ *
+ * <p>Latency and faults can be changed while the server is running:
+ *
+ * <pre>{@code
+ * try (FakeDgraphServer server = FakeDgraphServer.builder().seed(42).build()) {
+ *   DgraphAsyncClient client = new DgraphAsyncClient(server.stub());
+ *   server.setLatency(Duration.ofMillis(1), Duration.ofMillis(20));
+ *   server.failNext(3, FakeDgraphServer.DRAINING);
+ *   server.setMaxConcurrentRequests(64); // beyond that, RESOURCE_EXHAUSTED
+ *   server.expireTokens();               // tokens issued so far are rejected as expired
+ * }
+ * }</pre>
+ *
+ * <p>Tests that need behaviour the in-memory alpha does not model, such as responses held until the
+ * test releases them, can serve their own implementation with {@link Builder#service}; the faults
+ * and statistics above still apply to it.
+ */
+public final class FakeDgraphServer implements AutoCloseable {
+  /** The error an alpha returns while it is shutting down. */
+  public static final Status DRAINING =
+      Status.UNKNOWN.withDescription(
+          "the server is in draining mode and client requests will only be served by other nodes");
+
+  /** The error an alpha returns for an expired access JWT. */
+  public static final Status TOKEN_EXPIRED =
+      Status.UNAUTHENTICATED.withDescription("Token is expired");
+
+  /** The error an alpha returns when it rejects a request under load. */
+  public static final Status OVERLOADED =
+      Status.RESOURCE_EXHAUSTED.withDescription("too many pending requests");
+
+  /** The error an alpha returns when a transaction conflicts with a committed one. */
+  public static final Status ABORTED =
+      Status.ABORTED.withDescription("Transaction has been aborted. Please retry");
+
+  static final Metadata.Key<String> ACCESS_JWT_KEY =
+      Metadata.Key.of("accessJwt", Metadata.ASCII_STRING_MARSHALLER);
+
+  private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+  private static final Pattern GENERATION_CLAIM = Pattern.compile("\"gen\"\\s*:\\s*(\\d+)");
+
+  private final Server server;
+  private final ManagedChannel channel;
+  private final ScheduledExecutorService timer;
+  private final Random random;
+
+  // oracle state, guarded by this
+  private long nextTs = 1;
+  private long nextUid = 1;
+  private long nextNamespace = 1;
+  private final Map<Long, Set<String>> pendingKeys = new HashMap<>();
+  private final Map<String, Long> lastCommitTs = new HashMap<>();
+  private final Queue<Status> injectedFailures = new ArrayDeque<>();
+
+  // fault and latency settings
+  private volatile long minLatencyNanos;
+  private volatile long maxLatencyNanos;
+  private volatile boolean draining;
+  private volatile double errorRate;
+  private volatile Status errorStatus = Status.UNAVAILABLE;
+  private volatile int maxConcurrentRequests = Integer.MAX_VALUE;
+  private volatile Duration tokenTtl = Duration.ofHours(6);
+  private final AtomicLong tokenGeneration = new AtomicLong();
+  private volatile Function<Request, String> queryHandler = request -> "{}";
+
+  // statistics
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong commits = new AtomicLong();
+  private final AtomicLong aborts = new AtomicLong();
+  private final AtomicLong logins = new AtomicLong();
+
+  private FakeDgraphServer(Builder builder) throws IOException {
+    this.random = new Random(builder.seed);
+    this.timer =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "fake-dgraph-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    String name = InProcessServerBuilder.generateName();
+    // the last interceptor runs first, so faults are injected before the caller's interceptors
+    List<ServerInterceptor> interceptors = new ArrayList<>(builder.interceptors);
+    interceptors.add(new FaultInjector());
+    DgraphGrpc.DgraphImplBase service = builder.service == null ? new Service() : builder.service;
+    this.server =
+        InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(ServerInterceptors.intercept(service, interceptors))
+            .build()
+            .start();
+    this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns a new stub connected to this server. */
+  public DgraphGrpc.DgraphStub stub() {
+    return DgraphGrpc.newStub(channel);
+  }
+
+  /** Delays every response by {@code latency}. */
+  public void setLatency(Duration latency) {
+    setLatency(latency, latency);
+  }
+
+  /** Delays every response by a uniformly distributed time between {@code min} and {@code max}. */
+  public void setLatency(Duration min, Duration max) {
+    if (min.isNegative() || max.compareTo(min) < 0) {
+      throw new IllegalArgumentException("latency must satisfy 0 <= min <= max");
+    }
+    this.minLatencyNanos = min.toNanos();
+    this.maxLatencyNanos = max.toNanos();
+  }
+
+  /** Fails every request with {@link #DRAINING} while enabled. */
+  public void setDraining(boolean draining) {
+    this.draining = draining;
+  }
+
+  /** Fails the next {@code count} requests with the given status. */
+  public synchronized void failNext(int count, Status status) {
+    for (int i = 0; i < count; i++) {
+      injectedFailures.add(status);
+    }
+  }
+
+  /** Fails each request with the given status with probability {@code rate}. */
+  public void setErrorRate(double rate, Status status) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("rate must be between 0 and 1");
+    }
+    this.errorStatus = status;
+    this.errorRate = rate;
+  }
+
+  /** Fails requests with {@link #OVERLOADED} while this many are already being served. */
+  public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+    if (maxConcurrentRequests < 1) {
+      throw new IllegalArgumentException("maxConcurrentRequests must be >= 1");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+  }
+
+  /** Sets the lifetime of access JWTs issued from now on. Defaults to 6 hours. */
+  public void setTokenTtl(Duration tokenTtl) {
+    this.tokenTtl = tokenTtl;
+  }
+
+  /**
+   * Makes every access JWT issued so far fail with {@link #TOKEN_EXPIRED}, as if they had all
+   * reached their expiry. Refresh JWTs stay valid.
+   */
+  public void expireTokens() {
+    tokenGeneration.incrementAndGet();
+  }
+
+  /** Sets the function producing the JSON of query responses. Defaults to {@code {}}. */
+  public void setQueryHandler(Function<Request, String> queryHandler) {
+    this.queryHandler = queryHandler;
+  }
+
+  /** Returns the number of requests received, including rejected ones. */
+  public long getRequestCount() {
+    return requests.get();
+  }
+
+  /** Returns the number of requests rejected by injected faults or the concurrency limit. */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  /** Returns the number of committed transactions. */
+  public long getCommitCount() {
+    return commits.get();
+  }
+
+  /** Returns the number of transactions aborted because of a conflict. */
+  public long getAbortCount() {
+    return aborts.get();
+  }
+
+  /** Returns the number of successful Login calls, including refreshes. */
+  public long getLoginCount() {
+    return logins.get();
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    timer.shutdownNow();
+  }
+
+  private synchronized Status nextInjectedFailure() {
+    Status status = injectedFailures.poll();
+    if (status == null && errorRate > 0 && random.nextDouble() < errorRate) {
+      status = errorStatus;
+    }
+    return status;
+  }
+
+  private synchronized long latencyNanos() {
+    long min = minLatencyNanos;
+    long max = maxLatencyNanos;
+    if (max <= min) {
+      return min;
+    }
+    return min + (long) (random.nextDouble() * (max - min));
+  }
+
+  private boolean isExpired(String accessJwt) {
+    String payload = payloadOf(accessJwt);
+    Matcher exp = EXP_CLAIM.matcher(payload);
+    if (exp.find() && TimeUnit.SECONDS.toMillis(Long.parseLong(exp.group(1))) <= now()) {
+      return true;
+    }
+    Matcher generation = GENERATION_CLAIM.matcher(payload);
+    return generation.find() && Long.parseLong(generation.group(1)) < tokenGeneration.get();
+  }
+
+  private static String payloadOf(String jwt) {
+    int first = jwt.indexOf('.');
+    int second = jwt.indexOf('.', first + 1);
+    if (first < 0 || second < 0) {
+      return "";
+    }
+    try {
+      return new String(
+          Base64.getUrlDecoder().decode(jwt.substring(first + 1, second)), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
+  private String issueAccessJwt() {
+    long now = now();
+    long exp = TimeUnit.MILLISECONDS.toSeconds(now + tokenTtl.toMillis());
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+    String payload =
+        encoder.encodeToString(
+            ("{\"exp\":" + exp + ",\"gen\":" + tokenGeneration.get() + "}")
+                .getBytes(StandardCharsets.UTF_8));
+    return header + "." + payload + ".fake";
+  }
+
+  private static long now() {
+    return System.currentTimeMillis();
+  }
+
+  private synchronized long allocateTs() {
+    return nextTs++;
+  }
+
+  private synchronized long allocate(AllocateIDsRequest request) {
+    long start;
+    switch (request.getLeaseType()) {
+      case UID:
+        start = nextUid;
+        nextUid += request.getHowMany();
+        return start;
+      case TS:
+        start = nextTs;
+        nextTs += request.getHowMany();
+        return start;
+      default:
+        start = nextNamespace;
+        nextNamespace += request.getHowMany();
+        return start;
+    }
+  }
+
+  private synchronized String uidFor(String blankNode, Map<String, String> assigned) {
+    return assigned.computeIfAbsent(blankNode, ignored -> "0x" + Long.toHexString(nextUid++));
+  }
+
+  private synchronized void addPendingKeys(long startTs, Set<String> keys) {
+    pendingKeys.computeIfAbsent(startTs, ignored -> new LinkedHashSet<>()).addAll(keys);
+  }
+
+  /** Commits the transaction, or aborts it if a key it wrote was committed after it started. */
+  private synchronized long commit(long startTs) {
+    Set<String> keys = pendingKeys.remove(startTs);
+    if (keys != null) {
+      for (String key : keys) {
+        Long committed = lastCommitTs.get(key);
+        if (committed != null && committed > startTs) {
+          aborts.incrementAndGet();
+          throw ABORTED.asRuntimeException();
+        }
+      }
+    }
+    long commitTs = nextTs++;
+    if (keys != null) {
+      for (String key : keys) {
+        lastCommitTs.put(key, commitTs);
+      }
+    }
+    commits.incrementAndGet();
+    return commitTs;
+  }
+
+  private synchronized void abort(long startTs) {
+    pendingKeys.remove(startTs);
+  }
+
+  private synchronized void reset() {
+    pendingKeys.clear();
+    lastCommitTs.clear();
+  }
+
+  /** Collects the conflict keys of a mutation, assigning uids to its blank nodes. */
+  private void collectKeys(Mutation mutation, Set<String> keys, Map<String, String> uids) {
+    for (NQuad nquad : mutation.getSetList()) {
+      keys.add(subject(nquad.getSubject(), uids) + "|" + nquad.getPredicate());
+    }
+    for (NQuad nquad : mutation.getDelList()) {
+      keys.add(subject(nquad.getSubject(), uids) + "|" + nquad.getPredicate());
+    }
+    collectKeys(mutation.getSetNquads(), keys, uids);
+    collectKeys(mutation.getDelNquads(), keys, uids);
+  }
+
+  private void collectKeys(ByteString rdf, Set<String> keys, Map<String, String> uids) {
+    if (rdf.isEmpty()) {
+      return;
+    }
+    for (String line : rdf.toStringUtf8().split("\n")) {
+      String[] tokens = line.trim().split("\\s+", 3);
+      if (tokens.length < 3 || tokens[0].startsWith("#")) {
+        continue;
+      }
+      String subject = tokens[0].replaceAll("^<|>$", "");
+      keys.add(subject(subject, uids) + "|" + tokens[1].replaceAll("^<|>$", ""));
+      // blank node objects get uids as well
+      if (tokens[2].startsWith("_:")) {
+        subject(tokens[2].split("\\s+", 2)[0], uids);
+      }
+    }
+  }
+
+  /** Counts the subjects written per predicate, as the alpha reports them in num_uids. */
+  private static Metrics numUids(Set<String> keys) {
+    Map<String, Long> counts = new HashMap<>();
+    for (String key : keys) {
+      counts.merge(key.substring(key.lastIndexOf('|') + 1), 1L, Long::sum);
+    }
+    return Metrics.newBuilder().putAllNumUids(counts).build();
+  }
+
+  private String subject(String subject, Map<String, String> uids) {
+    if (subject.startsWith("_:")) {
+      return uidFor(subject.substring(2), uids);
+    }
+    return subject;
+  }
+
+  private <T> void respond(StreamObserver<T> observer, T value) {
+    long delay = latencyNanos();
+    if (delay == 0) {
+      observer.onNext(value);
+      observer.onCompleted();
+      return;
+    }
+    timer.schedule(
+        () -> {
+          observer.onNext(value);
+          observer.onCompleted();
+        },
+        delay,
+        TimeUnit.NANOSECONDS);
+  }
+
+  private <T> void fail(StreamObserver<T> observer, StatusRuntimeException error) {
+    long delay = latencyNanos();
+    if (delay == 0) {
+      observer.onError(error);
+      return;
+    }
+    timer.schedule(() -> observer.onError(error), delay, TimeUnit.NANOSECONDS);
+  }
+
+  /** Takes a slot of {@code maxConcurrentRequests}, or returns false if there is none. */
+  private boolean tryAcquireSlot() {
+    while (true) {
+      int current = inflight.get();
+      if (current >= maxConcurrentRequests) {
+        return false;
+      }
+      if (inflight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private static boolean isLogin(ServerCall<?, ?> call) {
+    return DgraphGrpc.getLoginMethod()
+        .getFullMethodName()
+        .equals(call.getMethodDescriptor().getFullMethodName());
+  }
+
+  /** Rejects calls according to the configured faults before they reach the service. */
+  private final class FaultInjector implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      requests.incrementAndGet();
+
+      Status failure = null;
+      String accessJwt = headers.get(ACCESS_JWT_KEY);
+      if (draining) {
+        failure = DRAINING;
+      } else if (accessJwt != null && !isLogin(call) && isExpired(accessJwt)) {
+        failure = TOKEN_EXPIRED;
+      } else {
+        failure = nextInjectedFailure();
+      }
+      if (failure == null && !tryAcquireSlot()) {
+        failure = OVERLOADED;
+      }
+      if (failure != null) {
+        rejected.incrementAndGet();
+        call.close(failure, new Metadata());
+        return new ServerCall.Listener<ReqT>() {};
+      }
+
+      // a call ends either by being closed or by being cancelled by the client
+      AtomicBoolean released = new AtomicBoolean();
+      Runnable release =
+          () -> {
+            if (released.compareAndSet(false, true)) {
+              inflight.decrementAndGet();
+            }
+          };
+      ServerCall.Listener<ReqT> listener;
+      try {
+        listener =
+            next.startCall(
+                new SimpleForwardingServerCall<ReqT, RespT>(call) {
+                  @Override
+                  public void close(Status status, Metadata trailers) {
+                    release.run();
+                    super.close(status, trailers);
+                  }
+                },
+                headers);
+      } catch (RuntimeException e) {
+        release.run();
+        throw e;
+      }
+      return new SimpleForwardingServerCallListener<ReqT>(listener) {
+        @Override
+        public void onCancel() {
+          release.run();
+          super.onCancel();
+        }
+      };
+    }
+  }
+
+  private final class Service extends DgraphGrpc.DgraphImplBase {
+    @Override
+    public void login(LoginRequest request, StreamObserver<Response> responseObserver) {
+      logins.incrementAndGet();
+      Jwt jwt =
+          Jwt.newBuilder()
+              .setAccessJwt(issueAccessJwt())
+              .setRefreshJwt("refresh-" + logins.get())
+              .build();
+      respond(responseObserver, Response.newBuilder().setJson(jwt.toByteString()).build());
+    }
+
+    @Override
+    public void query(Request request, StreamObserver<Response> responseObserver) {
+      long started = System.nanoTime();
+      long startTs = request.getStartTs() == 0 ? allocateTs() : request.getStartTs();
+      TxnContext.Builder txn = TxnContext.newBuilder().setStartTs(startTs);
+      Response.Builder response = Response.newBuilder();
+
+      if (request.getMutationsCount() > 0) {
+        Set<String> keys = new LinkedHashSet<>();
+        Map<String, String> uids = new HashMap<>();
+        for (Mutation mutation : request.getMutationsList()) {
+          collectKeys(mutation, keys, uids);
+        }
+        addPendingKeys(startTs, keys);
+        txn.addAllKeys(keys);
+        response.putAllUids(uids);
+        response.setMetrics(numUids(keys));
+        if (request.getCommitNow()) {
+          try {
+            txn.setCommitTs(commit(startTs));
+          } catch (StatusRuntimeException e) {
+            fail(responseObserver, e);
+            return;
+          }
+        }
+      }
+      if (!request.getQuery().isEmpty()) {
+        response.setJson(ByteString.copyFromUtf8(queryHandler.apply(request)));
+      }
+
+      long took = System.nanoTime() - started;
+      response
+          .setTxn(txn)
+          .setLatency(Latency.newBuilder().setProcessingNs(took).setTotalNs(took));
+      respond(responseObserver, response.build());
+    }
+
+    @Override
+    public void commitOrAbort(TxnContext request, StreamObserver<TxnContext> responseObserver) {
+      if (request.getAborted()) {
+        abort(request.getStartTs());
+        respond(responseObserver, request);
+        return;
+      }
+      try {
+        long commitTs = commit(request.getStartTs());
+        respond(responseObserver, request.toBuilder().setCommitTs(commitTs).build());
+      } catch (StatusRuntimeException e) {
+        fail(responseObserver, e);
+      }
+    }
+
+    @Override
+    public void alter(Operation request, StreamObserver<Payload> responseObserver) {
+      if (request.getDropAll() || request.getDropOp() == Operation.DropOp.ALL) {
+        reset();
+      }
+      respond(responseObserver, Payload.getDefaultInstance());
+    }
+
+    @Override
+    public void checkVersion(Check request, StreamObserver<Version> responseObserver) {
+      respond(responseObserver, Version.newBuilder().setTag("v25.0.0-fake").build());
+    }
+
+    @Override
+    public void allocateIDs(
+        AllocateIDsRequest request, StreamObserver<AllocateIDsResponse> responseObserver) {
+      long start = allocate(request);
+      respond(
+          responseObserver,
+          AllocateIDsResponse.newBuilder()
+              .setStart(start)
+              .setEnd(start + request.getHowMany() - 1)
+              .build());
+    }
+  }
+
+  public static final class Builder {
+    private long seed = 1;
+    private Duration minLatency = Duration.ZERO;
+    private Duration maxLatency = Duration.ZERO;
+    private DgraphGrpc.DgraphImplBase service;
+    private final List<ServerInterceptor> interceptors = new ArrayList<>();
+
+    private Builder() {}
+
+    /** Seeds the random latency and error injection, for reproducible runs. Defaults to 1. */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /** Sets the initial latency; see {@link FakeDgraphServer#setLatency(Duration, Duration)}. */
+    public Builder latency(Duration min, Duration max) {
+      this.minLatency = min;
+      this.maxLatency = max;
+      return this;
+    }
+
+    /**
+     * Serves calls with {@code service} instead of the in-memory alpha. Latency settings and the
+     * query handler then have no effect; injected faults and the concurrency limit still do.
+     */
+    public Builder service(DgraphGrpc.DgraphImplBase service) {
+      this.service = service;
+      return this;
+    }
+
+    /** Adds interceptors that see each call after the injected faults, e.g. to record headers. */
+    public Builder interceptors(ServerInterceptor... interceptors) {
+      this.interceptors.addAll(List.of(interceptors));
+      return this;
+    }
+
+    /** Starts the server. */
+    public FakeDgraphServer build() throws IOException {
+      FakeDgraphServer server = new FakeDgraphServer(this);
+      server.setLatency(minLatency, maxLatency);
+      return server;
+    }
+  }
+}